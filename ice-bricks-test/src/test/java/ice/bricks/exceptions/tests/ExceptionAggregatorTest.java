@@ -0,0 +1,113 @@
+package ice.bricks.exceptions.tests;
+
+import ice.bricks.exceptions.ExceptionAggregator;
+import ice.bricks.exceptions.ExceptionSummary;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class ExceptionAggregatorTest {
+
+    @Test
+    void shouldDeduplicateExceptionsByTypeAndStackTrace() {
+        ExceptionAggregator aggregator = new ExceptionAggregator(10);
+
+        for (int i = 0; i < 100; i++) {
+            aggregator.add(failRead(i));
+            aggregator.add(failParse(i));
+        }
+
+        aggregator.add(new IOException("other place"));
+
+        List<ExceptionSummary> exceptions = aggregator.getExceptions();
+
+        assertThat(exceptions).hasSize(3);
+        assertThat(exceptions.get(0).getException()).hasMessage("read 0");
+        assertThat(exceptions.get(0).getCount()).isEqualTo(100);
+        assertThat(exceptions.get(1).getException()).hasMessage("parse 0");
+        assertThat(exceptions.get(1).getCount()).isEqualTo(100);
+        assertThat(exceptions.get(2).getCount()).isEqualTo(1);
+
+        assertThat(aggregator.getTotalCount()).isEqualTo(201);
+        assertThat(aggregator.getOverflowCount()).isZero();
+    }
+
+    @Test
+    void shouldDistinguishStackTracesWithCollidingHashes() {
+        // the hash of a stack trace element grows with its line number, so these traces have equal hashes
+        IOException first = new IOException("first");
+        first.setStackTrace(new StackTraceElement[] {
+                new StackTraceElement("Importer", "read", "Importer.java", 10),
+                new StackTraceElement("Importer", "run", "Importer.java", 100)});
+
+        IOException second = new IOException("second");
+        second.setStackTrace(new StackTraceElement[] {
+                new StackTraceElement("Importer", "read", "Importer.java", 11),
+                new StackTraceElement("Importer", "run", "Importer.java", 69)});
+
+        assertThat(Arrays.hashCode(first.getStackTrace())).isEqualTo(Arrays.hashCode(second.getStackTrace()));
+
+        ExceptionAggregator aggregator = new ExceptionAggregator(10);
+        aggregator.add(first);
+        aggregator.add(second);
+
+        assertThat(aggregator.getExceptions())
+                .extracting(ExceptionSummary::getException)
+                .containsExactly(first, second);
+    }
+
+    @Test
+    void shouldRetainLimitedNumberOfExceptions() {
+        ExceptionAggregator aggregator = new ExceptionAggregator(2);
+
+        IntStream.range(0, 1000).parallel().forEach(i -> {
+            aggregator.add(new IllegalStateException());
+            aggregator.add(new IllegalArgumentException());
+            aggregator.add(new UnsupportedOperationException());
+        });
+
+        assertThat(aggregator.getExceptions()).hasSize(2);
+        assertThat(aggregator.getTotalCount()).isEqualTo(3000);
+        assertThat(aggregator.getExceptions().stream().mapToLong(ExceptionSummary::getCount).sum()
+                + aggregator.getOverflowCount())
+                .isEqualTo(3000);
+    }
+
+    @Test
+    void shouldBuildSummaryException() {
+        ExceptionAggregator aggregator = new ExceptionAggregator(1);
+        aggregator.throwIfAny("Nothing failed");
+        assertThat(aggregator.toException("Nothing failed")).isNull();
+
+        for (int i = 1; i <= 2; i++) {
+            aggregator.add(failRead(i));
+        }
+
+        aggregator.add(failParse(3));
+
+        assertThatIllegalStateException()
+                .isThrownBy(() -> aggregator.throwIfAny("Import failed"))
+                .withMessageContaining("Import failed: 3 exception(s)")
+                .withMessageContaining("2 x java.io.IOException: read 1")
+                .withMessageContaining("1 x other exceptions")
+                .satisfies(e -> assertThat(e.getSuppressed()).hasSize(1));
+
+        assertThatIllegalArgumentException().isThrownBy(() -> new ExceptionAggregator(0));
+    }
+
+    private static IOException failRead(int index) {
+        return new IOException("read " + index);
+    }
+
+    private static NumberFormatException failParse(int index) {
+        return new NumberFormatException("parse " + index);
+    }
+
+}
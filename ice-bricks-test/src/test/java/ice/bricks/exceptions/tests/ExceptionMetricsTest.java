@@ -0,0 +1,149 @@
+package ice.bricks.exceptions.tests;
+
+import ice.bricks.exceptions.ExceptionMetrics;
+import ice.bricks.exceptions.ExceptionMetricsSnapshot;
+import ice.bricks.exceptions.ExceptionUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class ExceptionMetricsTest {
+
+    @AfterEach
+    void resetMetrics() {
+        ExceptionMetrics.get().disable();
+        ExceptionMetrics.get().reset();
+    }
+
+    @Test
+    void shouldCountExceptionsByType() {
+        ExceptionMetrics.get().enable(1.0, Duration.ofMinutes(1));
+
+        for (int i = 0; i < 5; i++) {
+            ExceptionUtils.defaultIfException(() -> Integer.parseInt("x"), 0);
+        }
+
+        ExceptionUtils.defaultIfException(() -> 2 * 2, 0);
+
+        List<ExceptionMetricsSnapshot> snapshots = ExceptionMetrics.get().snapshots();
+
+        assertThat(snapshots).hasSize(1);
+        assertThat(snapshots.get(0).getType()).isEqualTo(NumberFormatException.class.getName());
+        assertThat(snapshots.get(0).getCount()).isEqualTo(5);
+        assertThat(snapshots.get(0).getRecentRate()).isGreaterThan(0);
+        assertThat(snapshots.get(0).getSampledCount()).isEqualTo(5);
+        assertThat(snapshots.get(0).getSampledStackTrace()).isNotEmpty();
+    }
+
+    @Test
+    void shouldNotSampleStackTracesIfRateIsZero() {
+        ExceptionMetrics.get().enable(0, Duration.ofMinutes(1));
+
+        ExceptionUtils.defaultIfException(() -> 2 / 0, 0);
+
+        assertThat(ExceptionMetrics.get().snapshots())
+                .singleElement()
+                .satisfies(snapshot -> {
+                    assertThat(snapshot.getCount()).isEqualTo(1);
+                    assertThat(snapshot.getSampledStackTrace()).isEmpty();
+                });
+    }
+
+    @Test
+    void shouldCountNestedFailureOnce() {
+        ExceptionMetrics.get().enable(0, Duration.ofMinutes(1));
+
+        ExceptionUtils.defaultIfException(() -> ExceptionUtils.runSafe(() -> ExceptionUtils.runSafePropagating(() -> {
+            throw new IOException("nested");
+        })), null);
+
+        ExceptionUtils.defaultIfException(() -> ExceptionUtils.runSafePropagating(() -> 2 / 0), 0);
+
+        assertThat(ExceptionMetrics.get().getCounts())
+                .containsOnly(entry(IOException.class.getName(), 1L), entry(ArithmeticException.class.getName(), 1L));
+    }
+
+    @Test
+    void shouldCountEveryThrowOfPreallocatedException() {
+        ExceptionMetrics.get().enable(0, Duration.ofMinutes(1));
+
+        IOException preallocated = new IOException("preallocated");
+        for (int i = 0; i < 3; i++) {
+            ExceptionUtils.defaultIfException(() -> {
+                throw preallocated;
+            }, null);
+
+            ExceptionUtils.defaultIfException(() -> ExceptionUtils.runSafe(() -> {
+                throw preallocated;
+            }), null);
+        }
+
+        assertThat(ExceptionMetrics.get().getCounts()).containsOnly(entry(IOException.class.getName(), 6L));
+    }
+
+    @Test
+    void shouldNotCountExceptionCausedByWrapperAgain() {
+        ExceptionMetrics.get().enable(0, Duration.ofMinutes(1));
+
+        ExceptionUtils.defaultIfException(() -> {
+            try {
+                return ExceptionUtils.runSafe(() -> {
+                    throw new IOException("wrapped");
+                });
+            }
+            catch (IllegalStateException e) {
+                throw new IllegalArgumentException("rethrown", e);
+            }
+        }, null);
+
+        assertThat(ExceptionMetrics.get().getCounts()).containsOnly(entry(IOException.class.getName(), 1L));
+    }
+
+    @Test
+    void shouldRestartRecentRateIfWindowChanges() {
+        ExceptionMetrics.get().enable(0, Duration.ofSeconds(10));
+        ExceptionUtils.defaultIfException(() -> 2 / 0, 0);
+
+        ExceptionMetrics.get().enable(0, Duration.ofSeconds(10));
+        assertThat(ExceptionMetrics.get().getRecentRates()).containsValue(0.1);
+
+        // epochs of shorter buckets would look recent for longer ones
+        ExceptionMetrics.get().enable(0, Duration.ofMinutes(1));
+        assertThat(ExceptionMetrics.get().getRecentRates()).containsValue(0.0);
+        assertThat(ExceptionMetrics.get().getTotalCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotRecordIfDisabled() {
+        ExceptionUtils.defaultIfException(() -> 2 / 0, 0);
+
+        assertThat(ExceptionMetrics.get().snapshots()).isEmpty();
+        assertThat(ExceptionMetrics.get().getTotalCount()).isZero();
+    }
+
+    @Test
+    void shouldExposeMetricsViaJmx() throws Exception {
+        ExceptionMetrics.get().enable(0.5, Duration.ofSeconds(10));
+        ExceptionUtils.defaultIfException(() -> Class.forName("MyUnknownClass"), null);
+
+        ObjectName name = ExceptionMetrics.get().registerMBean();
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertThat(server.getAttribute(name, "TotalCount")).isEqualTo(1L);
+            assertThat(server.getAttribute(name, "Enabled")).isEqualTo(true);
+        }
+        finally {
+            ExceptionMetrics.get().unregisterMBean();
+        }
+    }
+
+}
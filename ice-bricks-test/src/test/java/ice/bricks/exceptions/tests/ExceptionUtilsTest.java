@@ -1,6 +1,8 @@
 package ice.bricks.exceptions.tests;
 
 import ice.bricks.exceptions.ExceptionUtils;
+import ice.bricks.exceptions.StacklessException;
+import ice.bricks.exceptions.WrappingMode;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -41,4 +43,46 @@ class ExceptionUtilsTest {
         assertThat(ExceptionUtils.defaultIfException(() -> 2 / 0, 5)).isEqualTo(5);
     }
 
+    @Test
+    void shouldWrapCheckedExceptionWithoutStackTrace() {
+        assertThatExceptionOfType(StacklessException.class)
+                .isThrownBy(() -> ExceptionUtils.runSafe(() -> Class.forName("MyUnknownClass"), WrappingMode.STACKLESS))
+                .withCauseInstanceOf(ClassNotFoundException.class)
+                .satisfies(e -> assertThat(e.getStackTrace()).isEmpty());
+
+        assertThatExceptionOfType(IllegalStateException.class)
+                .isThrownBy(() -> ExceptionUtils.runSafe(() -> Class.forName("MyUnknownClass"), WrappingMode.FULL))
+                .satisfies(e -> assertThat(e.getStackTrace()).isNotEmpty());
+    }
+
+    @Test
+    void shouldWrapCheckedExceptionInDefaultMode() {
+        try {
+            ExceptionUtils.setDefaultWrappingMode(WrappingMode.STACKLESS);
+
+            assertThatExceptionOfType(StacklessException.class).isThrownBy(
+                    () -> ExceptionUtils.runSafe(() -> Class.forName("MyUnknownClass")));
+        }
+        finally {
+            ExceptionUtils.setDefaultWrappingMode(WrappingMode.FULL);
+        }
+
+        assertThat(ExceptionUtils.getDefaultWrappingMode()).isEqualTo(WrappingMode.FULL);
+    }
+
+    @Test
+    void shouldPropagateUncheckedExceptionAsIs() {
+        IllegalArgumentException failure = new IllegalArgumentException("failure");
+
+        assertThatExceptionOfType(IllegalArgumentException.class)
+                .isThrownBy(() -> ExceptionUtils.runSafePropagating(() -> {
+                    throw failure;
+                }))
+                .isSameAs(failure);
+
+        assertThatExceptionOfType(IllegalStateException.class)
+                .isThrownBy(() -> ExceptionUtils.runSafePropagating(() -> Class.forName("MyUnknownClass")))
+                .withCauseInstanceOf(ClassNotFoundException.class);
+    }
+
 }
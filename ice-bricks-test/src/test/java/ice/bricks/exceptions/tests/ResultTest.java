@@ -0,0 +1,98 @@
+package ice.bricks.exceptions.tests;
+
+import ice.bricks.exceptions.Result;
+import ice.bricks.exceptions.StacklessException;
+import org.junit.jupiter.api.Test;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class ResultTest {
+
+    @Test
+    void shouldCaptureOutcomeOfOperation() {
+        Result<Integer> success = Result.of(() -> 2 * 2);
+        assertThat(success.isSuccess()).isTrue();
+        assertThat(success.get()).isEqualTo(4);
+        assertThat(success.getFailure()).isNull();
+
+        Result<Integer> failure = Result.of(() -> 2 / 0);
+        assertThat(failure.isFailure()).isTrue();
+        assertThat(failure.orElse(5)).isEqualTo(5);
+        assertThat(failure.getFailure()).isInstanceOf(ArithmeticException.class);
+
+        assertThatExceptionOfType(ArithmeticException.class).isThrownBy(failure::get);
+    }
+
+    @Test
+    void shouldPropagateErrorsAndRestoreInterruption() {
+        assertThatExceptionOfType(StackOverflowError.class).isThrownBy(() -> Result.of(() -> {
+            throw new StackOverflowError();
+        }));
+
+        assertThatExceptionOfType(AssertionError.class).isThrownBy(() -> Result.success(1).flatMap(value -> {
+            throw new AssertionError();
+        }));
+
+        try {
+            Result<Object> interrupted = Result.of(() -> {
+                throw new InterruptedException();
+            });
+
+            assertThat(interrupted.getFailure()).isInstanceOf(InterruptedException.class);
+            assertThat(Thread.currentThread().isInterrupted()).isTrue();
+        }
+        finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    void shouldCaptureOutcomeOfIoOperation() {
+        Result<String> failure = Result.ofIo(() -> {
+            throw new FileNotFoundException("missing");
+        });
+
+        assertThat(failure.getFailure()).isInstanceOf(FileNotFoundException.class);
+
+        assertThatExceptionOfType(IllegalStateException.class)
+                .isThrownBy(failure::get)
+                .withCauseInstanceOf(IOException.class);
+
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() -> Result.ofIo(() -> {
+            throw new IllegalArgumentException();
+        }));
+    }
+
+    @Test
+    void shouldCombineResults() {
+        assertThat(Result.success("12").map(Integer::parseInt).get()).isEqualTo(12);
+        assertThat(Result.success("x").map(Integer::parseInt).getFailure()).isInstanceOf(NumberFormatException.class);
+
+        assertThat(Result.success(4).flatMap(value -> Result.failure("odd required")).getFailure())
+                .isInstanceOf(StacklessException.class)
+                .hasMessage("odd required");
+
+        Result<Integer> failure = Result.failure(new IllegalStateException());
+        assertThat(failure.map(value -> value + 1)).isSameAs(failure);
+        assertThat(failure.recover(e -> 0).get()).isZero();
+        assertThat(Result.success(1).recover(e -> 0).get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldPartitionResults() {
+        Result.Partition<Integer> partition = Stream.of("1", "x", "3", "y")
+                .map(value -> Result.of(() -> Integer.parseInt(value)))
+                .collect(Result.partitioning());
+
+        assertThat(partition.getSuccesses()).containsExactly(1, 3);
+        assertThat(partition.getFailures())
+                .hasSize(2)
+                .allSatisfy(e -> assertThat(e).isInstanceOf(NumberFormatException.class));
+    }
+
+}
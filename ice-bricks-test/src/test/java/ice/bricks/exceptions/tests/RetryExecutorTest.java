@@ -0,0 +1,207 @@
+package ice.bricks.exceptions.tests;
+
+import ice.bricks.exceptions.CircuitBreaker;
+import ice.bricks.exceptions.CircuitBreakerOpenException;
+import ice.bricks.exceptions.RetryExecutor;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class RetryExecutorTest {
+
+    @Test
+    void shouldRetryUntilSuccess() {
+        RetryExecutor retry = RetryExecutor.builder()
+                .maxAttempts(3)
+                .initialDelay(Duration.ofMillis(1))
+                .build();
+
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retry.execute(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new IOException("temporary");
+            }
+
+            return "done";
+        });
+
+        assertThat(result).isEqualTo("done");
+        assertThat(attempts.get()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldRethrowLastFailure() {
+        RetryExecutor retry = RetryExecutor.builder()
+                .maxAttempts(2)
+                .initialDelay(Duration.ofMillis(1))
+                .build();
+
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatExceptionOfType(UncheckedIOException.class)
+                .isThrownBy(() -> retry.executeIo(() -> {
+                    throw new IOException("attempt " + attempts.incrementAndGet());
+                }))
+                .withMessageContaining("attempt 2");
+
+        assertThatExceptionOfType(IllegalStateException.class)
+                .isThrownBy(() -> retry.execute(() -> {
+                    throw new Exception("checked");
+                }))
+                .withCauseInstanceOf(Exception.class);
+    }
+
+    @Test
+    void shouldRetryOnlyMatchingExceptions() {
+        RetryExecutor retry = RetryExecutor.builder()
+                .maxAttempts(5)
+                .initialDelay(Duration.ofMillis(1))
+                .retryOn(IOException.class)
+                .build();
+
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatIllegalArgumentException().isThrownBy(() -> retry.execute(() -> {
+            attempts.incrementAndGet();
+            throw new IllegalArgumentException();
+        }));
+
+        assertThat(attempts.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRetryAsynchronously() {
+        RetryExecutor retry = RetryExecutor.builder()
+                .maxAttempts(4)
+                .initialDelay(Duration.ofMillis(5))
+                .build();
+
+        AtomicInteger attempts = new AtomicInteger();
+
+        CompletableFuture<Integer> result = retry.executeAsync(() -> {
+            if (attempts.incrementAndGet() < 4) {
+                throw new IllegalStateException("temporary");
+            }
+
+            return attempts.get();
+        });
+
+        assertThat(result.join()).isEqualTo(4);
+
+        CompletableFuture<Integer> failure = retry.executeIoAsync(() -> {
+            throw new IOException("permanent");
+        });
+
+        assertThatExceptionOfType(CompletionException.class)
+                .isThrownBy(failure::join)
+                .withCauseInstanceOf(IOException.class);
+    }
+
+    @Test
+    void shouldOpenCircuitBreakerOnFailures() throws InterruptedException {
+        CircuitBreaker breaker = CircuitBreaker.builder()
+                .minimumCalls(4)
+                .failureRateThreshold(0.5)
+                .openDuration(Duration.ofMillis(50))
+                .build();
+
+        RetryExecutor retry = RetryExecutor.builder()
+                .maxAttempts(10)
+                .initialDelay(Duration.ofMillis(1))
+                .circuitBreaker(breaker)
+                .build();
+
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatExceptionOfType(CircuitBreakerOpenException.class).isThrownBy(() -> retry.execute(() -> {
+            attempts.incrementAndGet();
+            throw new IOException("unavailable");
+        }));
+
+        assertThat(attempts.get()).isEqualTo(4);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        Thread.sleep(60);
+
+        assertThat(retry.execute(() -> "recovered")).isEqualTo("recovered");
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void shouldAttachLastFailureWhenCircuitBreakerOpens() {
+        CircuitBreaker breaker = CircuitBreaker.builder()
+                .minimumCalls(2)
+                .openDuration(Duration.ofMinutes(1))
+                .build();
+
+        RetryExecutor retry = RetryExecutor.builder()
+                .maxAttempts(10)
+                .initialDelay(Duration.ofMillis(1))
+                .circuitBreaker(breaker)
+                .build();
+
+        assertThatExceptionOfType(CircuitBreakerOpenException.class)
+                .isThrownBy(() -> retry.executeIo(() -> {
+                    throw new IOException("unavailable");
+                }))
+                .withCauseInstanceOf(IOException.class);
+    }
+
+    @Test
+    void shouldPermitSingleProbeWhenHalfOpen() throws InterruptedException {
+        CircuitBreaker breaker = CircuitBreaker.builder()
+                .minimumCalls(1)
+                .openDuration(Duration.ofMillis(20))
+                .build();
+
+        breaker.tryAcquirePermission().onFailure();
+        assertThat(breaker.tryAcquirePermission()).isNull();
+
+        Thread.sleep(30);
+
+        CircuitBreaker.Permission probe = breaker.tryAcquirePermission();
+        assertThat(probe).isNotNull();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquirePermission()).isNull();
+
+        probe.onFailure();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void shouldIgnoreStaleOutcomesWhenHalfOpen() throws InterruptedException {
+        CircuitBreaker breaker = CircuitBreaker.builder()
+                .minimumCalls(1)
+                .openDuration(Duration.ofMillis(20))
+                .build();
+
+        CircuitBreaker.Permission slowCall = breaker.tryAcquirePermission();
+        breaker.tryAcquirePermission().onFailure();
+
+        Thread.sleep(30);
+        CircuitBreaker.Permission staleProbe = breaker.tryAcquirePermission();
+
+        // the probe does not report its outcome in time and is replaced
+        Thread.sleep(30);
+        CircuitBreaker.Permission probe = breaker.tryAcquirePermission();
+        assertThat(probe).isNotNull();
+
+        slowCall.onSuccess();
+        staleProbe.onSuccess();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        probe.onSuccess();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+}
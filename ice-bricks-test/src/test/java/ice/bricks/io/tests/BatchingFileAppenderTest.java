@@ -0,0 +1,187 @@
+package ice.bricks.io.tests;
+
+import ice.bricks.io.BatchingFileAppender;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class BatchingFileAppenderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldAppendRecordsFromManyThreads() throws IOException {
+        Path file = this.directory.resolve("audit.log");
+
+        try (BatchingFileAppender appender = BatchingFileAppender.builder()
+                .file(file)
+                .maxBatchSize(16)
+                .fsyncPolicy(BatchingFileAppender.FsyncPolicy.ON_FLUSH)
+                .build()) {
+
+            List<CompletableFuture<Void>> futures = IntStream.range(0, 1000).parallel()
+                    .mapToObj(i -> appender.append("record-" + i + "\n"))
+                    .collect(Collectors.toList());
+
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+            assertThat(Files.readAllLines(file))
+                    .hasSize(1000)
+                    .containsAll(IntStream.range(0, 1000).mapToObj(i -> "record-" + i).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void shouldFlushAfterInterval() throws IOException {
+        Path file = this.directory.resolve("audit.log");
+
+        try (BatchingFileAppender appender = BatchingFileAppender.builder()
+                .file(file)
+                .maxBatchSize(1000)
+                .flushInterval(Duration.ofMillis(5))
+                .build()) {
+
+            appender.append("single\n").join();
+            assertThat(Files.readAllLines(file)).containsExactly("single");
+        }
+    }
+
+    @Test
+    void shouldFlushAndSyncOnDemand() throws IOException {
+        Path file = this.directory.resolve("audit.log");
+
+        try (BatchingFileAppender appender = BatchingFileAppender.builder()
+                .file(file)
+                .maxBatchSize(1000)
+                .flushInterval(Duration.ofHours(1))
+                .build()) {
+
+            CompletableFuture<Void> first = appender.append("first\n");
+            appender.flush().join();
+            assertThat(first).isDone();
+
+            CompletableFuture<Void> second = appender.append("second\n");
+            appender.sync().join();
+            assertThat(second).isDone();
+
+            assertThat(Files.readAllLines(file)).containsExactly("first", "second");
+        }
+    }
+
+    @Test
+    void shouldWritePendingRecordsOnClose() throws IOException {
+        Path file = this.directory.resolve("audit.log");
+
+        BatchingFileAppender appender = BatchingFileAppender.builder()
+                .file(file)
+                .flushInterval(Duration.ofHours(1))
+                .build();
+
+        CompletableFuture<Void> future = appender.append("pending\n");
+        appender.close();
+
+        assertThat(future).isCompleted();
+        assertThat(Files.readAllLines(file)).containsExactly("pending");
+        assertThatIllegalStateException().isThrownBy(() -> appender.append("late\n"));
+    }
+
+    @Test
+    void shouldCompleteEveryRecordWhenClosedConcurrently() throws Exception {
+        Path file = this.directory.resolve("audit.log");
+
+        BatchingFileAppender appender = BatchingFileAppender.builder()
+                .file(file)
+                .queueCapacity(4)
+                .build();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<CompletableFuture<Void>>>> producers = IntStream.range(0, 8)
+                    .mapToObj(producer -> executor.submit(() -> appendUntilClosed(appender)))
+                    .collect(Collectors.toList());
+
+            Thread.sleep(20);
+            appender.close();
+
+            for (Future<List<CompletableFuture<Void>>> producer : producers) {
+                // records are either written or rejected, but none of them is left pending
+                for (CompletableFuture<Void> future : producer.get(10, TimeUnit.SECONDS)) {
+                    assertThat(future.exceptionally(e -> null)).succeedsWithin(Duration.ofSeconds(10));
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldFailRecordsWhenWriterStops() throws Exception {
+        Path file = this.directory.resolve("stopped.log");
+
+        try (BatchingFileAppender appender = BatchingFileAppender.builder()
+                .file(file)
+                .queueCapacity(2)
+                .build()) {
+
+            appender.append("first\n").join();
+
+            Thread writer = Thread.getAllStackTraces().keySet().stream()
+                    .filter(thread -> thread.getName().equals("batching-file-appender-stopped.log"))
+                    .findFirst()
+                    .orElseThrow();
+            writer.interrupt();
+            writer.join(10_000);
+
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                // producers must not wait forever for a queue that is no longer drained
+                Future<List<CompletableFuture<Void>>> producer = executor.submit(() -> appendUntilClosed(appender));
+
+                for (CompletableFuture<Void> future : producer.get(10, TimeUnit.SECONDS)) {
+                    assertThat(future).failsWithin(Duration.ofSeconds(10));
+                }
+            }
+            finally {
+                executor.shutdownNow();
+            }
+
+            assertThatIllegalStateException().isThrownBy(() -> appender.append("late\n"));
+        }
+
+        assertThat(Files.readAllLines(file)).containsExactly("first");
+    }
+
+    private static List<CompletableFuture<Void>> appendUntilClosed(BatchingFileAppender appender) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 100_000; i++) {
+            try {
+                futures.add(appender.append("record-" + i + "\n"));
+            }
+            catch (IllegalStateException e) {
+                break;
+            }
+        }
+
+        return futures;
+    }
+
+}
@@ -0,0 +1,79 @@
+package ice.bricks.io.tests;
+
+import ice.bricks.io.ChunkedFileUtils;
+import ice.bricks.io.FileChunk;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class ChunkedFileUtilsTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldSplitFileByLines() throws IOException {
+        Path file = this.directory.resolve("lines.txt");
+        Files.writeString(file, "aaaa\nbbbb\ncccc\ndddd");
+
+        List<FileChunk> chunks = ChunkedFileUtils.splitByLines(file, 6);
+
+        assertThat(chunks).extracting(FileChunk::getStart).containsExactly(0L, 10L);
+        assertThat(chunks).extracting(FileChunk::getEnd).containsExactly(10L, 19L);
+    }
+
+    @Test
+    void shouldReadLinesInParallel() throws IOException {
+        Path file = this.directory.resolve("lines.txt");
+        List<String> expected = IntStream.range(0, 100_000)
+                .mapToObj(i -> "line-" + i + "-äöü")
+                .collect(Collectors.toList());
+        Files.write(file, expected, StandardCharsets.UTF_8);
+
+        try (Stream<String> lines = ChunkedFileUtils.lines(file, StandardCharsets.UTF_8)) {
+            assertThat(lines.parallel().collect(Collectors.toList())).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void shouldStripCarriageReturn() throws IOException {
+        Path file = this.directory.resolve("lines.txt");
+        Files.writeString(file, "a\r\n\r\nb\r\n");
+
+        try (Stream<String> lines = ChunkedFileUtils.lines(file, StandardCharsets.UTF_8)) {
+            assertThat(lines).containsExactly("a", "", "b");
+        }
+    }
+
+    @Test
+    void shouldProcessChunks() throws IOException {
+        Path file = this.directory.resolve("numbers.txt");
+        List<String> numbers = IntStream.rangeClosed(1, 10_000)
+                .mapToObj(Integer::toString)
+                .collect(Collectors.toList());
+        Files.write(file, numbers);
+
+        long sum = ChunkedFileUtils.processChunks(file, StandardCharsets.US_ASCII, 1024,
+                lines -> lines.mapToLong(Long::parseLong).sum(), 0L, Long::sum);
+
+        assertThat(sum).isEqualTo(50_005_000L);
+    }
+
+    @Test
+    void shouldRejectUnsupportedCharset() {
+        assertThatIllegalArgumentException().isThrownBy(
+                () -> ChunkedFileUtils.lines(this.directory.resolve("lines.txt"), StandardCharsets.UTF_16));
+    }
+
+}
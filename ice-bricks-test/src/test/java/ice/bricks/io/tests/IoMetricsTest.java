@@ -0,0 +1,122 @@
+package ice.bricks.io.tests;
+
+import ice.bricks.io.IoMetrics;
+import ice.bricks.io.IoMetricsSnapshot;
+import ice.bricks.io.IoUtils;
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IoMetricsTest {
+
+    @Test
+    void shouldCountStreamIo() {
+        IoMetrics metrics = IoMetrics.forTag("streams-test");
+        metrics.reset();
+
+        IoUtils.tryAndClose(metrics.inputStream(() -> new ByteArrayInputStream(new byte[100])),
+                inputStream -> inputStream.readAllBytes());
+
+        IoUtils.tryAndClose(metrics.outputStream(ByteArrayOutputStream::new), outputStream -> {
+            outputStream.write(new byte[30]);
+            outputStream.write(1);
+        });
+
+        IoMetricsSnapshot snapshot = metrics.snapshot();
+        assertThat(snapshot.getTag()).isEqualTo("streams-test");
+        assertThat(snapshot.getBytesRead()).isEqualTo(100);
+        assertThat(snapshot.getReadOperations()).isPositive();
+        assertThat(snapshot.getBytesWritten()).isEqualTo(31);
+        assertThat(snapshot.getWriteOperations()).isEqualTo(2);
+        assertThat(IoMetrics.snapshots()).extracting(IoMetricsSnapshot::getTag).contains("streams-test");
+    }
+
+    @Test
+    void shouldCountChannelIo() throws Exception {
+        IoMetrics metrics = IoMetrics.forTag("channels-test");
+        metrics.reset();
+
+        Path file = Files.createTempFile("io-metrics", ".bin");
+        try {
+            IoUtils.tryAndClose(metrics.channel(() -> FileChannel.open(file, StandardOpenOption.WRITE)),
+                    channel -> channel.write(ByteBuffer.allocate(64)));
+
+            IoUtils.tryAndClose(metrics.channel(() -> FileChannel.open(file)), channel -> {
+                ByteBuffer buffer = ByteBuffer.allocate(128);
+                while (channel.read(buffer) >= 0) {
+                    buffer.clear();
+                }
+            });
+        }
+        finally {
+            Files.delete(file);
+        }
+
+        assertThat(metrics.getBytesWritten()).isEqualTo(64);
+        assertThat(metrics.getBytesRead()).isEqualTo(64);
+        assertThat(metrics.getReadOperations()).isEqualTo(2);
+        assertThat(metrics.getReadTimeNanos()).isPositive();
+    }
+
+    @Test
+    void shouldKeepFileChannelOperations() throws Exception {
+        IoMetrics metrics = IoMetrics.forTag("file-channels-test");
+        metrics.reset();
+
+        Path file = Files.createTempFile("io-metrics", ".bin");
+        try {
+            IoUtils.tryAndClose(metrics.fileChannel(() -> FileChannel.open(file, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)), channel -> {
+
+                channel.write(ByteBuffer.allocate(16), 0);
+                channel.force(true);
+
+                assertThat(channel.size()).isEqualTo(16);
+                assertThat(channel.read(ByteBuffer.allocate(8), 8)).isEqualTo(8);
+                assertThat(channel.map(FileChannel.MapMode.READ_ONLY, 0, 16).capacity()).isEqualTo(16);
+            });
+
+            ByteChannel channel = metrics.instrument((ByteChannel) FileChannel.open(file));
+            try (channel) {
+                assertThat(channel).isInstanceOf(FileChannel.class);
+            }
+            assertThat(channel.isOpen()).isFalse();
+        }
+        finally {
+            Files.delete(file);
+        }
+
+        assertThat(metrics.getBytesWritten()).isEqualTo(16);
+        assertThat(metrics.getBytesRead()).isEqualTo(8);
+        assertThat(metrics.getWriteOperations()).isEqualTo(1);
+        assertThat(metrics.getReadOperations()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldExposeMBean() throws Exception {
+        IoMetrics metrics = IoMetrics.forTag("jmx-test");
+        ObjectName name = metrics.registerMBean();
+
+        try {
+            Object bytesRead = ManagementFactory.getPlatformMBeanServer().getAttribute(name, "BytesRead");
+            assertThat(bytesRead).isEqualTo(0L);
+        }
+        finally {
+            metrics.unregisterMBean();
+        }
+
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(name)).isFalse();
+    }
+
+}
@@ -0,0 +1,144 @@
+package ice.bricks.io.tests;
+
+import ice.bricks.io.ParallelDirectoryWalker;
+import ice.bricks.io.PathEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class ParallelDirectoryWalkerTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void shouldWalkWholeTree() throws IOException {
+        createTree();
+
+        Set<Path> expected;
+        try (Stream<Path> paths = Files.walk(this.root)) {
+            expected = paths.collect(Collectors.toSet());
+        }
+
+        try (Stream<PathEntry> entries = ParallelDirectoryWalker.builder().build().walk(this.root)) {
+            assertThat(entries.map(PathEntry::getPath).collect(Collectors.toList()))
+                    .containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    @Test
+    void shouldRespectMaxDepth() throws IOException {
+        createTree();
+
+        ParallelDirectoryWalker walker = ParallelDirectoryWalker.builder()
+                .maxDepth(1)
+                .build();
+
+        try (Stream<PathEntry> entries = walker.walk(this.root)) {
+            assertThat(entries.map(entry -> this.root.relativize(entry.getPath()).toString()))
+                    .containsExactlyInAnyOrder("", "a", "b", "root.txt");
+        }
+    }
+
+    @Test
+    void shouldPruneFilteredDirectories() throws IOException {
+        createTree();
+
+        ParallelDirectoryWalker walker = ParallelDirectoryWalker.builder()
+                .filter(entry -> !entry.getPath().endsWith("a"))
+                .build();
+
+        try (Stream<PathEntry> entries = walker.walk(this.root)) {
+            assertThat(entries.map(entry -> this.root.relativize(entry.getPath()).toString()))
+                    .containsExactlyInAnyOrder("", "b", "root.txt", Path.of("b", "b.txt").toString());
+        }
+    }
+
+    @Test
+    void shouldStopWalkOnClose() throws IOException {
+        createWideTree();
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            ParallelDirectoryWalker walker = ParallelDirectoryWalker.builder()
+                    .bufferSize(1)
+                    .pool(pool)
+                    .build();
+
+            Stream<PathEntry> entries = walker.walk(this.root);
+            Iterator<PathEntry> iterator = entries.iterator();
+            assertThat(iterator.next().getPath()).isEqualTo(this.root);
+            entries.close();
+
+            assertThat(pool.awaitQuiescence(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(pool.getActiveThreadCount()).isZero();
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldStopAbandonedWalk() throws IOException, InterruptedException {
+        createWideTree();
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            ParallelDirectoryWalker walker = ParallelDirectoryWalker.builder()
+                    .bufferSize(1)
+                    .pool(pool)
+                    .build();
+
+            // the stream is not closed and becomes unreachable once the first entry is found
+            assertThat(walker.walk(this.root).findFirst()).isPresent();
+
+            for (int attempt = 0; attempt < 100 && !pool.isQuiescent(); attempt++) {
+                System.gc();
+                Thread.sleep(50);
+            }
+
+            assertThat(pool.awaitQuiescence(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(pool.getActiveThreadCount()).isZero();
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldWrapIoException() {
+        ParallelDirectoryWalker walker = ParallelDirectoryWalker.builder().build();
+
+        assertThatExceptionOfType(UncheckedIOException.class)
+                .isThrownBy(() -> walker.walk(this.root.resolve("missing")));
+    }
+
+    private void createWideTree() throws IOException {
+        for (int i = 0; i < 100; i++) {
+            Files.createDirectories(this.root.resolve("dir" + i).resolve("nested"));
+        }
+    }
+
+    private void createTree() throws IOException {
+        Files.createDirectories(this.root.resolve("a").resolve("nested"));
+        Files.createDirectories(this.root.resolve("b"));
+        Files.writeString(this.root.resolve("root.txt"), "root");
+        Files.writeString(this.root.resolve("a").resolve("a.txt"), "a");
+        Files.writeString(this.root.resolve("a").resolve("nested").resolve("nested.txt"), "nested");
+        Files.writeString(this.root.resolve("b").resolve("b.txt"), "b");
+    }
+
+}
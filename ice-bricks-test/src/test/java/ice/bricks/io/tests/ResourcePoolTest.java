@@ -0,0 +1,222 @@
+package ice.bricks.io.tests;
+
+import ice.bricks.io.ResourcePool;
+import ice.bricks.io.tests.fixtures.TestCloseableResource;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class ResourcePoolTest {
+
+    private final List<TestCloseableResource> created = new ArrayList<>();
+
+    @Test
+    void shouldReuseResource() {
+        ResourcePool<String, TestCloseableResource> pool = ResourcePool.<String, TestCloseableResource>builder()
+                .build();
+
+        List<TestCloseableResource> used = new ArrayList<>();
+        pool.tryAndReturn("key", this::createResource, used::add);
+        pool.tryAndReturn("key", this::createResource, used::add);
+        pool.tryAndReturn("other", this::createResource, used::add);
+
+        assertThat(this.created).hasSize(2);
+        assertThat(used).containsExactly(this.created.get(0), this.created.get(0), this.created.get(1));
+        assertThat(pool.getIdleCount()).isEqualTo(2);
+
+        pool.close();
+        assertThat(this.created).allMatch(TestCloseableResource::isClosed);
+    }
+
+    @Test
+    void shouldCloseInvalidResource() {
+        ResourcePool<String, TestCloseableResource> pool = ResourcePool.<String, TestCloseableResource>builder()
+                .validator(resource -> false)
+                .build();
+
+        pool.tryAndReturn("key", this::createResource, resource -> {});
+        pool.tryAndReturn("key", this::createResource, resource -> {});
+
+        assertThat(this.created).hasSize(2);
+        assertThat(this.created.get(0).isClosed()).isTrue();
+        assertThat(this.created.get(1).isClosed()).isFalse();
+    }
+
+    @Test
+    void shouldLimitIdleResources() {
+        ResourcePool<String, TestCloseableResource> pool = ResourcePool.<String, TestCloseableResource>builder()
+                .maxIdlePerKey(1)
+                .build();
+
+        pool.tryAndReturn("key", this::createResource,
+                outer -> pool.tryAndReturn("key", this::createResource, inner -> {}));
+
+        // inner resource is returned first, so it is the eldest one
+        assertThat(this.created).hasSize(2);
+        assertThat(this.created.get(0).isClosed()).isFalse();
+        assertThat(this.created.get(1).isClosed()).isTrue();
+        assertThat(pool.getIdleCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldEvictExpiredResources() {
+        ResourcePool<String, TestCloseableResource> pool = ResourcePool.<String, TestCloseableResource>builder()
+                .maxIdleTime(Duration.ZERO)
+                .build();
+
+        pool.tryAndReturn("key", this::createResource, resource -> {});
+
+        assertThat(pool.evictIdle()).isEqualTo(1);
+        assertThat(pool.getIdleCount()).isZero();
+        assertThat(this.created.get(0).isClosed()).isTrue();
+    }
+
+    @Test
+    void shouldEvictExpiredResourcesWhenPoolIsUsed() throws InterruptedException {
+        ResourcePool<String, TestCloseableResource> pool = ResourcePool.<String, TestCloseableResource>builder()
+                .maxIdleTime(Duration.ofMillis(20))
+                .build();
+
+        pool.tryAndReturn("key", this::createResource, resource -> {});
+
+        Thread.sleep(40);
+        pool.tryAndReturn("other", this::createResource, resource -> {});
+
+        assertThat(this.created.get(0).isClosed()).isTrue();
+        assertThat(pool.getIdleCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRejectBorrowingFromClosedPool() {
+        ResourcePool<String, TestCloseableResource> pool = ResourcePool.<String, TestCloseableResource>builder()
+                .build();
+
+        pool.close();
+
+        assertThatIllegalStateException().isThrownBy(() -> pool.tryAndReturn("key", this::createResource, r -> {}));
+        assertThat(this.created).isEmpty();
+    }
+
+    @Test
+    void shouldCloseResourceIfFailure() {
+        ResourcePool<String, TestCloseableResource> pool = ResourcePool.<String, TestCloseableResource>builder()
+                .build();
+
+        assertThatExceptionOfType(UncheckedIOException.class).isThrownBy(() ->
+                pool.tryAndReturn("key", this::createResource, resource -> {
+                    throw new IOException("test resource processing error");
+                })
+        );
+
+        assertThat(this.created.get(0).isClosed()).isTrue();
+        assertThat(pool.getIdleCount()).isZero();
+    }
+
+    @Test
+    void shouldFailIfPoolIsExhausted() {
+        ResourcePool<String, TestCloseableResource> pool = ResourcePool.<String, TestCloseableResource>builder()
+                .maxTotal(1)
+                .maxWait(Duration.ofMillis(50))
+                .build();
+
+        assertThatIllegalStateException().isThrownBy(() ->
+                pool.tryAndReturn("key", this::createResource,
+                        outer -> pool.tryAndReturn("other", this::createResource, inner -> {}))
+        );
+
+        assertThat(this.created).hasSize(1);
+        assertThat(this.created.get(0).isClosed()).isTrue();
+
+        // permit of the failed resource is released
+        pool.tryAndReturn("other", this::createResource, resource -> {});
+        assertThat(this.created).hasSize(2);
+    }
+
+    @Test
+    void shouldWaitForReturnedResource() throws Exception {
+        ResourcePool<String, TestCloseableResource> pool = ResourcePool.<String, TestCloseableResource>builder()
+                .maxTotal(1)
+                .build();
+
+        CountDownLatch borrowed = new CountDownLatch(1);
+        CountDownLatch returned = new CountDownLatch(1);
+
+        Thread holder = new Thread(() -> pool.tryAndReturn("key", this::createResource, resource -> {
+            borrowed.countDown();
+            awaitUninterruptibly(returned);
+        }));
+        holder.start();
+        borrowed.await();
+
+        CompletableFuture<TestCloseableResource> waiter = CompletableFuture.supplyAsync(() -> {
+            List<TestCloseableResource> used = new ArrayList<>();
+            pool.tryAndReturn("key", this::createResource, used::add);
+            return used.get(0);
+        });
+
+        Thread.sleep(50);
+        assertThat(waiter).isNotDone();
+
+        returned.countDown();
+        assertThat(waiter).succeedsWithin(Duration.ofSeconds(10)).isSameAs(this.created.get(0));
+        holder.join();
+    }
+
+    @Test
+    void shouldEvictIdleResourceOfAnotherKeyIfPoolIsFull() {
+        ResourcePool<String, TestCloseableResource> pool = ResourcePool.<String, TestCloseableResource>builder()
+                .maxTotal(1)
+                .maxWait(Duration.ZERO)
+                .build();
+
+        pool.tryAndReturn("key", this::createResource, resource -> {});
+        pool.tryAndReturn("other", this::createResource, resource -> {});
+
+        assertThat(this.created).hasSize(2);
+        assertThat(this.created.get(0).isClosed()).isTrue();
+        assertThat(pool.getIdleCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCloseResourceIfValidatorFails() {
+        ResourcePool<String, TestCloseableResource> pool = ResourcePool.<String, TestCloseableResource>builder()
+                .validator(resource -> {
+                    throw new IllegalStateException("test validation error");
+                })
+                .build();
+
+        pool.tryAndReturn("key", this::createResource, resource -> {});
+
+        assertThatIllegalStateException().isThrownBy(() -> pool.tryAndReturn("key", this::createResource, r -> {}));
+
+        assertThat(this.created).hasSize(1);
+        assertThat(this.created.get(0).isClosed()).isTrue();
+        assertThat(pool.getIdleCount()).isZero();
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private TestCloseableResource createResource() {
+        TestCloseableResource resource = new TestCloseableResource();
+        this.created.add(resource);
+        return resource;
+    }
+
+}
@@ -0,0 +1,133 @@
+package ice.bricks.meta.tests;
+
+import ice.bricks.meta.ClassName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class ClassNameTest {
+
+    @Test
+    void shouldParseTopLevelClass() {
+        ClassName name = ClassName.of("ice.bricks.meta.tests.ClassNameTest");
+
+        assertThat(name.getPackageName()).hasToString("ice.bricks.meta.tests");
+        assertThat(name.getSimpleName()).hasToString("ClassNameTest");
+        assertThat(name.getEnclosingClass()).isNull();
+        assertThat(name.isNested()).isFalse();
+        assertThat(name.isArray()).isFalse();
+    }
+
+    @Test
+    void shouldParseClassInDefaultPackage() {
+        ClassName name = ClassName.of("Main");
+
+        assertThat(name.getPackageName()).isEmpty();
+        assertThat(name.getSimpleName()).hasToString("Main");
+    }
+
+    @Test
+    void shouldParseNestedClasses() {
+        ClassName canonical = ClassName.of("java.util.Map.Entry");
+        ClassName binary = ClassName.of("java.util.Map$Entry");
+
+        assertThat(binary).isSameAs(ClassName.of(Map.Entry.class)).isEqualTo(canonical);
+        assertThat(canonical.getPackageName()).hasToString("java.util");
+        assertThat(canonical.getSimpleName()).hasToString("Entry");
+        assertThat(canonical.getEnclosingClass()).isSameAs(ClassName.of("java.util.Map"));
+        assertThat(canonical.getTopLevelClass()).isSameAs(ClassName.of("java.util.Map"));
+    }
+
+    @Test
+    void shouldKeepDollarSignsThatDoNotSeparateNestedClasses() {
+        ClassName proxy = ClassName.of("com.sun.proxy.$Proxy12");
+        assertThat(proxy.getCanonicalName()).isEqualTo("com.sun.proxy.$Proxy12");
+        assertThat(proxy.getPackageName()).hasToString("com.sun.proxy");
+        assertThat(proxy.getSimpleName()).hasToString("$Proxy12");
+        assertThat(proxy.isNested()).isFalse();
+
+        ClassName lambda = ClassName.of("com.example.Foo$$Lambda$14");
+        assertThat(lambda.getCanonicalName()).isEqualTo("com.example.Foo$$Lambda$14");
+        assertThat(lambda.getSimpleName()).hasToString("Foo$$Lambda$14");
+
+        ClassName anonymous = ClassName.of("com.example.Outer$Inner$1");
+        assertThat(anonymous.getCanonicalName()).isEqualTo("com.example.Outer.Inner$1");
+        assertThat(anonymous.getSimpleName()).hasToString("Inner$1");
+        assertThat(anonymous.getEnclosingClass()).isSameAs(ClassName.of("com.example.Outer"));
+    }
+
+    @Test
+    void shouldTakeNestingFromClass() {
+        Runnable lambda = () -> {};
+        Object anonymous = new Object() {};
+        Object proxy = Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Runnable.class},
+                (instance, method, arguments) -> null);
+
+        assertThat(ClassName.of(anonymous.getClass()).getSimpleName()).hasToString("ClassNameTest$1");
+        assertThat(ClassName.of(anonymous.getClass()).getPackageName()).hasToString("ice.bricks.meta.tests");
+        assertThat(ClassName.of(lambda.getClass()).getSimpleName().toString()).startsWith("ClassNameTest$$Lambda");
+        assertThat(ClassName.of(proxy.getClass()).getSimpleName().toString()).startsWith("$Proxy");
+        assertThat(ClassName.of(proxy.getClass()).getCanonicalName()).isEqualTo(proxy.getClass().getName());
+
+        ClassName member = ClassName.of(DollarSign$Nested.class);
+        assertThat(member.getSimpleName()).hasToString("DollarSign$Nested");
+        assertThat(member.getEnclosingClass()).isSameAs(ClassName.of(ClassNameTest.class));
+        assertThat(ClassName.of(DollarSign$Nested.class.getName())).isSameAs(member);
+    }
+
+    private static final class DollarSign$Nested {
+    }
+
+    @Test
+    void shouldParseArrays() {
+        ClassName name = ClassName.of("java.util.Map.Entry[][]");
+
+        assertThat(name.getArrayDimensions()).isEqualTo(2);
+        assertThat(name.getSimpleName()).hasToString("Entry");
+        assertThat(name.getPackageName()).hasToString("java.util");
+        assertThat(name.getComponentClass()).isSameAs(ClassName.of("java.util.Map.Entry"));
+        assertThat(name.getTopLevelClass()).isSameAs(ClassName.of("java.util.Map"));
+
+        assertThat(ClassName.of(Map.Entry[][].class)).isEqualTo(name);
+        assertThat(ClassName.of(int[].class).getCanonicalName()).isEqualTo("int[]");
+        assertThat(ClassName.of(int[].class).getSimpleName()).hasToString("int");
+    }
+
+    @Test
+    void shouldTreatLastSegmentAsClassIfNoneLooksLikeOne() {
+        ClassName name = ClassName.of("com.example.handler");
+
+        assertThat(name.getPackageName()).hasToString("com.example");
+        assertThat(name.getSimpleName()).hasToString("handler");
+    }
+
+    @Test
+    void shouldInternNames() {
+        String name = String.join(".", "java", "lang", "String");
+
+        assertThat(ClassName.of(name))
+                .isSameAs(ClassName.of("java.lang.String"))
+                .isSameAs(ClassName.of(String.class));
+    }
+
+    @Test
+    void shouldReturnViewsOfNameParts() {
+        CharSequence simpleName = ClassName.of("java.util.concurrent.ConcurrentHashMap").getSimpleName();
+
+        assertThat(simpleName.length()).isEqualTo(17);
+        assertThat(simpleName.charAt(0)).isEqualTo('C');
+        assertThat(simpleName.subSequence(10, 17)).hasToString("HashMap");
+        assertThat(simpleName.toString()).isSameAs(simpleName.toString());
+    }
+
+    @Test
+    void shouldRejectInvalidNames() {
+        assertThatIllegalArgumentException().isThrownBy(() -> ClassName.of(""));
+        assertThatIllegalArgumentException().isThrownBy(() -> ClassName.of("[X"));
+    }
+
+}
@@ -0,0 +1,212 @@
+package ice.bricks.meta.tests;
+
+import ice.bricks.meta.ClassIndex;
+import ice.bricks.meta.ClassInfo;
+import ice.bricks.meta.ClassScanner;
+import ice.bricks.meta.tests.fixtures.TestAnnotatedService;
+import ice.bricks.meta.tests.fixtures.TestBaseService;
+import ice.bricks.meta.tests.fixtures.TestMarker;
+import ice.bricks.meta.tests.fixtures.TestService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClassScannerTest {
+
+    private static final String FIXTURES_PACKAGE = "ice.bricks.meta.tests.fixtures";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldReadClassFilesOfDirectory() throws URISyntaxException {
+        ClassIndex index = fixturesScanner().build().scan(List.of(testClasses()));
+
+        assertThat(index.getClasses()).extracting(ClassInfo::getName).containsExactlyInAnyOrder(
+                TestMarker.class.getName(),
+                TestService.class.getName(),
+                TestBaseService.class.getName(),
+                TestAnnotatedService.class.getName(),
+                TestAnnotatedService.Mode.class.getName());
+
+        ClassInfo service = index.findClass(TestAnnotatedService.class.getName());
+        assertThat(service).isNotNull();
+        assertThat(service.getSuperClassName()).isEqualTo(TestBaseService.class.getName());
+        assertThat(service.getAnnotationNames()).containsExactly(
+                Deprecated.class.getName(), TestMarker.class.getName());
+        assertThat(service.isPublic()).isTrue();
+        assertThat(service.isAbstract()).isFalse();
+
+        ClassInfo base = index.findClass(TestBaseService.class.getName());
+        assertThat(base).isNotNull();
+        assertThat(base.getInterfaceNames()).containsExactly(TestService.class.getName(), Comparable.class.getName());
+        assertThat(base.isAbstract()).isTrue();
+
+        assertThat(index.findClass(TestMarker.class.getName()).isAnnotation()).isTrue();
+        assertThat(index.findClass(TestService.class.getName()).isInterface()).isTrue();
+        assertThat(index.findClass(TestAnnotatedService.Mode.class.getName()).isEnum()).isTrue();
+        assertThat(index.findClass(TestAnnotatedService.Mode.class.getName()).getClassName().getEnclosingClass())
+                .hasToString(TestAnnotatedService.class.getCanonicalName());
+    }
+
+    @Test
+    void shouldFindClassesByAnnotationAndSupertype() throws URISyntaxException {
+        ClassIndex index = fixturesScanner().build().scan(List.of(testClasses()));
+
+        assertThat(index.findAnnotatedWith(TestMarker.class))
+                .extracting(ClassInfo::getName)
+                .containsExactly(TestAnnotatedService.class.getName());
+
+        assertThat(index.findSubtypes(TestService.class))
+                .extracting(ClassInfo::getName)
+                .containsExactlyInAnyOrder(TestBaseService.class.getName(), TestAnnotatedService.class.getName());
+    }
+
+    @Test
+    void shouldReadClassFilesOfJar() throws Exception {
+        Path jar = createFixturesJar();
+
+        ClassIndex index = fixturesScanner().build().scan(List.of(jar));
+
+        assertThat(index.size()).isEqualTo(5);
+        assertThat(index.findClass(TestAnnotatedService.class.getName())).isNotNull();
+        assertThat(index.getMalformedClassFiles()).isEmpty();
+    }
+
+    @Test
+    void shouldSkipMalformedClassFiles() throws Exception {
+        Path jar = this.tempDir.resolve("corrupt.jar");
+        String corruptEntry = FIXTURES_PACKAGE.replace('.', '/') + "/Corrupt.class";
+
+        try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(jar))) {
+            addClass(output, TestService.class);
+
+            output.putNextEntry(new JarEntry(corruptEntry));
+            output.write(new byte[] {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0});
+            output.closeEntry();
+        }
+
+        ClassIndex index = fixturesScanner().build().scan(List.of(jar));
+
+        assertThat(index.getClasses()).extracting(ClassInfo::getName).containsExactly(TestService.class.getName());
+        assertThat(index.getMalformedClassFiles()).containsExactly(jar + "!/" + corruptEntry);
+    }
+
+    @Test
+    void shouldReuseIndexOfUnchangedJar() throws Exception {
+        Path jar = createFixturesJar();
+        Path indexFile = this.tempDir.resolve("index/classes.idx");
+
+        ClassIndex scanned = fixturesScanner().indexFile(indexFile).build().scan(List.of(jar));
+        assertThat(indexFile).exists();
+
+        // content that cannot be read as a jar, with the same size and modification time
+        FileTime modified = Files.getLastModifiedTime(jar);
+        Files.write(jar, new byte[(int) Files.size(jar)]);
+        Files.setLastModifiedTime(jar, modified);
+
+        ClassIndex indexed = fixturesScanner().indexFile(indexFile).build().scan(List.of(jar));
+
+        assertThat(indexed.getClasses())
+                .usingElementComparatorOnFields("name", "superClassName", "interfaceNames", "annotationNames")
+                .containsExactlyElementsOf(scanned.getClasses());
+    }
+
+    @Test
+    void shouldRescanChangedJar() throws Exception {
+        Path jar = createFixturesJar();
+        Path indexFile = this.tempDir.resolve("classes.idx");
+
+        fixturesScanner().indexFile(indexFile).build().scan(List.of(jar));
+
+        Files.delete(jar);
+        try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(jar))) {
+            addClass(output, TestService.class);
+        }
+
+        ClassIndex index = fixturesScanner().indexFile(indexFile).build().scan(List.of(jar));
+
+        assertThat(index.getClasses()).extracting(ClassInfo::getName).containsExactly(TestService.class.getName());
+    }
+
+    @Test
+    void shouldIgnoreIndexOfOtherPackages() throws Exception {
+        Path jar = createFixturesJar();
+        Path indexFile = this.tempDir.resolve("classes.idx");
+
+        fixturesScanner().indexFile(indexFile).build().scan(List.of(jar));
+
+        ClassIndex index = ClassScanner.builder()
+                .includePackage("ice.bricks.other")
+                .indexFile(indexFile)
+                .build()
+                .scan(List.of(jar));
+
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void shouldScanRuntimeImage() {
+        ClassIndex index = ClassScanner.builder()
+                .includePackage("java.util.concurrent.atomic")
+                .build()
+                .scan(List.of(ClassScanner.runtimeImage()));
+
+        ClassInfo atomicInteger = index.findClass("java.util.concurrent.atomic.AtomicInteger");
+        assertThat(atomicInteger).isNotNull();
+        assertThat(atomicInteger.getSuperClassName()).isEqualTo(Number.class.getName());
+        assertThat(index.findClass("java.util.concurrent.ConcurrentHashMap")).isNull();
+    }
+
+    @Test
+    void shouldSkipMissingRoots() {
+        ClassIndex index = ClassScanner.builder().build().scan(List.of(this.tempDir.resolve("missing.jar")));
+        assertThat(index.size()).isZero();
+    }
+
+    private static ClassScanner.ClassScannerBuilder fixturesScanner() {
+        return ClassScanner.builder().includePackage(FIXTURES_PACKAGE);
+    }
+
+    private static Path testClasses() throws URISyntaxException {
+        return Paths.get(ClassScannerTest.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    }
+
+    private Path createFixturesJar() throws Exception {
+        Path jar = this.tempDir.resolve("fixtures.jar");
+        Path fixtures = testClasses().resolve(FIXTURES_PACKAGE.replace('.', '/'));
+
+        try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(jar));
+             Stream<Path> classFiles = Files.list(fixtures)) {
+
+            for (Path classFile : classFiles.sorted().collect(Collectors.toList())) {
+                output.putNextEntry(new JarEntry(FIXTURES_PACKAGE.replace('.', '/') + '/' + classFile.getFileName()));
+                output.write(Files.readAllBytes(classFile));
+                output.closeEntry();
+            }
+        }
+
+        return jar;
+    }
+
+    private static void addClass(JarOutputStream output, Class<?> type) throws IOException, URISyntaxException {
+        String resource = type.getName().replace('.', '/') + ".class";
+        output.putNextEntry(new JarEntry(resource));
+        output.write(Files.readAllBytes(testClasses().resolve(resource)));
+        output.closeEntry();
+    }
+
+}
@@ -29,6 +29,17 @@ class ClassUtilsTest {
 
         clazz = ClassUtils.getClassByName("java.lang.NonExistingClass");
         assertThat(clazz).isNull();
+
+        clazz = ClassUtils.getClassByName(null);
+        assertThat(clazz).isNull();
+    }
+
+    @Test
+    void shouldLoadClassByNameRepeatedly() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(ClassUtils.getClassByName("java.lang.Exception")).isEqualTo(java.lang.Exception.class);
+            assertThat(ClassUtils.getClassByName("java.lang.NonExistingClass")).isNull();
+        }
     }
 
 }
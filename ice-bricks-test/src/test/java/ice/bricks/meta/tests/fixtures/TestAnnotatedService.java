@@ -0,0 +1,28 @@
+package ice.bricks.meta.tests.fixtures;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.function.Supplier;
+
+@Deprecated
+@TestMarker(
+        value = "service",
+        order = {1, 2},
+        target = ElementType.FIELD,
+        retention = @Retention(RetentionPolicy.SOURCE))
+public class TestAnnotatedService extends TestBaseService {
+
+    private final String name = "annotated";
+
+    @Override
+    public void serve() {
+        Supplier<Integer> length = this.name::length;
+        length.get();
+    }
+
+    public enum Mode {
+        FAST, SLOW
+    }
+
+}
@@ -0,0 +1,13 @@
+package ice.bricks.meta.tests.fixtures;
+
+public abstract class TestBaseService implements TestService, Comparable<TestBaseService> {
+
+    public static final long ID = 42L;
+    public static final double RATIO = 0.5;
+
+    @Override
+    public int compareTo(TestBaseService other) {
+        return 0;
+    }
+
+}
@@ -0,0 +1,20 @@
+package ice.bricks.meta.tests.fixtures;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface TestMarker {
+
+    String value() default "";
+
+    int[] order() default {};
+
+    ElementType target() default ElementType.TYPE;
+
+    Retention retention() default @Retention(RetentionPolicy.CLASS);
+
+}
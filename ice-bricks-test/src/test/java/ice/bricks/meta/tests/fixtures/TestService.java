@@ -0,0 +1,7 @@
+package ice.bricks.meta.tests.fixtures;
+
+public interface TestService {
+
+    void serve();
+
+}
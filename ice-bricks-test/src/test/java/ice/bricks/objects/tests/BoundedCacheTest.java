@@ -0,0 +1,200 @@
+package ice.bricks.objects.tests;
+
+import ice.bricks.objects.BoundedCache;
+import ice.bricks.objects.CacheStats;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedCacheTest {
+
+    @Test
+    void shouldCacheValues() {
+        BoundedCache<String, Integer> cache = BoundedCache.<String, Integer>builder().maximumSize(10).build();
+        AtomicInteger computations = new AtomicInteger();
+
+        assertThat(cache.getIfPresent("a")).isNull();
+        assertThat(cache.get("a", key -> computations.incrementAndGet())).isEqualTo(1);
+        assertThat(cache.get("a", key -> computations.incrementAndGet())).isEqualTo(1);
+
+        cache.put("a", 5);
+        assertThat(cache.getIfPresent("a")).isEqualTo(5);
+
+        cache.invalidate("a");
+        assertThat(cache.getIfPresent("a")).isNull();
+        assertThat(cache.get("b", key -> null)).isNull();
+        assertThat(cache.estimatedSize()).isZero();
+    }
+
+    @Test
+    void shouldNotExceedMaximumSize() {
+        BoundedCache<Integer, Integer> cache = BoundedCache.<Integer, Integer>builder().maximumSize(100).build();
+
+        for (int i = 0; i < 10_000; i++) {
+            cache.put(i, i);
+        }
+
+        cache.cleanUp();
+
+        assertThat(cache.estimatedSize()).isEqualTo(100);
+        assertThat(cache.stats().getEvictionCount()).isEqualTo(9_900);
+    }
+
+    @Test
+    void shouldKeepFrequentlyUsedEntriesWhenSweptByOneOffKeys() {
+        BoundedCache<Integer, Integer> cache = BoundedCache.<Integer, Integer>builder().maximumSize(100).build();
+
+        // a hot key is reused after 200 other keys, so a plain LRU cache of 100 entries would never hit
+        int cold = 1_000;
+        for (int i = 0; i < 30_000; i++) {
+            for (int j = 0; j < 3; j++) {
+                cache.put(cold, cold);
+                cold++;
+            }
+
+            cache.get(i % 50, key -> key);
+        }
+
+        cache.cleanUp();
+
+        int retained = 0;
+        for (int hot = 0; hot < 50; hot++) {
+            if (cache.getIfPresent(hot) != null) {
+                retained++;
+            }
+        }
+
+        assertThat(retained).isGreaterThanOrEqualTo(45);
+    }
+
+    @Test
+    void shouldExpireEntriesAfterWrite() throws InterruptedException {
+        BoundedCache<String, String> cache = BoundedCache.<String, String>builder()
+                .maximumSize(10)
+                .expireAfterWrite(Duration.ofMillis(50))
+                .build();
+
+        cache.put("key", "value");
+        assertThat(cache.getIfPresent("key")).isEqualTo("value");
+
+        Thread.sleep(100);
+
+        assertThat(cache.getIfPresent("key")).isNull();
+        assertThat(cache.estimatedSize()).isZero();
+        assertThat(cache.get("key", key -> "refreshed")).isEqualTo("refreshed");
+    }
+
+    @Test
+    void shouldRemoveExpiredEntriesWithoutLookingThemUp() throws InterruptedException {
+        BoundedCache<String, String> cache = BoundedCache.<String, String>builder()
+                .maximumSize(100)
+                .expireAfterWrite(Duration.ofMillis(50))
+                .build();
+
+        for (int i = 0; i < 50; i++) {
+            cache.put("key" + i, "value");
+        }
+
+        Thread.sleep(100);
+
+        cache.put("fresh", "value");
+
+        assertThat(cache.estimatedSize()).isEqualTo(1);
+        assertThat(cache.getIfPresent("fresh")).isEqualTo("value");
+        assertThat(cache.stats().getEvictionCount()).isZero();
+    }
+
+    @Test
+    void shouldCompareWeakKeysByIdentity() {
+        BoundedCache<String, String> cache = BoundedCache.<String, String>builder()
+                .maximumSize(10)
+                .weakKeys(true)
+                .build();
+
+        String key = new String("key");
+        cache.put(key, "value");
+
+        assertThat(cache.getIfPresent(key)).isEqualTo("value");
+        assertThat(cache.getIfPresent(new String("key"))).isNull();
+    }
+
+    @Test
+    void shouldRemoveEntriesOfCollectedWeakKeys() throws InterruptedException {
+        BoundedCache<Object, String> cache = BoundedCache.<Object, String>builder()
+                .maximumSize(10)
+                .weakKeys(true)
+                .build();
+
+        cache.put(new Object(), "value");
+
+        for (int attempt = 0; attempt < 50 && cache.estimatedSize() > 0; attempt++) {
+            System.gc();
+            Thread.sleep(20);
+            cache.cleanUp();
+        }
+
+        assertThat(cache.estimatedSize()).isZero();
+    }
+
+    @Test
+    void shouldRecordHitRate() {
+        BoundedCache<String, String> cache = BoundedCache.<String, String>builder().maximumSize(10).build();
+
+        cache.getIfPresent("key");
+        cache.put("key", "value");
+        cache.getIfPresent("key");
+        cache.getIfPresent("key");
+        cache.getIfPresent("key");
+
+        CacheStats stats = cache.stats();
+        assertThat(stats.getHitCount()).isEqualTo(3);
+        assertThat(stats.getMissCount()).isEqualTo(1);
+        assertThat(stats.getHitRate()).isEqualTo(0.75);
+    }
+
+    @Test
+    void shouldStayBoundedUnderConcurrentAccess() throws Exception {
+        BoundedCache<Integer, Integer> cache = BoundedCache.<Integer, Integer>builder().maximumSize(256).build();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<?>[] futures = new Future<?>[8];
+            for (int thread = 0; thread < futures.length; thread++) {
+                int seed = thread;
+                futures[thread] = executor.submit(() -> {
+                    for (int i = 0; i < 50_000; i++) {
+                        int key = (i * 31 + seed) % 1_000;
+                        Integer value = cache.get(key, k -> k * 2);
+                        assertThat(value).isEqualTo(key * 2);
+                    }
+                });
+            }
+
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        cache.cleanUp();
+
+        assertThat(cache.estimatedSize()).isLessThanOrEqualTo(256);
+        assertThat(cache.stats().getHitCount()).isPositive();
+    }
+
+    @Test
+    void shouldRejectNonPositiveMaximumSize() {
+        assertThatThrownBy(() -> BoundedCache.builder().build()).isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,182 @@
+package ice.bricks.objects.tests;
+
+import ice.bricks.objects.Lazy;
+import ice.bricks.objects.ObjectUtils;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemoizationTest {
+
+    @Test
+    void shouldComputeLazyValueOnce() throws Exception {
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        Lazy<String> lazy = ObjectUtils.lazy(() -> {
+            computations.incrementAndGet();
+            return "value";
+        });
+
+        assertThat(lazy.isInitialized()).isFalse();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] futures = new Future<?>[8];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(() -> {
+                    start.await();
+                    return lazy.get();
+                });
+            }
+
+            start.countDown();
+
+            for (Future<?> future : futures) {
+                assertThat(future.get(10, TimeUnit.SECONDS)).isEqualTo("value");
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(lazy.isInitialized()).isTrue();
+        assertThat(computations).hasValue(1);
+    }
+
+    @Test
+    void shouldRetryLazyValueAfterFailure() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        Lazy<String> lazy = Lazy.of(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("first attempt");
+            }
+            return null;
+        });
+
+        assertThatThrownBy(lazy::get).hasMessage("first attempt");
+        assertThat(lazy.isInitialized()).isFalse();
+
+        assertThat(lazy.get()).isNull();
+        assertThat(lazy.get()).isNull();
+        assertThat(attempts).hasValue(2);
+    }
+
+    @Test
+    void shouldDetectRecursiveLazyInitialization() {
+        AtomicReference<Lazy<String>> self = new AtomicReference<>();
+        self.set(Lazy.of(() -> self.get().get()));
+
+        assertThatThrownBy(() -> self.get().get())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Recursive");
+    }
+
+    @Test
+    void shouldMemoizeFunction() {
+        AtomicInteger computations = new AtomicInteger();
+        Function<String, Integer> length = ObjectUtils.memoize(value -> {
+            computations.incrementAndGet();
+            return value.length();
+        });
+
+        assertThat(length.apply("abc")).isEqualTo(3);
+        assertThat(length.apply("abc")).isEqualTo(3);
+        assertThat(length.apply("abcd")).isEqualTo(4);
+        assertThat(computations).hasValue(2);
+    }
+
+    @Test
+    void shouldAllowRecursiveCallsForOtherArguments() {
+        AtomicReference<Function<Integer, Long>> fibonacci = new AtomicReference<>();
+        fibonacci.set(ObjectUtils.memoize(n -> n < 2
+                ? n
+                : fibonacci.get().apply(n - 1) + fibonacci.get().apply(n - 2)));
+
+        assertThat(fibonacci.get().apply(90)).isEqualTo(2880067194370816120L);
+    }
+
+    @Test
+    void shouldDetectRecursiveCallForSameArgument() {
+        AtomicReference<Function<Integer, Integer>> function = new AtomicReference<>();
+        function.set(ObjectUtils.memoize(n -> function.get().apply(n)));
+
+        assertThatThrownBy(() -> function.get().apply(1)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldRefreshMemoizedResultAfterTimeToLive() throws InterruptedException {
+        AtomicInteger computations = new AtomicInteger();
+        Function<String, Integer> function = ObjectUtils.memoize(
+                value -> computations.incrementAndGet(), Duration.ofMillis(50));
+
+        assertThat(function.apply("key")).isEqualTo(1);
+        assertThat(function.apply("key")).isEqualTo(1);
+
+        Thread.sleep(100);
+
+        assertThat(function.apply("key")).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRefreshMemoizedSupplierAfterTimeToLive() throws InterruptedException {
+        AtomicInteger computations = new AtomicInteger();
+        Supplier<Integer> supplier = ObjectUtils.memoize(computations::incrementAndGet, Duration.ofMillis(50));
+
+        assertThat(supplier.get()).isEqualTo(1);
+        assertThat(supplier.get()).isEqualTo(1);
+
+        Thread.sleep(100);
+
+        assertThat(supplier.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldPurgeExpiredResultsOfOtherArguments() throws InterruptedException {
+        Function<Integer, Object> function = ObjectUtils.memoize(value -> new byte[1024], Duration.ofMillis(50));
+        WeakReference<Object> expired = new WeakReference<>(function.apply(-1));
+
+        Thread.sleep(100);
+
+        for (int i = 0; i < 100; i++) {
+            function.apply(i);
+        }
+
+        for (int attempt = 0; attempt < 50 && expired.get() != null; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertThat(expired.get()).isNull();
+    }
+
+    @Test
+    void shouldRejectNullArgument() {
+        Function<String, Integer> function = ObjectUtils.memoize(String::length);
+
+        assertThatThrownBy(() -> function.apply(null))
+                .isInstanceOf(NullPointerException.class)
+                .hasMessageContaining("null arguments");
+    }
+
+    @Test
+    void shouldRejectNonPositiveTimeToLive() {
+        assertThatThrownBy(() -> ObjectUtils.memoize(Function.identity(), Duration.ZERO))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,157 @@
+package ice.bricks.objects.tests;
+
+import ice.bricks.objects.ObjectPool;
+import ice.bricks.objects.ObjectPoolStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ObjectPoolTest {
+
+    @Test
+    void shouldReuseReturnedObjects() {
+        AtomicInteger created = new AtomicInteger();
+        ObjectPool<StringBuilder> pool = ObjectPool.<StringBuilder>builder()
+                .factory(() -> {
+                    created.incrementAndGet();
+                    return new StringBuilder();
+                })
+                .reset(builder -> builder.setLength(0))
+                .build();
+
+        for (int i = 0; i < 100; i++) {
+            String result = pool.tryAndReturn(builder -> builder.append("value").toString());
+            assertThat(result).isEqualTo("value");
+        }
+
+        assertThat(created).hasValue(1);
+
+        ObjectPoolStats stats = pool.stats();
+        assertThat(stats.getHitCount()).isEqualTo(99);
+        assertThat(stats.getMissCount()).isEqualTo(1);
+        assertThat(stats.getHitRate()).isEqualTo(0.99);
+    }
+
+    @Test
+    void shouldReturnObjectWhenFunctionFails() {
+        ObjectPool<StringBuilder> pool = ObjectPool.<StringBuilder>builder()
+                .factory(StringBuilder::new)
+                .reset(builder -> builder.setLength(0))
+                .build();
+
+        StringBuilder[] used = new StringBuilder[1];
+        assertThatThrownBy(() -> pool.tryAndReturn(builder -> {
+            used[0] = builder.append("partial");
+            throw new IllegalStateException("failure");
+        })).hasMessage("failure");
+
+        StringBuilder reused = pool.borrow();
+        assertThat(reused).isSameAs(used[0]);
+        assertThat(reused).isEmpty();
+    }
+
+    @Test
+    void shouldReturnObjectWhenLeaseIsClosed() {
+        ObjectPool<int[]> pool = ObjectPool.<int[]>builder()
+                .factory(() -> new int[16])
+                .build();
+
+        int[] leased;
+        try (ObjectPool.Lease<int[]> lease = pool.lease()) {
+            leased = lease.get();
+        }
+
+        assertThat(pool.borrow()).isSameAs(leased);
+    }
+
+    @Test
+    void shouldDiscardInvalidObjects() {
+        ObjectPool<StringBuilder> pool = ObjectPool.<StringBuilder>builder()
+                .factory(StringBuilder::new)
+                .validator(builder -> builder.capacity() <= 1024)
+                .build();
+
+        StringBuilder grown = pool.borrow();
+        grown.ensureCapacity(4096);
+        pool.release(grown);
+
+        assertThat(pool.borrow()).isNotSameAs(grown);
+        assertThat(pool.stats().getDiscardedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldLimitRetainedObjects() {
+        ObjectPool<Object> pool = ObjectPool.builder()
+                .factory(Object::new)
+                .maxRetained(2)
+                .threadLocalCapacity(1)
+                .build();
+
+        Object[] objects = new Object[5];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = pool.borrow();
+        }
+
+        for (Object object : objects) {
+            pool.release(object);
+        }
+
+        assertThat(pool.stats().getDiscardedCount()).isEqualTo(2);
+
+        Set<Object> reused = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < 5; i++) {
+            reused.add(pool.borrow());
+        }
+
+        assertThat(reused).hasSize(5);
+        assertThat(pool.stats().getMissCount()).isEqualTo(7);
+    }
+
+    @Test
+    void shouldShareObjectsBetweenThreads() throws Exception {
+        ObjectPool<StringBuilder> pool = ObjectPool.<StringBuilder>builder()
+                .factory(StringBuilder::new)
+                .reset(builder -> builder.setLength(0))
+                .build();
+
+        Set<StringBuilder> inUse = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<?>[] futures = new Future<?>[8];
+            for (int thread = 0; thread < futures.length; thread++) {
+                futures[thread] = executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        pool.tryAndReturn(builder -> {
+                            assertThat(inUse.add(builder)).isTrue();
+                            assertThat(builder).isEmpty();
+                            builder.append("value");
+                            inUse.remove(builder);
+                            return null;
+                        });
+                    }
+                });
+            }
+
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(pool.stats().getHitRate()).isGreaterThan(0.99);
+    }
+
+}
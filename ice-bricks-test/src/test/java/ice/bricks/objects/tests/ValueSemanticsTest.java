@@ -0,0 +1,74 @@
+package ice.bricks.objects.tests;
+
+import ice.bricks.objects.ObjectUtils;
+import ice.bricks.objects.ValueSemantics;
+import ice.bricks.objects.tests.fixtures.TestBaseValue;
+import ice.bricks.objects.tests.fixtures.TestValue;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ValueSemanticsTest {
+
+    @Test
+    void shouldCompareObjectsByFields() {
+        TestValue value = new TestValue(1, 2, 3.5, "text", new int[] {1, 2});
+        TestValue equal = new TestValue(1, 2, 3.5, "text", new int[] {1, 2});
+
+        assertThat(ObjectUtils.reflectionEquals(value, equal)).isTrue();
+        assertThat(ObjectUtils.reflectionHashCode(value)).isEqualTo(ObjectUtils.reflectionHashCode(equal));
+
+        assertThat(ObjectUtils.reflectionEquals(value, new TestValue(2, 2, 3.5, "text", new int[] {1, 2}))).isFalse();
+        assertThat(ObjectUtils.reflectionEquals(value, new TestValue(1, 3, 3.5, "text", new int[] {1, 2}))).isFalse();
+        assertThat(ObjectUtils.reflectionEquals(value, new TestValue(1, 2, 3.6, "text", new int[] {1, 2}))).isFalse();
+        assertThat(ObjectUtils.reflectionEquals(value, new TestValue(1, 2, 3.5, "other", new int[] {1, 2}))).isFalse();
+        assertThat(ObjectUtils.reflectionEquals(value, new TestValue(1, 2, 3.5, "text", new int[] {1}))).isFalse();
+    }
+
+    @Test
+    void shouldNotCompareObjectsOfDifferentClasses() {
+        TestBaseValue base = new TestBaseValue(1);
+
+        assertThat(ObjectUtils.reflectionEquals(base, new TestValue(1, 2, 3.5, "text", null))).isFalse();
+        assertThat(ObjectUtils.reflectionEquals(base, null)).isFalse();
+        assertThat(ObjectUtils.reflectionEquals(null, null)).isTrue();
+    }
+
+    @Test
+    void shouldCompareDoublesLikeBoxedValues() {
+        TestValue nan = new TestValue(1, 2, Double.NaN, null, null);
+        assertThat(ObjectUtils.reflectionEquals(nan, new TestValue(1, 2, Double.NaN, null, null))).isTrue();
+        assertThat(ObjectUtils.reflectionEquals(
+                new TestValue(1, 2, 0.0, null, null), new TestValue(1, 2, -0.0, null, null))).isFalse();
+    }
+
+    @Test
+    void shouldPrintObjectWithFields() {
+        TestValue value = new TestValue(1, 2, 3.5, "text", new int[] {1, 2});
+
+        assertThat(ObjectUtils.reflectionToString(value)).isEqualTo(
+                "TestValue(intValue=2, doubleValue=3.5, booleanValue=true, charValue=c, "
+                        + "stringValue=text, arrayValue=[1, 2], id=1)");
+    }
+
+    @Test
+    void shouldUseFieldFilter() {
+        ValueSemantics<TestValue> semantics = ValueSemantics.of(
+                TestValue.class, field -> !field.getName().equals("id") && !field.getName().equals("cachedValue"));
+
+        TestValue value = new TestValue(1, 2, 3.5, "text", null);
+        TestValue otherId = new TestValue(2, 2, 3.5, "text", null);
+
+        assertThat(semantics.equals(value, otherId)).isTrue();
+        assertThat(semantics.hashCode(value)).isEqualTo(semantics.hashCode(otherId));
+        assertThat(semantics.toString(value)).isEqualTo(
+                "TestValue(intValue=2, doubleValue=3.5, booleanValue=true, charValue=c, "
+                        + "stringValue=text, arrayValue=null)");
+    }
+
+    @Test
+    void shouldCacheSemanticsPerClass() {
+        assertThat(ValueSemantics.of(TestValue.class)).isSameAs(ValueSemantics.of(TestValue.class));
+    }
+
+}
@@ -0,0 +1,10 @@
+package ice.bricks.objects.tests.fixtures;
+
+import lombok.AllArgsConstructor;
+
+@AllArgsConstructor
+public class TestBaseValue {
+
+    private final long id;
+
+}
@@ -0,0 +1,27 @@
+package ice.bricks.objects.tests.fixtures;
+
+public class TestValue extends TestBaseValue {
+
+    private static int instances = 0;
+
+    private final int intValue;
+    private final double doubleValue;
+    private final boolean booleanValue;
+    private final char charValue;
+    private final String stringValue;
+    private final int[] arrayValue;
+    private final transient Object cachedValue;
+
+    public TestValue(long id, int intValue, double doubleValue, String stringValue, int[] arrayValue) {
+        super(id);
+        this.intValue = intValue;
+        this.doubleValue = doubleValue;
+        this.booleanValue = true;
+        this.charValue = 'c';
+        this.stringValue = stringValue;
+        this.arrayValue = arrayValue;
+        this.cachedValue = new Object();
+        instances++;
+    }
+
+}
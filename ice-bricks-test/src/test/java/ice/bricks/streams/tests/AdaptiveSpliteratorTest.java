@@ -0,0 +1,86 @@
+package ice.bricks.streams.tests;
+
+import ice.bricks.streams.AdaptiveSpliterator;
+import ice.bricks.streams.BatchSizePolicy;
+import ice.bricks.streams.StreamUtils;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class AdaptiveSpliteratorTest {
+
+    @Test
+    void shouldSizeBatchesByPolicy() {
+        assertThat(BatchSizePolicy.fixed(3).nextBatchSize(0, BatchSizePolicy.UNKNOWN_COST)).isEqualTo(3);
+
+        BatchSizePolicy arithmetic = BatchSizePolicy.arithmetic(2, 3, 6);
+        assertThat(arithmetic.nextBatchSize(0, BatchSizePolicy.UNKNOWN_COST)).isEqualTo(2);
+        assertThat(arithmetic.nextBatchSize(2, BatchSizePolicy.UNKNOWN_COST)).isEqualTo(5);
+        assertThat(arithmetic.nextBatchSize(5, BatchSizePolicy.UNKNOWN_COST)).isEqualTo(6);
+
+        BatchSizePolicy adaptive = BatchSizePolicy.adaptive(Duration.ofMillis(1), 100);
+        assertThat(adaptive.nextBatchSize(0, BatchSizePolicy.UNKNOWN_COST)).isEqualTo(1);
+        assertThat(adaptive.nextBatchSize(1, BatchSizePolicy.UNKNOWN_COST)).isEqualTo(2);
+        assertThat(adaptive.nextBatchSize(2, 100_000)).isEqualTo(10);
+        assertThat(adaptive.nextBatchSize(10, 10_000_000)).isEqualTo(1);
+        assertThat(adaptive.nextBatchSize(1, 0)).isEqualTo(100);
+
+        assertThatIllegalArgumentException().isThrownBy(() -> BatchSizePolicy.fixed(0));
+        assertThatIllegalArgumentException().isThrownBy(() -> BatchSizePolicy.adaptive(Duration.ZERO, 1));
+    }
+
+    @Test
+    void shouldSplitIteratorInBatches() {
+        Iterator<Integer> iterator = IntStream.range(0, 10).iterator();
+        Spliterator<Integer> spliterator = AdaptiveSpliterator.of(iterator, 10, BatchSizePolicy.arithmetic(1, 2, 4));
+
+        assertThat(spliterator.estimateSize()).isEqualTo(10);
+        assertThat(spliterator.hasCharacteristics(Spliterator.SIZED)).isFalse();
+
+        assertThat(spliterator.trySplit().estimateSize()).isEqualTo(1);
+        assertThat(spliterator.trySplit().estimateSize()).isEqualTo(3);
+        assertThat(spliterator.estimateSize()).isEqualTo(6);
+        assertThat(spliterator.trySplit().estimateSize()).isEqualTo(4);
+        assertThat(spliterator.trySplit().estimateSize()).isEqualTo(2);
+        assertThat(spliterator.trySplit()).isNull();
+    }
+
+    @Test
+    void shouldProcessIteratorInParallel() {
+        Iterator<Integer> iterator = IntStream.range(0, 10_000).iterator();
+
+        List<Integer> values = StreamUtils
+                .parallelStream(iterator, -1, BatchSizePolicy.adaptive(Duration.ofMillis(1), 1024))
+                .map(value -> value * 2)
+                .collect(Collectors.toList());
+
+        assertThat(values)
+                .hasSize(10_000)
+                .startsWith(0, 2, 4)
+                .endsWith(19_998);
+    }
+
+    @Test
+    void shouldRebalanceUnsizedStream() {
+        Stream<Integer> unsized = Stream.iterate(0, value -> value < 1000, value -> value + 1).parallel();
+
+        assertThat(StreamUtils.rebalance(unsized, BatchSizePolicy.fixed(10)).mapToInt(Integer::intValue).sum())
+                .isEqualTo(499_500);
+
+        Stream<Integer> sized = List.of(1, 2, 3).parallelStream();
+
+        assertThat(StreamUtils.rebalance(sized, BatchSizePolicy.fixed(10)).spliterator()
+                .hasCharacteristics(Spliterator.SUBSIZED))
+                .isTrue();
+    }
+
+}
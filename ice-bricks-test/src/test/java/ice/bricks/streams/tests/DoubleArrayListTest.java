@@ -0,0 +1,81 @@
+package ice.bricks.streams.tests;
+
+import ice.bricks.streams.DoubleArrayList;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class DoubleArrayListTest {
+
+    @Test
+    void shouldGrowAndBehaveAsList() {
+        DoubleArrayList values = new DoubleArrayList(1);
+        for (int i = 0; i < 100; i++) {
+            values.add(i / 2.0);
+        }
+
+        values.add(0, -1.0);
+        values.remove(1);
+        values.set(1, 42.0);
+
+        assertThat(values).hasSize(100);
+        assertThat(values.getDouble(0)).isEqualTo(-1.0);
+        assertThat(values.get(1)).isEqualTo(42.0);
+        assertThat(values.getDouble(99)).isEqualTo(49.5);
+        assertThat(values).isEqualTo(values.doubleStream().boxed().collect(Collectors.toList()));
+        assertThat(values.toDoubleArray()).hasSize(100).startsWith(-1.0, 42.0, 1.0);
+
+        assertThatExceptionOfType(IndexOutOfBoundsException.class).isThrownBy(() -> values.getDouble(100));
+    }
+
+    @Test
+    void shouldCollectParallelStream() {
+        DoubleArrayList values = IntStream.range(0, 100_000).parallel().asDoubleStream()
+                .collect(DoubleArrayList::new, DoubleArrayList::add, DoubleArrayList::addAll);
+
+        assertThat(values.doubleStream().toArray()).isEqualTo(IntStream.range(0, 100_000).asDoubleStream().toArray());
+    }
+
+    @Test
+    void shouldCreateDistinctSortedSet() {
+        DoubleArrayList values = new DoubleArrayList();
+        Arrays.asList(0.5, -3.0, 0.5, Double.NaN, -3.0).forEach(values::add);
+
+        assertThat(values.toSet())
+                .containsExactly(-3.0, 0.5, Double.NaN)
+                .isEqualTo(Set.of(-3.0, 0.5, Double.NaN));
+
+        assertThat(List.copyOf(values)).containsExactly(0.5, -3.0, 0.5, Double.NaN, -3.0);
+    }
+
+    @Test
+    void shouldTreatNaNAndSignedZerosAsBoxedDoubles() {
+        DoubleArrayList values = new DoubleArrayList();
+        DoubleStream.of(0.0, Double.NaN, -0.0, 0.0 / 0.0, 0.0, -0.0).forEach(values::add);
+
+        Set<Double> set = values.toSet();
+
+        assertThat(set)
+                .hasSize(3)
+                .containsExactly(-0.0, 0.0, Double.NaN)
+                .isEqualTo(new HashSet<>(values));
+        assertThat(set.contains(Double.NaN)).isTrue();
+        assertThat(set.contains(-0.0)).isTrue();
+        assertThat(set.contains(0.0)).isTrue();
+        assertThat(set.contains(1.0)).isFalse();
+        assertThat(Double.doubleToRawLongBits(set.iterator().next())).isEqualTo(Double.doubleToRawLongBits(-0.0));
+
+        assertThat(values.indexOf(Double.NaN)).isEqualTo(1);
+        assertThat(values.indexOf(-0.0)).isEqualTo(2);
+    }
+
+}
@@ -0,0 +1,141 @@
+package ice.bricks.streams.tests;
+
+import ice.bricks.streams.ExternalSorter;
+import ice.bricks.streams.RecordSerializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class ExternalSorterTest {
+
+    private static final RecordSerializer<Integer> INT_SERIALIZER = new RecordSerializer<>() {
+
+        @Override
+        public void write(Integer record, DataOutput output) throws IOException {
+            output.writeInt(record);
+        }
+
+        @Override
+        public Integer read(DataInput input) throws IOException {
+            return input.readInt();
+        }
+
+    };
+
+    @TempDir
+    Path tempDirectory;
+
+    @Test
+    void shouldSortInMemoryWithinBudget() throws IOException {
+        ExternalSorter<Integer> sorter = ExternalSorter.<Integer>builder()
+                .comparator(Comparator.naturalOrder())
+                .serializer(INT_SERIALIZER)
+                .tempDirectory(this.tempDirectory)
+                .build();
+
+        try (Stream<Integer> sorted = sorter.sort(Stream.of(3, 1, 2))) {
+            assertThat(sorted).containsExactly(1, 2, 3);
+        }
+
+        try (Stream<Path> files = Files.list(this.tempDirectory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldSpillRunsAndMergeThem() throws IOException {
+        List<Integer> values = new Random(42).ints(10_000, 0, 1000).boxed().collect(Collectors.toList());
+
+        ExternalSorter<Integer> sorter = ExternalSorter.<Integer>builder()
+                .comparator(Comparator.naturalOrder())
+                .serializer(INT_SERIALIZER)
+                .memoryBudget(4_000L)
+                .recordSizeEstimator(value -> 4)
+                .tempDirectory(this.tempDirectory)
+                .parallelism(4)
+                .build();
+
+        Stream<Integer> sorted = sorter.sort(values.stream());
+
+        try (Stream<Path> files = Files.list(this.tempDirectory)) {
+            assertThat(files).hasSize(40);
+        }
+
+        assertThat(sorted.collect(Collectors.toList()))
+                .containsExactlyElementsOf(values.stream().sorted().collect(Collectors.toList()));
+
+        sorted.close();
+
+        try (Stream<Path> files = Files.list(this.tempDirectory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldMergeRunsInPassesWhenExceedingFanIn() throws IOException {
+        List<Integer> values = new Random(42).ints(100, 0, 100).boxed().collect(Collectors.toList());
+
+        ExternalSorter<Integer> sorter = ExternalSorter.<Integer>builder()
+                .comparator(Comparator.comparingInt(value -> value / 10))
+                .serializer(INT_SERIALIZER)
+                .memoryBudget(1L)
+                .recordSizeEstimator(value -> 1)
+                .tempDirectory(this.tempDirectory)
+                .mergeFanIn(4)
+                .build();
+
+        Stream<Integer> sorted = sorter.sort(values.stream());
+
+        try (Stream<Path> files = Files.list(this.tempDirectory)) {
+            assertThat(files.count()).isLessThan(4);
+        }
+
+        assertThat(sorted.collect(Collectors.toList())).containsExactlyElementsOf(
+                values.stream().sorted(Comparator.comparingInt(value -> value / 10)).collect(Collectors.toList()));
+
+        sorted.close();
+
+        try (Stream<Path> files = Files.list(this.tempDirectory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldRejectTooSmallFanIn() {
+        assertThatIllegalArgumentException().isThrownBy(() -> ExternalSorter.<Integer>builder()
+                .comparator(Comparator.naturalOrder())
+                .serializer(INT_SERIALIZER)
+                .mergeFanIn(1)
+                .build());
+    }
+
+    @Test
+    void shouldKeepOrderOfEqualElements() {
+        ExternalSorter<Integer> sorter = ExternalSorter.<Integer>builder()
+                .comparator(Comparator.comparingInt(value -> value / 10))
+                .serializer(INT_SERIALIZER)
+                .memoryBudget(3L)
+                .recordSizeEstimator(value -> 1)
+                .tempDirectory(this.tempDirectory)
+                .build();
+
+        try (Stream<Integer> sorted = sorter.sort(IntStream.of(25, 11, 21, 12, 13, 22, 14, 23).boxed())) {
+            assertThat(sorted).containsExactly(11, 12, 13, 14, 25, 21, 22, 23);
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+package ice.bricks.streams.tests;
+
+import ice.bricks.streams.IntArrayList;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class IntArrayListTest {
+
+    @Test
+    void shouldGrowAndBehaveAsList() {
+        IntArrayList values = new IntArrayList(1);
+        for (int i = 0; i < 100; i++) {
+            values.add(i);
+        }
+
+        values.add(0, -1);
+        values.remove(1);
+        values.set(1, 42);
+
+        assertThat(values).hasSize(100);
+        assertThat(values.getInt(0)).isEqualTo(-1);
+        assertThat(values.get(1)).isEqualTo(42);
+        assertThat(values).isEqualTo(values.intStream().boxed().collect(Collectors.toList()));
+        assertThat(values.toIntArray()).hasSize(100).startsWith(-1, 42, 2);
+
+        assertThatExceptionOfType(IndexOutOfBoundsException.class).isThrownBy(() -> values.getInt(100));
+    }
+
+    @Test
+    void shouldCollectParallelStream() {
+        IntArrayList values = IntStream.range(0, 100_000).parallel()
+                .collect(IntArrayList::new, IntArrayList::add, IntArrayList::addAll);
+
+        assertThat(values.intStream().toArray()).isEqualTo(IntStream.range(0, 100_000).toArray());
+    }
+
+    @Test
+    void shouldCreateDistinctSortedSet() {
+        IntArrayList values = new IntArrayList();
+        Arrays.asList(5, -3, 5, 0, -3).forEach(values::add);
+
+        assertThat(values.toSet())
+                .containsExactly(-3, 0, 5)
+                .isEqualTo(Set.of(-3, 0, 5));
+
+        assertThat(List.copyOf(values)).containsExactly(5, -3, 5, 0, -3);
+    }
+
+}
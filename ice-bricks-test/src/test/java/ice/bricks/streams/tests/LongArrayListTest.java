@@ -0,0 +1,59 @@
+package ice.bricks.streams.tests;
+
+import ice.bricks.streams.LongArrayList;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class LongArrayListTest {
+
+    @Test
+    void shouldGrowAndBehaveAsList() {
+        LongArrayList values = new LongArrayList(1);
+        for (long i = 0; i < 100; i++) {
+            values.add(i * Integer.MAX_VALUE);
+        }
+
+        values.add(0, -1L);
+        values.remove(1);
+        values.set(1, 42L);
+
+        assertThat(values).hasSize(100);
+        assertThat(values.getLong(0)).isEqualTo(-1L);
+        assertThat(values.get(1)).isEqualTo(42L);
+        assertThat(values.getLong(99)).isEqualTo(99L * Integer.MAX_VALUE);
+        assertThat(values).isEqualTo(values.longStream().boxed().collect(Collectors.toList()));
+        assertThat(values.toLongArray()).hasSize(100).startsWith(-1L, 42L, 2L * Integer.MAX_VALUE);
+
+        assertThatExceptionOfType(IndexOutOfBoundsException.class).isThrownBy(() -> values.getLong(100));
+    }
+
+    @Test
+    void shouldCollectParallelStream() {
+        LongArrayList values = LongStream.range(0, 100_000).parallel()
+                .collect(LongArrayList::new, LongArrayList::add, LongArrayList::addAll);
+
+        assertThat(values.longStream().toArray()).isEqualTo(LongStream.range(0, 100_000).toArray());
+    }
+
+    @Test
+    void shouldCreateDistinctSortedSet() {
+        LongArrayList values = new LongArrayList();
+        Arrays.asList(5L, Long.MIN_VALUE, 5L, 0L, Long.MIN_VALUE).forEach(values::add);
+
+        assertThat(values.toSet())
+                .containsExactly(Long.MIN_VALUE, 0L, 5L)
+                .isEqualTo(Set.of(Long.MIN_VALUE, 0L, 5L))
+                .doesNotContain(1L);
+
+        assertThat(List.copyOf(values)).containsExactly(5L, Long.MIN_VALUE, 5L, 0L, Long.MIN_VALUE);
+    }
+
+}
@@ -0,0 +1,91 @@
+package ice.bricks.streams.tests;
+
+import ice.bricks.streams.BloomFilter;
+import ice.bricks.streams.HyperLogLog;
+import ice.bricks.streams.StreamUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.within;
+
+class ProbabilisticCollectorsTest {
+
+    @Test
+    void shouldCollectTopK() {
+        assertThat(Stream.of(5, 1, 9, 3, 7).collect(StreamUtils.topK(3, Comparator.naturalOrder())))
+                .containsExactly(9, 7, 5);
+
+        assertThat(Stream.of(2, 1).collect(StreamUtils.topK(3, Comparator.naturalOrder())))
+                .containsExactly(2, 1);
+
+        List<Integer> top = IntStream.range(0, 100_000).boxed().parallel()
+                .collect(StreamUtils.topK(5, Comparator.naturalOrder()));
+
+        assertThat(top).containsExactly(99_999, 99_998, 99_997, 99_996, 99_995);
+
+        assertThatIllegalArgumentException().isThrownBy(() -> StreamUtils.topK(0, Comparator.naturalOrder()));
+    }
+
+    @Test
+    void shouldFilterWithBloomFilter() {
+        BloomFilter<Integer> filter = BloomFilter.create(10_000, 0.01);
+
+        assertThat(filter.put(1)).isTrue();
+        assertThat(filter.put(1)).isFalse();
+        assertThat(filter.mightContain(1)).isTrue();
+
+        IntStream.range(2, 10_000).forEach(filter::put);
+
+        long falsePositives = IntStream.range(10_000, 20_000).filter(filter::mightContain).count();
+        assertThat(falsePositives).isLessThan(300);
+    }
+
+    @Test
+    void shouldMergeBloomFiltersOfParallelStream() {
+        BloomFilter<Integer> filter = IntStream.range(0, 10_000).boxed().parallel()
+                .collect(StreamUtils.toBloomFilter(10_000, 0.01));
+
+        assertThat(IntStream.range(0, 10_000).allMatch(filter::mightContain)).isTrue();
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> filter.merge(BloomFilter.create(100, 0.01)));
+    }
+
+    @Test
+    void shouldDropRepeatedElementsApproximately() {
+        Stream<Integer> repeated = IntStream.range(0, 30_000).map(value -> value % 10_000).boxed();
+
+        List<Integer> distinct = StreamUtils.distinctApproximately(repeated, 10_000, 0.001)
+                .collect(Collectors.toList());
+
+        assertThat(distinct).doesNotHaveDuplicates();
+        assertThat(distinct.size()).isBetween(9_950, 10_000);
+
+        long parallel = StreamUtils.distinctApproximately(
+                IntStream.range(0, 10_000).boxed().parallel(), 10_000, 0.001).count();
+
+        assertThat(parallel).isBetween(9_950L, 10_000L);
+    }
+
+    @Test
+    void shouldEstimateCardinality() {
+        HyperLogLog small = Stream.of("a", "b", "a", "c").collect(StreamUtils.toHyperLogLog(14));
+        assertThat(small.cardinality()).isEqualTo(3);
+
+        HyperLogLog large = IntStream.range(0, 1_000_000).map(value -> value % 200_000).boxed().parallel()
+                .collect(StreamUtils.toHyperLogLog(HyperLogLog.DEFAULT_PRECISION));
+
+        assertThat((double) large.cardinality()).isCloseTo(200_000, within(200_000 * 0.03));
+
+        assertThatIllegalArgumentException().isThrownBy(() -> new HyperLogLog(3));
+        assertThatIllegalArgumentException().isThrownBy(() -> large.merge(new HyperLogLog(10)));
+    }
+
+}
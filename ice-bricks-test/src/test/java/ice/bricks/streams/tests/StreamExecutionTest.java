@@ -0,0 +1,158 @@
+package ice.bricks.streams.tests;
+
+import ice.bricks.streams.StreamUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StreamExecutionTest {
+
+    @Test
+    void shouldExecuteParallelStreamInPool() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+
+        try {
+            Set<ForkJoinPool> pools = ConcurrentHashMap.newKeySet();
+
+            long sum = StreamUtils.executeIn(pool, () -> IntStream.range(0, 10_000).parallel()
+                    .peek(value -> pools.add(ForkJoinTask.getPool()))
+                    .asLongStream()
+                    .sum());
+
+            assertThat(sum).isEqualTo(49_995_000);
+            assertThat(pools).containsExactly(pool);
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void shouldPropagateExceptionOfPipeline() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> StreamUtils.executeWithParallelism(2, () -> Stream.of(1, 2).parallel()
+                        .map(value -> {
+                            throw new IllegalArgumentException("failed");
+                        })
+                        .collect(Collectors.toList())))
+                .withMessageContaining("failed");
+    }
+
+    @Test
+    void shouldMapAsyncInOrderWithBoundedConcurrency() {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+
+            List<Integer> values = StreamUtils.mapAsync(IntStream.range(0, 100).boxed(), value -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep((100 - value) % 5);
+                running.decrementAndGet();
+                return value * 2;
+            }, executor, 4).collect(Collectors.toList());
+
+            assertThat(values).containsExactlyElementsOf(
+                    IntStream.range(0, 100).map(value -> value * 2).boxed().collect(Collectors.toList()));
+            assertThat(maxRunning.get()).isBetween(1, 4);
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shouldPullSourceLazilyWhenMappingAsync() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            AtomicInteger pulled = new AtomicInteger();
+            Stream<Integer> source = Stream.iterate(0, value -> value + 1).peek(value -> pulled.incrementAndGet());
+
+            Iterator<Integer> iterator = StreamUtils.mapAsync(source, value -> value, executor, 3).iterator();
+
+            assertThat(iterator.next()).isEqualTo(0);
+            assertThat(pulled.get()).isEqualTo(3);
+
+            assertThat(iterator.next()).isEqualTo(1);
+            assertThat(pulled.get()).isEqualTo(4);
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shouldRunMapperWhenCountingAsyncMappedStream() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            AtomicInteger mapped = new AtomicInteger();
+
+            long count = StreamUtils.mapAsync(List.of(1, 2, 3).stream(), value -> {
+                mapped.incrementAndGet();
+                return value;
+            }, executor, 2).count();
+
+            assertThat(count).isEqualTo(3);
+            assertThat(mapped.get()).isEqualTo(3);
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shouldPropagateExceptionOfAsyncMapping() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        AtomicInteger closed = new AtomicInteger();
+
+        Stream<Integer> source = Stream.of(1, 2, 3).onClose(closed::incrementAndGet);
+
+        try (Stream<Integer> mapped = StreamUtils.mapAsync(source, value -> {
+            if (value == 2) {
+                throw new IllegalArgumentException("failed " + value);
+            }
+
+            return value;
+        }, executor, 2)) {
+
+            assertThatThrownBy(() -> mapped.collect(Collectors.toList()))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("failed 2");
+        }
+        finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+
+        assertThat(closed.get()).isEqualTo(1);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -1,15 +1,41 @@
 package ice.bricks.streams.tests;
 
+import ice.bricks.streams.DoubleArrayList;
+import ice.bricks.streams.IntArrayList;
+import ice.bricks.streams.LongArrayList;
 import ice.bricks.streams.StreamUtils;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class StreamUtilsTest {
 
@@ -41,4 +67,313 @@ class StreamUtilsTest {
                 .isThrownBy(() -> StreamUtils.collectStream(Stream.of(strings), Stream.class));
     }
 
+    @Test
+    void shouldCollectStreamIntoConcreteType() {
+        String[] strings = new String[] {"c", "a", "b"};
+
+        assertThat(StreamUtils.collectStream(Stream.of(strings), LinkedHashSet.class))
+                .isExactlyInstanceOf(LinkedHashSet.class)
+                .containsExactly("c", "a", "b");
+
+        assertThat(StreamUtils.collectStream(Stream.of(strings), TreeSet.class))
+                .isExactlyInstanceOf(TreeSet.class)
+                .containsExactly("a", "b", "c");
+
+        assertThat(StreamUtils.collectStream(Stream.of(strings), LinkedList.class))
+                .isExactlyInstanceOf(LinkedList.class)
+                .containsExactly(strings);
+
+        assertThat(StreamUtils.collectStream(Stream.of(strings), PriorityQueue.class))
+                .isExactlyInstanceOf(PriorityQueue.class)
+                .containsExactlyInAnyOrder(strings);
+    }
+
+    @Test
+    void shouldCollectStreamIntoDefaultImplementation() {
+        String[] strings = new String[] {"c", "a", "b"};
+
+        assertThat(StreamUtils.collectStream(Stream.of(strings), Collection.class))
+                .isExactlyInstanceOf(ArrayList.class);
+
+        assertThat(StreamUtils.collectStream(Stream.of(strings), Set.class))
+                .isExactlyInstanceOf(HashSet.class);
+
+        assertThat(StreamUtils.collectStream(Stream.of(strings), SortedSet.class))
+                .isExactlyInstanceOf(TreeSet.class)
+                .containsExactly("a", "b", "c");
+
+        assertThat(StreamUtils.collectStream(Stream.of(strings), Queue.class))
+                .isExactlyInstanceOf(ArrayDeque.class)
+                .containsExactly(strings);
+
+        assertThat(StreamUtils.collectStream(Stream.of(strings), BlockingQueue.class))
+                .isExactlyInstanceOf(LinkedBlockingQueue.class)
+                .containsExactly(strings);
+    }
+
+    @Test
+    void shouldCollectFilteredStream() {
+        assertThat(StreamUtils.collectStream(Stream.of(1, 2, 3, 4).filter(i -> i % 2 == 0), List.class))
+                .containsExactly(2, 4);
+    }
+
+    @Test
+    void shouldCollectParallelStream() {
+        List<Integer> expected = IntStream.range(0, 10_000).boxed().collect(Collectors.toList());
+
+        assertThat(StreamUtils.collectStream(expected.parallelStream(), List.class))
+                .isExactlyInstanceOf(ArrayList.class)
+                .containsExactlyElementsOf(expected);
+
+        assertThat(StreamUtils.collectStream(expected.parallelStream().map(i -> i % 100), Set.class))
+                .isExactlyInstanceOf(HashSet.class)
+                .containsExactlyInAnyOrderElementsOf(expected.subList(0, 100));
+
+        assertThat(StreamUtils.collectStream(expected.parallelStream(), LinkedHashSet.class))
+                .isExactlyInstanceOf(LinkedHashSet.class)
+                .containsExactlyElementsOf(expected);
+
+        assertThat(StreamUtils.collectStream(expected.parallelStream(), ConcurrentSkipListSet.class))
+                .isExactlyInstanceOf(ConcurrentSkipListSet.class)
+                .containsExactlyElementsOf(expected);
+
+        assertThat(StreamUtils.collectStream(expected.parallelStream().filter(i -> i % 2 == 0), Queue.class))
+                .isExactlyInstanceOf(ArrayDeque.class)
+                .hasSize(5_000)
+                .startsWith(0, 2, 4);
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> StreamUtils.collectStream(expected.parallelStream(), Stream.class));
+    }
+
+    @Test
+    void shouldDeduplicateParallelStreamIntoSet() {
+        Stream<Integer> duplicates = IntStream.range(0, 100_000).parallel().mapToObj(i -> i % 1000);
+
+        assertThat(StreamUtils.collectStream(duplicates, Set.class))
+                .isExactlyInstanceOf(HashSet.class)
+                .hasSize(1000)
+                .containsAll(IntStream.range(0, 1000).boxed().collect(Collectors.toList()));
+
+        assertThat(StreamUtils.collectStream(IntStream.range(0, 10_000).parallel().mapToObj(i -> i % 10),
+                HashSet.class))
+                .containsExactlyInAnyOrder(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+    }
+
+    @Test
+    void shouldCollectParallelStreamWithNulls() {
+        List<Integer> expected = IntStream.range(0, 10_000)
+                .mapToObj(i -> i % 10 == 0 ? null : i)
+                .collect(Collectors.toList());
+
+        assertThat(StreamUtils.collectStream(expected.parallelStream(), Set.class))
+                .isExactlyInstanceOf(HashSet.class)
+                .hasSize(9_001)
+                .containsNull();
+
+        assertThat(StreamUtils.collectStream(expected.parallelStream(), Collection.class))
+                .containsExactlyElementsOf(expected);
+
+        assertThat(StreamUtils.collectStream(expected.parallelStream().filter(Objects::nonNull),
+                ConcurrentHashMap.KeySetView.class))
+                .isExactlyInstanceOf(ConcurrentHashMap.KeySetView.class)
+                .hasSize(9_000);
+
+        assertThat(StreamUtils.collectStream(expected.stream().filter(Objects::nonNull),
+                ConcurrentHashMap.KeySetView.class))
+                .isExactlyInstanceOf(ConcurrentHashMap.KeySetView.class)
+                .hasSize(9_000);
+    }
+
+    @Test
+    void shouldCollectPrimitiveStreams() {
+        assertThat(StreamUtils.collectIntStream(IntStream.of(3, 1, 2, 1), List.class))
+                .isExactlyInstanceOf(IntArrayList.class)
+                .containsExactly(3, 1, 2, 1);
+
+        assertThat(StreamUtils.collectIntStream(IntStream.range(0, 10_000).parallel(), Collection.class))
+                .isExactlyInstanceOf(IntArrayList.class)
+                .hasSize(10_000)
+                .startsWith(0, 1, 2);
+
+        assertThat(StreamUtils.collectLongStream(LongStream.of(3, 1, 2, 1), Set.class))
+                .containsExactly(1L, 2L, 3L)
+                .contains(2L)
+                .doesNotContain(4L);
+
+        assertThat(StreamUtils.collectLongStream(LongStream.of(1, 2), LongArrayList.class))
+                .isExactlyInstanceOf(LongArrayList.class);
+
+        assertThat(StreamUtils.collectDoubleStream(DoubleStream.of(0.5, 0.5, -1.0), Iterable.class))
+                .isExactlyInstanceOf(DoubleArrayList.class)
+                .containsExactly(0.5, 0.5, -1.0);
+
+        assertThat(StreamUtils.collectDoubleStream(DoubleStream.of(0.5, 0.5, -1.0), Set.class))
+                .containsExactly(-1.0, 0.5);
+
+        assertThat(StreamUtils.collectIntStream(IntStream.of(3, 1, 2), TreeSet.class))
+                .isExactlyInstanceOf(TreeSet.class)
+                .containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void shouldCollectLongStreams() {
+        assertThat(StreamUtils.collectLongStream(LongStream.iterate(0, i -> i + 3).limit(1_000), List.class))
+                .isExactlyInstanceOf(LongArrayList.class)
+                .hasSize(1_000)
+                .startsWith(0L, 3L, 6L)
+                .endsWith(2_997L);
+
+        assertThat(StreamUtils.collectLongStream(LongStream.range(0, 10_000).parallel().map(i -> i % 100), Set.class))
+                .hasSize(100)
+                .startsWith(0L, 1L, 2L)
+                .endsWith(99L);
+
+        Collection<Long> set = StreamUtils.collectLongStream(LongStream.of(2, 1, 2), Set.class);
+        assertThatThrownBy(() -> set.add(3L)).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> set.remove(1L)).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void shouldCollectDoubleStreams() {
+        assertThat(StreamUtils.collectDoubleStream(DoubleStream.iterate(0.0, d -> d + 0.5).limit(1_000), List.class))
+                .isExactlyInstanceOf(DoubleArrayList.class)
+                .hasSize(1_000)
+                .startsWith(0.0, 0.5, 1.0)
+                .endsWith(499.5);
+
+        assertThat(StreamUtils.collectDoubleStream(
+                IntStream.range(0, 10_000).parallel().mapToDouble(i -> i % 100), Collection.class))
+                .isExactlyInstanceOf(DoubleArrayList.class)
+                .hasSize(10_000)
+                .startsWith(0.0, 1.0, 2.0);
+
+        Collection<Double> set = StreamUtils.collectDoubleStream(
+                DoubleStream.of(Double.NaN, 0.0, -0.0, Double.NaN, 0.0).parallel(), Set.class);
+        assertThat(set)
+                .containsExactly(-0.0, 0.0, Double.NaN)
+                .contains(Double.NaN)
+                .isEqualTo(new HashSet<>(List.of(Double.NaN, 0.0, -0.0)));
+        assertThatThrownBy(() -> set.add(1.0)).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void shouldBatchStream() {
+        assertThat(StreamUtils.batch(Stream.of(1, 2, 3, 4, 5), 2))
+                .containsExactly(List.of(1, 2), List.of(3, 4), List.of(5));
+
+        assertThat(StreamUtils.batch(Stream.empty(), 2)).isEmpty();
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> StreamUtils.batch(Stream.of(1), 0));
+    }
+
+    @Test
+    void shouldBatchParallelStreamInAlignedRanges() {
+        List<Integer> values = IntStream.range(0, 10_007).boxed().collect(Collectors.toList());
+
+        List<List<Integer>> batches = StreamUtils.batch(values.parallelStream(), 10)
+                .collect(Collectors.toList());
+
+        assertThat(batches).hasSize(1001);
+        assertThat(batches.subList(0, 1000)).allSatisfy(batch -> assertThat(batch).hasSize(10));
+        assertThat(batches.get(1000)).containsExactly(10_000, 10_001, 10_002, 10_003, 10_004, 10_005, 10_006);
+        assertThat(batches.stream().flatMap(List::stream)).containsExactlyElementsOf(values);
+    }
+
+    @Test
+    void shouldBatchUnsizedParallelStream() {
+        Stream<Integer> unsized = IntStream.range(0, 10_000).boxed().filter(value -> true).parallel();
+
+        List<List<Integer>> batches = StreamUtils.batch(unsized, 7).collect(Collectors.toList());
+
+        assertThat(batches.subList(0, batches.size() - 1)).allSatisfy(batch -> assertThat(batch).hasSize(7));
+        assertThat(batches.stream().flatMap(List::stream))
+                .containsExactlyElementsOf(IntStream.range(0, 10_000).boxed().collect(Collectors.toList()));
+    }
+
+    @Test
+    void shouldReuseBatchBuffer() {
+        Set<List<Integer>> buffers = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Integer> sums = new ArrayList<>();
+
+        StreamUtils.batch(Stream.of(1, 2, 3, 4, 5), 2, true).forEach(batch -> {
+            buffers.add(batch);
+            sums.add(batch.stream().mapToInt(Integer::intValue).sum());
+        });
+
+        assertThat(buffers).hasSize(1);
+        assertThat(sums).containsExactly(3, 7, 5);
+    }
+
+    @Test
+    void shouldReuseBatchBufferOfParallelStream() {
+        List<Integer> values = IntStream.range(0, 10_007).boxed().collect(Collectors.toList());
+
+        // buffers are reused, so elements are copied out before the next batch is requested
+        List<Integer> collected = StreamUtils.batch(values.parallelStream(), 10, true)
+                .flatMap(batch -> new ArrayList<>(batch).stream())
+                .collect(Collectors.toList());
+
+        assertThat(collected).containsExactlyInAnyOrderElementsOf(values);
+    }
+
+    @Test
+    void shouldSlideWindowOverStream() {
+        assertThat(StreamUtils.window(Stream.of(1, 2, 3, 4), 2, 1))
+                .containsExactly(List.of(1, 2), List.of(2, 3), List.of(3, 4));
+
+        assertThat(StreamUtils.window(Stream.of(1, 2, 3, 4, 5, 6, 7), 2, 3))
+                .containsExactly(List.of(1, 2), List.of(4, 5));
+
+        assertThat(StreamUtils.window(Stream.of(1, 2), 3, 1)).isEmpty();
+
+        assertThat(StreamUtils.window(IntStream.range(0, 1000).boxed().parallel(), 3, 1)
+                .map(window -> window.get(0))
+                .collect(Collectors.toList()))
+                .containsExactlyElementsOf(IntStream.range(0, 998).boxed().collect(Collectors.toList()));
+    }
+
+    @Test
+    void shouldMergeSortedStreams() {
+        assertThat(StreamUtils.mergeSorted(Comparator.<Integer>naturalOrder(),
+                Stream.of(1, 4, 7), Stream.of(2, 5, 8), Stream.empty(), Stream.of(3, 6, 9)))
+                .containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9);
+
+        assertThat(StreamUtils.mergeSorted(Comparator.comparing(String::length),
+                Stream.of("a", "ccc"), Stream.of("b", "dd")))
+                .containsExactly("a", "b", "dd", "ccc");
+
+        assertThat(StreamUtils.mergeSorted(Comparator.<Integer>naturalOrder(),
+                List.of(Stream.of(1, 2, 2, 3), Stream.of(2, 3, 4)), true))
+                .containsExactly(1, 2, 3, 4);
+    }
+
+    @Test
+    void shouldMergeSortedStreamsLazily() {
+        AtomicInteger pulled = new AtomicInteger();
+        Stream<Integer> infinite = Stream.iterate(0, value -> value + 2).peek(value -> pulled.incrementAndGet());
+
+        assertThat(StreamUtils.mergeSorted(Comparator.<Integer>naturalOrder(), infinite, Stream.of(1, 3)).limit(4))
+                .containsExactly(0, 1, 2, 3);
+        assertThat(pulled.get()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void shouldCloseMergedStreams() {
+        AtomicInteger closed = new AtomicInteger();
+
+        Stream<Integer> merged = StreamUtils.mergeSorted(Comparator.<Integer>naturalOrder(),
+                Stream.of(1).onClose(closed::incrementAndGet),
+                Stream.of(2).onClose(() -> {
+                    throw new IllegalStateException("close failed");
+                }),
+                Stream.of(3).onClose(closed::incrementAndGet));
+
+        assertThatThrownBy(merged::close)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("close failed");
+        assertThat(closed.get()).isEqualTo(2);
+    }
+
 }
@@ -1,4 +1,5 @@
 module ice.bricks.test {
+    requires java.management;
     requires lombok;
     requires org.assertj.core;
     requires org.junit.jupiter.api;
@@ -0,0 +1,314 @@
+package ice.bricks.exceptions;
+
+import lombok.Builder;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free circuit breaker that stops calls to a failing dependency.
+ *
+ * Outcomes of calls are counted in a sliding time window split into buckets.
+ * Once the window contains at least {@code minimumCalls} calls and the rate of failures reaches
+ * {@code failureRateThreshold}, the breaker opens and rejects calls for {@code openDuration}.
+ * After that a single probe call is permitted (half-open state): its success closes the breaker,
+ * its failure opens it again. Every permitted call reports its outcome through the {@link Permission}
+ * it was admitted with, so late outcomes of calls admitted before the probe do not affect its decision.
+ *
+ * <pre>
+ *     CircuitBreaker breaker = CircuitBreaker.builder()
+ *             .failureRateThreshold(0.5)
+ *             .window(Duration.ofSeconds(10))
+ *             .openDuration(Duration.ofSeconds(5))
+ *             .build();
+ *
+ *     Price price = breaker.execute(() -&gt; pricingClient.getPrice(item));
+ * </pre>
+ *
+ * Counters of the window are updated without locks, so under contention they are approximate.
+ */
+public final class CircuitBreaker {
+
+    private static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+    private static final int DEFAULT_MINIMUM_CALLS = 10;
+    private static final Duration DEFAULT_WINDOW = Duration.ofSeconds(10);
+    private static final int DEFAULT_BUCKET_COUNT = 10;
+    private static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(5);
+
+    /**
+     * State of a circuit breaker.
+     */
+    public enum State {
+
+        /**
+         * Calls are permitted and their outcomes are counted.
+         */
+        CLOSED,
+
+        /**
+         * Calls are rejected.
+         */
+        OPEN,
+
+        /**
+         * A single probe call is in progress, other calls are rejected.
+         */
+        HALF_OPEN
+
+    }
+
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long bucketNanos;
+    private final long openNanos;
+    private final Bucket[] buckets;
+
+    private final AtomicReference<Transition> transition;
+
+    /**
+     * Creates a circuit breaker.
+     *
+     * @param failureRateThreshold rate of failed calls to open the breaker, {@code 0.5} by default
+     * @param minimumCalls minimum number of calls in the window to calculate the rate, {@code 10} by default
+     * @param window duration of the sliding window, {@code 10s} by default
+     * @param bucketCount number of buckets the window is split into, {@code 10} by default
+     * @param openDuration time calls are rejected before a probe call, {@code 5s} by default
+     */
+    @Builder
+    private CircuitBreaker(Double failureRateThreshold, Integer minimumCalls, Duration window,
+                           Integer bucketCount, Duration openDuration) {
+
+        this.failureRateThreshold = Objects.requireNonNullElse(failureRateThreshold, DEFAULT_FAILURE_RATE_THRESHOLD);
+        this.minimumCalls = Objects.requireNonNullElse(minimumCalls, DEFAULT_MINIMUM_CALLS);
+        this.openNanos = Objects.requireNonNullElse(openDuration, DEFAULT_OPEN_DURATION).toNanos();
+
+        int buckets = Objects.requireNonNullElse(bucketCount, DEFAULT_BUCKET_COUNT);
+        long windowNanos = Objects.requireNonNullElse(window, DEFAULT_WINDOW).toNanos();
+
+        if (this.failureRateThreshold <= 0 || this.failureRateThreshold > 1) {
+            throw new IllegalArgumentException("failureRateThreshold must be in (0, 1]");
+        }
+
+        if (buckets <= 0 || windowNanos < buckets) {
+            throw new IllegalArgumentException("window must be split into a positive number of buckets");
+        }
+
+        this.bucketNanos = windowNanos / buckets;
+        this.buckets = new Bucket[buckets];
+        for (int i = 0; i < buckets; i++) {
+            this.buckets[i] = new Bucket();
+        }
+
+        this.transition = new AtomicReference<>(new Transition(State.CLOSED, System.nanoTime()));
+    }
+
+    /**
+     * Performs a call if the breaker permits it, recording its outcome.
+     *
+     * @param unsafeProducer ({@link UnsafeProducer}) call to be performed
+     * @param <T> type of the result
+     * @return result of the call
+     * @throws CircuitBreakerOpenException if the call is rejected
+     */
+    public <T> T execute(UnsafeProducer<T> unsafeProducer) {
+        Permission permission = tryAcquirePermission();
+        if (permission == null) {
+            throw new CircuitBreakerOpenException("Circuit breaker is open");
+        }
+
+        T result;
+        try {
+            result = unsafeProducer.execute();
+        }
+        catch (Throwable e) {
+            permission.onFailure();
+            return ExceptionUtils.runSafePropagating(() -> {
+                throw e;
+            });
+        }
+
+        permission.onSuccess();
+        return result;
+    }
+
+    /**
+     * Checks if a call is permitted. A permitted call has to report its outcome
+     * with {@link Permission#onSuccess()} or {@link Permission#onFailure()} of the returned permission.
+     *
+     * @return permission of the call or {@code null} if the call is rejected
+     */
+    public Permission tryAcquirePermission() {
+        Transition current = this.transition.get();
+
+        switch (current.state) {
+            case CLOSED:
+                return new Permission(current);
+            case OPEN:
+            case HALF_OPEN:
+                // a probe that has not reported its outcome within the open duration is replaced by a new one
+                if (System.nanoTime() - current.sinceNanos >= this.openNanos) {
+                    Transition probe = new Transition(State.HALF_OPEN, System.nanoTime());
+                    if (this.transition.compareAndSet(current, probe)) {
+                        return new Permission(probe);
+                    }
+                }
+
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    private void onSuccess(Transition admitted) {
+        Transition current = this.transition.get();
+
+        if (admitted.state == State.HALF_OPEN) {
+            // only the probe admitted under the current transition decides, a replaced probe is ignored
+            if (admitted == current
+                    && this.transition.compareAndSet(current, new Transition(State.CLOSED, System.nanoTime()))) {
+                for (Bucket bucket : this.buckets) {
+                    bucket.clear();
+                }
+            }
+
+            return;
+        }
+
+        currentBucket().successes.incrementAndGet();
+    }
+
+    private void onFailure(Transition admitted) {
+        Transition current = this.transition.get();
+
+        if (admitted.state == State.HALF_OPEN) {
+            if (admitted == current) {
+                this.transition.compareAndSet(current, new Transition(State.OPEN, System.nanoTime()));
+            }
+
+            return;
+        }
+
+        currentBucket().failures.incrementAndGet();
+
+        if (current.state == State.CLOSED && isFailureRateExceeded()) {
+            this.transition.compareAndSet(current, new Transition(State.OPEN, System.nanoTime()));
+        }
+    }
+
+    /**
+     * Returns the current state of the breaker. An open breaker reports {@link State#OPEN}
+     * until a probe call is permitted.
+     *
+     * @return state of the breaker
+     */
+    public State getState() {
+        return this.transition.get().state;
+    }
+
+    /**
+     * Returns the rate of failed calls within the current window.
+     *
+     * @return rate of failures, or {@code 0} if there are no calls
+     */
+    public double getFailureRate() {
+        long[] counts = countCalls();
+        return counts[0] == 0 ? 0 : (double) counts[1] / counts[0];
+    }
+
+    private boolean isFailureRateExceeded() {
+        long[] counts = countCalls();
+        return counts[0] >= this.minimumCalls && (double) counts[1] / counts[0] >= this.failureRateThreshold;
+    }
+
+    private long[] countCalls() {
+        long epoch = System.nanoTime() / this.bucketNanos;
+
+        long calls = 0;
+        long failures = 0;
+        for (Bucket bucket : this.buckets) {
+            // buckets that are not updated for the whole window are outdated
+            if (bucket.epoch.get() > epoch - this.buckets.length) {
+                long bucketFailures = bucket.failures.get();
+                calls += bucket.successes.get() + bucketFailures;
+                failures += bucketFailures;
+            }
+        }
+
+        return new long[] {calls, failures};
+    }
+
+    private Bucket currentBucket() {
+        long epoch = System.nanoTime() / this.bucketNanos;
+        Bucket bucket = this.buckets[(int) Math.floorMod(epoch, (long) this.buckets.length)];
+
+        long bucketEpoch = bucket.epoch.get();
+        if (bucketEpoch != epoch && bucket.epoch.compareAndSet(bucketEpoch, epoch)) {
+            bucket.successes.set(0);
+            bucket.failures.set(0);
+        }
+
+        return bucket;
+    }
+
+    /**
+     * Counters of calls within a part of the window.
+     */
+    private static final class Bucket {
+
+        private final AtomicLong epoch = new AtomicLong(Long.MIN_VALUE);
+        private final AtomicLong successes = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+
+        private void clear() {
+            this.epoch.set(Long.MIN_VALUE);
+            this.successes.set(0);
+            this.failures.set(0);
+        }
+
+    }
+
+    /**
+     * Permission of a single call, bound to the state of the breaker the call was admitted in.
+     */
+    public final class Permission {
+
+        private final Transition admitted;
+
+        private Permission(Transition admitted) {
+            this.admitted = admitted;
+        }
+
+        /**
+         * Records a successful call.
+         */
+        public void onSuccess() {
+            CircuitBreaker.this.onSuccess(this.admitted);
+        }
+
+        /**
+         * Records a failed call.
+         */
+        public void onFailure() {
+            CircuitBreaker.this.onFailure(this.admitted);
+        }
+
+    }
+
+    /**
+     * State of the breaker and the time it was entered.
+     */
+    private static final class Transition {
+
+        private final State state;
+        private final long sinceNanos;
+
+        private Transition(State state, long sinceNanos) {
+            this.state = state;
+            this.sinceNanos = sinceNanos;
+        }
+
+    }
+
+}
@@ -0,0 +1,18 @@
+package ice.bricks.exceptions;
+
+/**
+ * Exception that is thrown when a call is rejected by an open {@link CircuitBreaker}.
+ * The exception does not capture a stack trace, since rejection is a part of the fail-fast path.
+ * If the breaker opened while an operation was retried, the last failure of the operation is the cause.
+ */
+public class CircuitBreakerOpenException extends StacklessException {
+
+    public CircuitBreakerOpenException(String message) {
+        super(message);
+    }
+
+    public CircuitBreakerOpenException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -0,0 +1,268 @@
+package ice.bricks.exceptions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe collector of exceptions of a long-running operation, like a batch loop.
+ * Exceptions of the same type thrown from the same place (having the same stack trace) are counted
+ * instead of being kept, and only a limited number of distinct exceptions is retained,
+ * so memory usage does not depend on the number of failures.
+ *
+ * Instead of:
+ * <pre>
+ *     Throwable failure = null;
+ *     for (Record record : records) {
+ *         try {
+ *             process(record);
+ *         }
+ *         catch (Exception e) {
+ *             failure = ExceptionUtils.chainExceptions(failure, e);
+ *         }
+ *     }
+ * </pre>
+ *
+ * the code may look like this:
+ * <pre>
+ *     ExceptionAggregator failures = new ExceptionAggregator(10);
+ *     for (Record record : records) {
+ *         try {
+ *             process(record);
+ *         }
+ *         catch (Exception e) {
+ *             failures.add(e);
+ *         }
+ *     }
+ *
+ *     failures.throwIfAny("Unable to process records");
+ * </pre>
+ */
+public final class ExceptionAggregator {
+
+    private final int maxRetained;
+
+    private final ConcurrentMap<Signature, Occurrences> retained = new ConcurrentHashMap<>();
+    private final AtomicInteger retainedCount = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder overflowCount = new LongAdder();
+
+    /**
+     * Creates an aggregator.
+     *
+     * @param maxRetained maximum number of distinct exceptions to be retained
+     */
+    public ExceptionAggregator(int maxRetained) {
+        if (maxRetained <= 0) {
+            throw new IllegalArgumentException("maxRetained must be positive");
+        }
+
+        this.maxRetained = maxRetained;
+    }
+
+    /**
+     * Adds an exception. It is retained if it is the first one of its type and stack trace
+     * and the limit of distinct exceptions is not reached, otherwise it is only counted.
+     *
+     * @param exception exception to be added
+     */
+    public void add(Throwable exception) {
+        this.totalCount.increment();
+
+        Signature signature = Signature.of(exception);
+
+        Occurrences occurrences = this.retained.get(signature);
+        if (occurrences == null) {
+            if (!reserveSlot()) {
+                this.overflowCount.increment();
+                return;
+            }
+
+            Occurrences created = new Occurrences(exception, this.sequence.getAndIncrement());
+            occurrences = this.retained.putIfAbsent(signature, created);
+
+            if (occurrences == null) {
+                return;
+            }
+
+            // another thread has retained the same exception first
+            this.retainedCount.decrementAndGet();
+        }
+
+        occurrences.count.increment();
+    }
+
+    /**
+     * Returns the number of all added exceptions.
+     *
+     * @return number of exceptions
+     */
+    public long getTotalCount() {
+        return this.totalCount.sum();
+    }
+
+    /**
+     * Returns the number of added exceptions that are not retained (and not counted per exception)
+     * since the limit of distinct exceptions is reached.
+     *
+     * @return number of exceptions
+     */
+    public long getOverflowCount() {
+        return this.overflowCount.sum();
+    }
+
+    /**
+     * Checks if any exception was added.
+     *
+     * @return {@code true} if there are no exceptions
+     */
+    public boolean isEmpty() {
+        return this.totalCount.sum() == 0;
+    }
+
+    /**
+     * Returns retained distinct exceptions with their counts, in the order they were first added.
+     *
+     * @return list of exceptions
+     */
+    public List<ExceptionSummary> getExceptions() {
+        List<Occurrences> occurrences = new ArrayList<>(this.retained.values());
+        occurrences.sort(Comparator.comparingLong(entry -> entry.order));
+
+        List<ExceptionSummary> summaries = new ArrayList<>(occurrences.size());
+        for (Occurrences entry : occurrences) {
+            summaries.add(new ExceptionSummary(entry.exception, entry.count.sum()));
+        }
+
+        return summaries;
+    }
+
+    /**
+     * Builds a single exception that describes all the added exceptions:
+     * its message contains counts of distinct exceptions and the retained exceptions are added as suppressed.
+     *
+     * @param message message of the summary exception
+     * @return summary exception, or {@code null} if no exceptions were added
+     */
+    public IllegalStateException toException(String message) {
+        if (isEmpty()) {
+            return null;
+        }
+
+        List<ExceptionSummary> exceptions = getExceptions();
+
+        StringBuilder description = new StringBuilder(message)
+                .append(": ").append(getTotalCount()).append(" exception(s)");
+
+        for (ExceptionSummary summary : exceptions) {
+            description.append(System.lineSeparator())
+                    .append("  ").append(summary.getCount()).append(" x ").append(summary.getException());
+        }
+
+        long overflow = getOverflowCount();
+        if (overflow > 0) {
+            description.append(System.lineSeparator())
+                    .append("  ").append(overflow).append(" x other exceptions");
+        }
+
+        IllegalStateException summaryException = new IllegalStateException(description.toString());
+        for (ExceptionSummary summary : exceptions) {
+            summaryException.addSuppressed(summary.getException());
+        }
+
+        return summaryException;
+    }
+
+    /**
+     * Throws an exception built by {@link #toException(String)} if any exception was added.
+     *
+     * @param message message of the summary exception
+     */
+    public void throwIfAny(String message) {
+        IllegalStateException exception = toException(message);
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    private boolean reserveSlot() {
+        int current;
+        do {
+            current = this.retainedCount.get();
+            if (current >= this.maxRetained) {
+                return false;
+            }
+        } while (!this.retainedCount.compareAndSet(current, current + 1));
+
+        return true;
+    }
+
+    /**
+     * Identity of an exception: its type and its stack trace.
+     * The hash of the stack trace is computed once, and only used to find candidates that are compared frame by frame.
+     */
+    private static final class Signature {
+
+        private final Class<?> type;
+        private final StackTraceElement[] stackTrace;
+        private final int hash;
+
+        private Signature(Class<?> type, StackTraceElement[] stackTrace) {
+            this.type = type;
+            this.stackTrace = stackTrace;
+            this.hash = 31 * type.hashCode() + Arrays.hashCode(stackTrace);
+        }
+
+        private static Signature of(Throwable exception) {
+            return new Signature(exception.getClass(), exception.getStackTrace());
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+
+            if (!(object instanceof Signature)) {
+                return false;
+            }
+
+            Signature other = (Signature) object;
+            return this.hash == other.hash
+                    && this.type == other.type
+                    && Arrays.equals(this.stackTrace, other.stackTrace);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+    }
+
+    /**
+     * First occurrence of a distinct exception and the number of its occurrences.
+     */
+    private static final class Occurrences {
+
+        private final Throwable exception;
+        private final long order;
+        private final LongAdder count = new LongAdder();
+
+        private Occurrences(Throwable exception, long order) {
+            this.exception = exception;
+            this.order = order;
+            this.count.increment();
+        }
+
+    }
+
+}
@@ -0,0 +1,299 @@
+package ice.bricks.exceptions;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional instrumentation of exceptions that are wrapped or suppressed by {@link ExceptionUtils}.
+ * Exceptions are counted per type with striped counters, the recent rate is calculated over a sliding window,
+ * and stack traces are kept only for a sampled fraction of exceptions.
+ *
+ * <pre>
+ *     ExceptionMetrics.get().enable(0.01, Duration.ofMinutes(1));
+ *     // ...
+ *     ExceptionMetrics.get().snapshots().forEach(snapshot -&gt; log.info("{}", snapshot));
+ * </pre>
+ *
+ * Metrics are recorded only when an exception is caught, so successful calls are not affected.
+ * An exception is counted once, by the innermost call of {@link ExceptionUtils} that wraps or suppresses it.
+ * Runtime exceptions rethrown as is are counted by an outer call that handles them, and exceptions caused by
+ * a wrapper of {@link ExceptionUtils} are not counted again, however the wrapper is rethrown or wrapped further.
+ * Metrics can be exposed via JMX with {@link #registerMBean()}.
+ */
+public final class ExceptionMetrics implements ExceptionMetricsMXBean {
+
+    private static final ExceptionMetrics INSTANCE = new ExceptionMetrics();
+
+    private static final int BUCKET_COUNT = 10;
+    private static final StackTraceElement[] NO_STACK_TRACE = new StackTraceElement[0];
+
+    private static final int MAX_CAUSE_DEPTH = 64;
+
+    private static volatile boolean enabled = false;
+
+    private final ConcurrentMap<Class<?>, TypeMetrics> metrics = new ConcurrentHashMap<>();
+
+    private volatile double sampleRate = 0;
+    private volatile long bucketNanos = Duration.ofMinutes(1).toNanos() / BUCKET_COUNT;
+
+    private ExceptionMetrics() {
+    }
+
+    /**
+     * Returns the metrics of exceptions.
+     *
+     * @return metrics
+     */
+    public static ExceptionMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Records an exception if the metrics are enabled, unless it is caused by a wrapper of {@link ExceptionUtils}
+     * that has been recorded already, called only from catch blocks.
+     *
+     * @param exception caught exception
+     */
+    static void record(Throwable exception) {
+        if (enabled && !isWrapped(exception)) {
+            INSTANCE.recordEnabled(exception);
+        }
+    }
+
+    /**
+     * Starts recording of exceptions.
+     *
+     * @param sampleRate fraction of exceptions to keep the stack trace of, from {@code 0} to {@code 1}
+     * @param window duration of the sliding window to calculate the recent rate over
+     */
+    public void enable(double sampleRate, Duration window) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("sampleRate must be in [0, 1]");
+        }
+
+        long windowNanos = window.toNanos();
+        if (windowNanos < BUCKET_COUNT) {
+            throw new IllegalArgumentException("window is too short");
+        }
+
+        this.sampleRate = sampleRate;
+
+        // buckets of a different size are not comparable, so the recent rate starts over
+        long bucketNanos = windowNanos / BUCKET_COUNT;
+        if (this.bucketNanos != bucketNanos) {
+            this.bucketNanos = bucketNanos;
+            this.metrics.values().forEach(TypeMetrics::clearBuckets);
+        }
+
+        enabled = true;
+    }
+
+    /**
+     * Stops recording of exceptions, collected metrics are kept.
+     */
+    public void disable() {
+        enabled = false;
+    }
+
+    /**
+     * Returns snapshots of metrics of all the recorded exception types.
+     *
+     * @return list of snapshots
+     */
+    public List<ExceptionMetricsSnapshot> snapshots() {
+        List<ExceptionMetricsSnapshot> snapshots = new ArrayList<>(this.metrics.size());
+        for (Map.Entry<Class<?>, TypeMetrics> entry : this.metrics.entrySet()) {
+            TypeMetrics typeMetrics = entry.getValue();
+
+            snapshots.add(ExceptionMetricsSnapshot.builder()
+                    .type(entry.getKey().getName())
+                    .count(typeMetrics.count.sum())
+                    .recentRate(typeMetrics.recentRate())
+                    .sampledCount(typeMetrics.sampledCount.sum())
+                    .sampledStackTrace(List.of(typeMetrics.sampledStackTrace.get()))
+                    .build());
+        }
+
+        return snapshots;
+    }
+
+    /**
+     * Registers the metrics in the platform MBean server.
+     *
+     * @return name the metrics are registered with
+     */
+    public ObjectName registerMBean() {
+        try {
+            ObjectName name = getObjectName();
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+
+            return name;
+        }
+        catch (JMException e) {
+            throw new IllegalStateException("Unable to register exception metrics", e);
+        }
+    }
+
+    /**
+     * Removes the metrics from the platform MBean server.
+     */
+    public void unregisterMBean() {
+        try {
+            ObjectName name = getObjectName();
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        }
+        catch (JMException e) {
+            throw new IllegalStateException("Unable to unregister exception metrics", e);
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public long getTotalCount() {
+        long total = 0;
+        for (TypeMetrics typeMetrics : this.metrics.values()) {
+            total += typeMetrics.count.sum();
+        }
+
+        return total;
+    }
+
+    @Override
+    public Map<String, Long> getCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        this.metrics.forEach((type, typeMetrics) -> counts.put(type.getName(), typeMetrics.count.sum()));
+        return counts;
+    }
+
+    @Override
+    public Map<String, Double> getRecentRates() {
+        Map<String, Double> rates = new TreeMap<>();
+        this.metrics.forEach((type, typeMetrics) -> rates.put(type.getName(), typeMetrics.recentRate()));
+        return rates;
+    }
+
+    /**
+     * Removes all the collected metrics.
+     */
+    @Override
+    public void reset() {
+        this.metrics.clear();
+    }
+
+    private void recordEnabled(Throwable exception) {
+        TypeMetrics typeMetrics = this.metrics.computeIfAbsent(exception.getClass(), type -> new TypeMetrics());
+        typeMetrics.count.increment();
+        typeMetrics.currentBucket(this.bucketNanos).count.increment();
+
+        double rate = this.sampleRate;
+        if (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate) {
+            typeMetrics.sampledCount.increment();
+            typeMetrics.sampledStackTrace.set(exception.getStackTrace());
+        }
+    }
+
+    private static boolean isWrapped(Throwable exception) {
+        // the depth is limited in case of a cycle of causes
+        Throwable current = exception;
+        for (int depth = 0; current != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            if (current instanceof ExceptionUtils.Wrapper) {
+                return true;
+            }
+
+            current = current.getCause();
+        }
+
+        return false;
+    }
+
+    private static ObjectName getObjectName() throws JMException {
+        return new ObjectName("ice.bricks.exceptions:type=ExceptionMetrics");
+    }
+
+    /**
+     * Metrics of a single exception type.
+     */
+    private static final class TypeMetrics {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sampledCount = new LongAdder();
+        private final AtomicReference<StackTraceElement[]> sampledStackTrace = new AtomicReference<>(NO_STACK_TRACE);
+        private final Bucket[] buckets = new Bucket[BUCKET_COUNT];
+
+        private TypeMetrics() {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                this.buckets[i] = new Bucket();
+            }
+        }
+
+        private Bucket currentBucket(long bucketNanos) {
+            long epoch = System.nanoTime() / bucketNanos;
+            Bucket bucket = this.buckets[(int) Math.floorMod(epoch, (long) BUCKET_COUNT)];
+
+            long bucketEpoch = bucket.epoch.get();
+            if (bucketEpoch != epoch && bucket.epoch.compareAndSet(bucketEpoch, epoch)) {
+                bucket.count.reset();
+            }
+
+            return bucket;
+        }
+
+        private void clearBuckets() {
+            for (Bucket bucket : this.buckets) {
+                bucket.epoch.set(Long.MIN_VALUE);
+                bucket.count.reset();
+            }
+        }
+
+        private double recentRate() {
+            long bucketNanos = INSTANCE.bucketNanos;
+            long epoch = System.nanoTime() / bucketNanos;
+
+            long count = 0;
+            for (Bucket bucket : this.buckets) {
+                if (bucket.epoch.get() > epoch - BUCKET_COUNT) {
+                    count += bucket.count.sum();
+                }
+            }
+
+            return count / (bucketNanos * BUCKET_COUNT / 1e9);
+        }
+
+    }
+
+    /**
+     * Counter of exceptions within a part of the window.
+     */
+    private static final class Bucket {
+
+        private final AtomicLong epoch = new AtomicLong(Long.MIN_VALUE);
+        private final LongAdder count = new LongAdder();
+
+    }
+
+}
@@ -0,0 +1,20 @@
+package ice.bricks.exceptions;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link ExceptionMetrics}.
+ */
+public interface ExceptionMetricsMXBean {
+
+    boolean isEnabled();
+
+    long getTotalCount();
+
+    Map<String, Long> getCounts();
+
+    Map<String, Double> getRecentRates();
+
+    void reset();
+
+}
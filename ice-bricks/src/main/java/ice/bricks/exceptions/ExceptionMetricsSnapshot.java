@@ -0,0 +1,35 @@
+package ice.bricks.exceptions;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Point-in-time copy of {@link ExceptionMetrics} collected for a single exception type.
+ */
+@Getter
+@Builder
+@ToString
+public final class ExceptionMetricsSnapshot {
+
+    private final String type;
+    private final long count;
+
+    /**
+     * Number of exceptions per second within the sliding window.
+     */
+    private final double recentRate;
+
+    /**
+     * Number of exceptions whose stack trace was sampled.
+     */
+    private final long sampledCount;
+
+    /**
+     * Stack trace of the latest sampled exception, empty if none was sampled.
+     */
+    private final List<StackTraceElement> sampledStackTrace;
+
+}
@@ -0,0 +1,26 @@
+package ice.bricks.exceptions;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Distinct exception collected by {@link ExceptionAggregator} with the number of its occurrences.
+ */
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public final class ExceptionSummary {
+
+    /**
+     * First occurrence of the exception.
+     */
+    private final Throwable exception;
+
+    /**
+     * Number of occurrences of exceptions of the same type thrown from the same place.
+     */
+    private final long count;
+
+}
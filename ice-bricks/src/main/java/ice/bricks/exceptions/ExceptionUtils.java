@@ -3,12 +3,35 @@ package ice.bricks.exceptions;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 
+import java.util.Objects;
+
 /**
  * Contains exceptions-related utility methods.
  */
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public final class ExceptionUtils {
 
+    private static volatile WrappingMode defaultWrappingMode = WrappingMode.FULL;
+
+    /**
+     * Sets the mode used to wrap checked exceptions when it is not specified per call.
+     * {@link WrappingMode#FULL} is used by default.
+     *
+     * @param wrappingMode mode to be used by default
+     */
+    public static void setDefaultWrappingMode(WrappingMode wrappingMode) {
+        defaultWrappingMode = Objects.requireNonNull(wrappingMode, "wrappingMode");
+    }
+
+    /**
+     * Returns the mode used to wrap checked exceptions when it is not specified per call.
+     *
+     * @return default mode
+     */
+    public static WrappingMode getDefaultWrappingMode() {
+        return defaultWrappingMode;
+    }
+
     /**
      * Performs a method call that may throw checked exception, replacing it with runtime {@link IllegalStateException}.
      * Useful to write code without an obligation to catch / handle checked exceptions.
@@ -27,13 +50,28 @@ public final class ExceptionUtils {
      *     ExceptionUtils.runSafe(() -&gt; MethodUtils.invokeMethod(object, methodName));
      * </pre>
      *
+     * The exception is wrapped according to the {@link #getDefaultWrappingMode() default wrapping mode}.
+     * Wrapped and suppressed exceptions can be monitored with {@link ExceptionMetrics}.
+     *
      * @param unsafeOperation ({@link UnsafeOperation}) operation that throws checked exception
      */
     public static void runSafe(UnsafeOperation unsafeOperation) {
+        runSafe(unsafeOperation, defaultWrappingMode);
+    }
+
+    /**
+     * Performs a method call that may throw checked exception, replacing it with runtime {@link IllegalStateException}
+     * created according to a given mode. {@link WrappingMode#STACKLESS} is useful on hot paths
+     * where failures are expected, like retries, since the wrapper does not capture its own stack trace.
+     *
+     * @param unsafeOperation ({@link UnsafeOperation}) operation that throws checked exception
+     * @param wrappingMode mode to wrap the exception
+     */
+    public static void runSafe(UnsafeOperation unsafeOperation, WrappingMode wrappingMode) {
         try {
             unsafeOperation.execute();
         } catch (Throwable e) {
-            throw new IllegalStateException(e);
+            throw wrap(e, wrappingMode);
         }
     }
 
@@ -58,15 +96,84 @@ public final class ExceptionUtils {
      *     boolean check = ExceptionUtils.runSafe(() -&gt; checkFuture.get());
      * </pre>
      *
+     * The exception is wrapped according to the {@link #getDefaultWrappingMode() default wrapping mode}.
+     *
      * @param unsafeProducer ({@link UnsafeProducer}) operation that throws checked exception
      * @param <T> specific type of the result
      * @return result of the operation
      */
     public static <T> T runSafe(UnsafeProducer<T> unsafeProducer) {
+        return runSafe(unsafeProducer, defaultWrappingMode);
+    }
+
+    /**
+     * Performs a method call that returns a result and may throw checked exception,
+     * replacing it with runtime {@link IllegalStateException} created according to a given mode.
+     *
+     * @param unsafeProducer ({@link UnsafeProducer}) operation that throws checked exception
+     * @param wrappingMode mode to wrap the exception
+     * @param <T> specific type of the result
+     * @return result of the operation
+     */
+    public static <T> T runSafe(UnsafeProducer<T> unsafeProducer, WrappingMode wrappingMode) {
+        try {
+            return unsafeProducer.execute();
+        } catch (Throwable e) {
+            throw wrap(e, wrappingMode);
+        }
+    }
+
+    /**
+     * Performs a method call that may throw checked exception, replacing only checked exceptions
+     * with runtime {@link IllegalStateException}. Runtime exceptions and errors are rethrown as is,
+     * so they are not wrapped twice.
+     *
+     * Instead of:
+     * <pre>
+     *     try {
+     *         repository.save(entity);
+     *     } catch (RuntimeException | Error e) {
+     *         throw e;
+     *     } catch (Throwable e) {
+     *         throw new IllegalStateException(e);
+     *     }
+     * </pre>
+     *
+     * the code may look like this:
+     * <pre>
+     *     ExceptionUtils.runSafePropagating(() -&gt; repository.save(entity));
+     * </pre>
+     *
+     * The checked exception is wrapped according to the {@link #getDefaultWrappingMode() default wrapping mode}.
+     *
+     * @param unsafeOperation ({@link UnsafeOperation}) operation that throws checked exception
+     */
+    public static void runSafePropagating(UnsafeOperation unsafeOperation) {
+        try {
+            unsafeOperation.execute();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw wrap(e, defaultWrappingMode);
+        }
+    }
+
+    /**
+     * Performs a method call that returns a result and may throw checked exception,
+     * replacing only checked exceptions with runtime {@link IllegalStateException},
+     * see {@link #runSafePropagating(UnsafeOperation)}.
+     *
+     * @param unsafeProducer ({@link UnsafeProducer}) operation that throws checked exception
+     * @param <T> specific type of the result
+     * @return result of the operation
+     */
+    public static <T> T runSafePropagating(UnsafeProducer<T> unsafeProducer) {
         try {
             return unsafeProducer.execute();
+        } catch (RuntimeException | Error e) {
+            throw e;
         } catch (Throwable e) {
-            throw new IllegalStateException(e);
+            throw wrap(e, defaultWrappingMode);
         }
     }
 
@@ -100,6 +207,7 @@ public final class ExceptionUtils {
         try {
             return unsafeProducer.execute();
         } catch (Throwable e) {
+            ExceptionMetrics.record(e);
             return defaultValue;
         }
     }
@@ -126,6 +234,9 @@ public final class ExceptionUtils {
      *               at ...
      * </pre>
      *
+     * Every chained exception is kept, so for an unbounded number of exceptions
+     * (like failures of a batch loop) {@link ExceptionAggregator} is preferable.
+     *
      * @param suppressed original exception
      * @param suppressor newly occurred exception that suppresses the original one
      * @return suppressor exception with chained suppressed exception
@@ -147,4 +258,35 @@ public final class ExceptionUtils {
         return suppressor;
     }
 
+    private static IllegalStateException wrap(Throwable e, WrappingMode wrappingMode) {
+        ExceptionMetrics.record(e);
+
+        return wrappingMode == WrappingMode.STACKLESS
+                ? new StacklessWrapperException(e)
+                : new WrapperException(e);
+    }
+
+    /**
+     * Marker of exceptions created by {@link #wrap(Throwable, WrappingMode)},
+     * so {@link ExceptionMetrics} does not count a failure again when it meets the wrapper.
+     */
+    interface Wrapper {
+    }
+
+    private static final class WrapperException extends IllegalStateException implements Wrapper {
+
+        private WrapperException(Throwable cause) {
+            super(cause);
+        }
+
+    }
+
+    private static final class StacklessWrapperException extends StacklessException implements Wrapper {
+
+        private StacklessWrapperException(Throwable cause) {
+            super(cause);
+        }
+
+    }
+
 }
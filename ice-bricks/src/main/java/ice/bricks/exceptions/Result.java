@@ -0,0 +1,275 @@
+package ice.bricks.exceptions;
+
+import ice.bricks.io.IoUnsafeProducer;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+/**
+ * Outcome of an operation that is either a value or a failure.
+ * Allows to process operations with expected failures without throwing and without losing the cause.
+ *
+ * Instead of:
+ * <pre>
+ *     List&lt;Document&gt; documents = new ArrayList&lt;&gt;();
+ *     List&lt;Exception&gt; failures = new ArrayList&lt;&gt;();
+ *     for (Path file : files) {
+ *         try {
+ *             documents.add(parser.parse(file));
+ *         }
+ *         catch (Exception e) {
+ *             failures.add(e);
+ *         }
+ *     }
+ * </pre>
+ *
+ * the code may look like this:
+ * <pre>
+ *     Result.Partition&lt;Document&gt; results = files.stream()
+ *             .map(file -&gt; Result.of(() -&gt; parser.parse(file)))
+ *             .collect(Result.partitioning());
+ * </pre>
+ *
+ * Failures keep the original exception, no wrapper (and no stack trace of it) is created.
+ *
+ * @param <T> type of the value
+ */
+public final class Result<T> {
+
+    private final T value;
+    private final Throwable failure;
+
+    private Result(T value, Throwable failure) {
+        this.value = value;
+        this.failure = failure;
+    }
+
+    /**
+     * Creates a successful result.
+     *
+     * @param value value of the result
+     * @param <T> type of the value
+     * @return successful result
+     */
+    public static <T> Result<T> success(T value) {
+        return new Result<>(value, null);
+    }
+
+    /**
+     * Creates a failed result.
+     *
+     * @param failure cause of the failure
+     * @param <T> type of the value
+     * @return failed result
+     */
+    public static <T> Result<T> failure(Throwable failure) {
+        return new Result<>(null, Objects.requireNonNull(failure, "failure"));
+    }
+
+    /**
+     * Creates a failed result with a {@link StacklessException} of a given message,
+     * useful for expected failures that do not originate from an exception.
+     *
+     * @param message description of the failure
+     * @param <T> type of the value
+     * @return failed result
+     */
+    public static <T> Result<T> failure(String message) {
+        return failure(new StacklessException(message));
+    }
+
+    /**
+     * Performs an operation that may throw an exception and captures its outcome.
+     * Errors are propagated, and the interrupted status of the thread is restored
+     * if the operation fails with {@link InterruptedException}.
+     *
+     * @param unsafeProducer ({@link UnsafeProducer}) operation to be performed
+     * @param <T> type of the value
+     * @return result of the operation
+     */
+    public static <T> Result<T> of(UnsafeProducer<? extends T> unsafeProducer) {
+        try {
+            return success(unsafeProducer.execute());
+        }
+        catch (Error e) {
+            throw e;
+        }
+        catch (Throwable e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+
+            return failure(e);
+        }
+    }
+
+    /**
+     * Performs an operation that may throw {@link IOException} and captures its outcome.
+     * Unlike {@link #of(UnsafeProducer)}, runtime exceptions of the operation are propagated.
+     *
+     * @param unsafeProducer ({@link IoUnsafeProducer}) operation to be performed
+     * @param <T> type of the value
+     * @return result of the operation
+     */
+    public static <T> Result<T> ofIo(IoUnsafeProducer<? extends T> unsafeProducer) {
+        try {
+            return success(unsafeProducer.execute());
+        }
+        catch (IOException e) {
+            return failure(e);
+        }
+    }
+
+    /**
+     * Creates a collector that splits results into values and failures, keeping their order.
+     *
+     * @param <T> type of the value
+     * @return collector of results
+     */
+    public static <T> Collector<Result<? extends T>, ?, Partition<T>> partitioning() {
+        return Collector.of(
+                () -> new Partition<T>(new ArrayList<>(), new ArrayList<>()),
+                Partition::add,
+                Partition::addAll);
+    }
+
+    public boolean isSuccess() {
+        return this.failure == null;
+    }
+
+    public boolean isFailure() {
+        return this.failure != null;
+    }
+
+    /**
+     * Returns the value of a successful result, a failure is rethrown: runtime exceptions and errors as is,
+     * checked exceptions wrapped like {@link ExceptionUtils#runSafe(UnsafeProducer)} does.
+     *
+     * @return value of the result
+     */
+    public T get() {
+        if (this.failure != null) {
+            return ExceptionUtils.runSafePropagating(() -> {
+                throw this.failure;
+            });
+        }
+
+        return this.value;
+    }
+
+    /**
+     * Returns the value of a successful result or a default value for a failed one.
+     *
+     * @param defaultValue value to be returned for a failed result
+     * @return value of the result or the default value
+     */
+    public T orElse(T defaultValue) {
+        return this.failure == null ? this.value : defaultValue;
+    }
+
+    /**
+     * Returns the cause of a failed result.
+     *
+     * @return cause of the failure, {@code null} for a successful result
+     */
+    public Throwable getFailure() {
+        return this.failure;
+    }
+
+    /**
+     * Transforms the value of a successful result, a failure of the transformation makes the result failed.
+     *
+     * @param mapper transformation of the value
+     * @param <R> type of the transformed value
+     * @return result of the transformation, or the same failure for a failed result
+     */
+    public <R> Result<R> map(Function<? super T, ? extends R> mapper) {
+        if (this.failure != null) {
+            return castFailure();
+        }
+
+        return of(() -> mapper.apply(this.value));
+    }
+
+    /**
+     * Transforms the value of a successful result into another result.
+     *
+     * @param mapper transformation of the value
+     * @param <R> type of the transformed value
+     * @return result of the transformation, or the same failure for a failed result
+     */
+    public <R> Result<R> flatMap(Function<? super T, Result<R>> mapper) {
+        if (this.failure != null) {
+            return castFailure();
+        }
+
+        try {
+            return Objects.requireNonNull(mapper.apply(this.value), "result");
+        }
+        catch (RuntimeException e) {
+            return failure(e);
+        }
+    }
+
+    /**
+     * Replaces a failure with a value, a failure of the replacement makes the result failed.
+     *
+     * @param recovery function that produces a value from the cause of the failure
+     * @return successful result with the replacement value, or the same result if it is successful
+     */
+    public Result<T> recover(Function<? super Throwable, ? extends T> recovery) {
+        if (this.failure == null) {
+            return this;
+        }
+
+        return of(() -> recovery.apply(this.failure));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> Result<R> castFailure() {
+        // a failed result holds no value, so it can be shared regardless of the value type
+        return (Result<R>) this;
+    }
+
+    @Override
+    public String toString() {
+        return this.failure == null ? "Success[" + this.value + "]" : "Failure[" + this.failure + "]";
+    }
+
+    /**
+     * Values and failures of a group of results.
+     *
+     * @param <T> type of the value
+     */
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    public static final class Partition<T> {
+
+        private final List<T> successes;
+        private final List<Throwable> failures;
+
+        private void add(Result<? extends T> result) {
+            if (result.isSuccess()) {
+                this.successes.add(result.value);
+            }
+            else {
+                this.failures.add(result.failure);
+            }
+        }
+
+        private Partition<T> addAll(Partition<T> other) {
+            this.successes.addAll(other.successes);
+            this.failures.addAll(other.failures);
+            return this;
+        }
+
+    }
+
+}
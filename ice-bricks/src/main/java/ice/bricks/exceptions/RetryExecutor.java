@@ -0,0 +1,288 @@
+package ice.bricks.exceptions;
+
+import ice.bricks.io.IoUnsafeProducer;
+import lombok.Builder;
+import lombok.Singular;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Performs operations with retries on failures, waiting with an exponential backoff between attempts,
+ * and optionally guarding a dependency with a {@link CircuitBreaker}.
+ *
+ * Instead of:
+ * <pre>
+ *     for (int attempt = 1; ; attempt++) {
+ *         try {
+ *             return IoUtils.runSafe(() -&gt; client.fetch(request));
+ *         }
+ *         catch (UncheckedIOException e) {
+ *             if (attempt == 3) {
+ *                 throw e;
+ *             }
+ *             Thread.sleep(100L * attempt);
+ *         }
+ *     }
+ * </pre>
+ *
+ * the code may look like this:
+ * <pre>
+ *     RetryExecutor retry = RetryExecutor.builder()
+ *             .maxAttempts(3)
+ *             .initialDelay(Duration.ofMillis(100))
+ *             .retryOn(IOException.class)
+ *             .circuitBreaker(CircuitBreaker.builder().build())
+ *             .build();
+ *
+ *     Response response = retry.executeIo(() -&gt; client.fetch(request));
+ * </pre>
+ *
+ * Asynchronous execution schedules next attempts with a delay instead of blocking a thread.
+ * Calls rejected by an open circuit breaker fail fast with {@link CircuitBreakerOpenException}
+ * and are not retried; if the breaker opens between attempts, the failure of the last attempt is its cause.
+ */
+public final class RetryExecutor {
+
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+    private static final Duration DEFAULT_INITIAL_DELAY = Duration.ofMillis(100);
+    private static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(10);
+    private static final double DEFAULT_MULTIPLIER = 2;
+    private static final double DEFAULT_JITTER = 0.5;
+
+    private final int maxAttempts;
+    private final long initialDelayNanos;
+    private final long maxDelayNanos;
+    private final double multiplier;
+    private final double jitter;
+    private final Predicate<? super Throwable> retryPredicate;
+    private final CircuitBreaker circuitBreaker;
+    private final Executor executor;
+
+    /**
+     * Creates a retry executor.
+     *
+     * @param maxAttempts maximum number of attempts including the first one, {@code 3} by default
+     * @param initialDelay delay before the second attempt, {@code 100ms} by default
+     * @param maxDelay maximum delay between attempts, {@code 10s} by default
+     * @param multiplier factor the delay grows by after every attempt, {@code 2} by default
+     * @param jitter fraction of a delay that is randomized to spread attempts of concurrent callers,
+     *               {@code 0.5} by default (a delay is picked between 50% and 100% of the backoff)
+     * @param retryOn types of exceptions to be retried
+     * @param retryIf predicate of exceptions to be retried; if neither types nor a predicate are specified,
+     *                all exceptions except errors are retried
+     * @param circuitBreaker circuit breaker to guard attempts with, none by default
+     * @param executor executor to run asynchronous attempts in, the common {@link ForkJoinPool} by default
+     */
+    @Builder
+    private RetryExecutor(Integer maxAttempts, Duration initialDelay, Duration maxDelay, Double multiplier,
+                          Double jitter, @Singular("retryOn") List<Class<? extends Throwable>> retryOn,
+                          Predicate<? super Throwable> retryIf, CircuitBreaker circuitBreaker, Executor executor) {
+
+        this.maxAttempts = Objects.requireNonNullElse(maxAttempts, DEFAULT_MAX_ATTEMPTS);
+        this.initialDelayNanos = Objects.requireNonNullElse(initialDelay, DEFAULT_INITIAL_DELAY).toNanos();
+        this.maxDelayNanos = Objects.requireNonNullElse(maxDelay, DEFAULT_MAX_DELAY).toNanos();
+        this.multiplier = Objects.requireNonNullElse(multiplier, DEFAULT_MULTIPLIER);
+        this.jitter = Objects.requireNonNullElse(jitter, DEFAULT_JITTER);
+        this.retryPredicate = retryPredicate(retryOn, retryIf);
+        this.circuitBreaker = circuitBreaker;
+        this.executor = Objects.requireNonNullElseGet(executor, ForkJoinPool::commonPool);
+
+        if (this.maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxAttempts must be positive");
+        }
+
+        if (this.multiplier < 1) {
+            throw new IllegalArgumentException("multiplier must not be less than 1");
+        }
+
+        if (this.jitter < 0 || this.jitter > 1) {
+            throw new IllegalArgumentException("jitter must be in [0, 1]");
+        }
+    }
+
+    /**
+     * Performs an operation with retries, blocking the calling thread between attempts.
+     * The failure of the last attempt is rethrown: runtime exceptions and errors as is,
+     * checked exceptions wrapped into {@link IllegalStateException}.
+     *
+     * @param unsafeProducer ({@link UnsafeProducer}) operation to be performed
+     * @param <T> type of the result
+     * @return result of the operation
+     */
+    public <T> T execute(UnsafeProducer<T> unsafeProducer) {
+        try {
+            return retry(unsafeProducer);
+        }
+        catch (Throwable e) {
+            return ExceptionUtils.runSafePropagating(() -> {
+                throw e;
+            });
+        }
+    }
+
+    /**
+     * Performs an operation that may throw {@link IOException} with retries, see {@link #execute(UnsafeProducer)}.
+     * The {@link IOException} of the last attempt is rethrown as {@link UncheckedIOException}.
+     *
+     * @param unsafeProducer ({@link IoUnsafeProducer}) operation to be performed
+     * @param <T> type of the result
+     * @return result of the operation
+     */
+    public <T> T executeIo(IoUnsafeProducer<T> unsafeProducer) {
+        try {
+            return retry(unsafeProducer::execute);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        catch (RuntimeException | Error e) {
+            throw e;
+        }
+        catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Performs an operation with retries asynchronously. Attempts are run in the executor,
+     * and next attempts are scheduled after a delay, so no thread is blocked while waiting.
+     * Cancellation of the resulting future stops further attempts.
+     *
+     * @param unsafeProducer ({@link UnsafeProducer}) operation to be performed
+     * @param <T> type of the result
+     * @return future completed with the result of the operation or the failure of the last attempt
+     */
+    public <T> CompletableFuture<T> executeAsync(UnsafeProducer<T> unsafeProducer) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        this.executor.execute(() -> attemptAsync(unsafeProducer, 1, null, result));
+        return result;
+    }
+
+    /**
+     * Performs an operation that may throw {@link IOException} with retries asynchronously,
+     * see {@link #executeAsync(UnsafeProducer)}.
+     *
+     * @param unsafeProducer ({@link IoUnsafeProducer}) operation to be performed
+     * @param <T> type of the result
+     * @return future completed with the result of the operation or the failure of the last attempt
+     */
+    public <T> CompletableFuture<T> executeIoAsync(IoUnsafeProducer<T> unsafeProducer) {
+        return executeAsync(unsafeProducer::execute);
+    }
+
+    private <T> void attemptAsync(UnsafeProducer<T> unsafeProducer, int attempt, Throwable lastFailure,
+                                  CompletableFuture<T> result) {
+
+        if (result.isDone()) {
+            return;
+        }
+
+        try {
+            result.complete(attempt(unsafeProducer, lastFailure));
+        }
+        catch (Throwable e) {
+            if (!shouldRetry(e, attempt)) {
+                result.completeExceptionally(e);
+                return;
+            }
+
+            Executor delayed = CompletableFuture.delayedExecutor(
+                    delayNanos(attempt), TimeUnit.NANOSECONDS, this.executor);
+
+            delayed.execute(() -> attemptAsync(unsafeProducer, attempt + 1, e, result));
+        }
+    }
+
+    private <T> T retry(UnsafeProducer<T> unsafeProducer) throws Throwable {
+        Throwable lastFailure = null;
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return attempt(unsafeProducer, lastFailure);
+            }
+            catch (Throwable e) {
+                if (!shouldRetry(e, attempt)) {
+                    throw e;
+                }
+
+                lastFailure = e;
+            }
+
+            pause(delayNanos(attempt));
+        }
+    }
+
+    private <T> T attempt(UnsafeProducer<T> unsafeProducer, Throwable lastFailure) throws Throwable {
+        if (this.circuitBreaker == null) {
+            return unsafeProducer.execute();
+        }
+
+        CircuitBreaker.Permission permission = this.circuitBreaker.tryAcquirePermission();
+        if (permission == null) {
+            throw new CircuitBreakerOpenException("Circuit breaker is open", lastFailure);
+        }
+
+        T result;
+        try {
+            result = unsafeProducer.execute();
+        }
+        catch (Throwable e) {
+            permission.onFailure();
+            throw e;
+        }
+
+        permission.onSuccess();
+        return result;
+    }
+
+    private boolean shouldRetry(Throwable e, int attempt) {
+        return attempt < this.maxAttempts
+                && !(e instanceof CircuitBreakerOpenException)
+                && this.retryPredicate.test(e);
+    }
+
+    private long delayNanos(int attempt) {
+        double backoff = Math.min(this.initialDelayNanos * Math.pow(this.multiplier, attempt - 1), this.maxDelayNanos);
+        double randomized = backoff * (1 - this.jitter * ThreadLocalRandom.current().nextDouble());
+        return (long) randomized;
+    }
+
+    private static void pause(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the next attempt", e);
+        }
+    }
+
+    private static Predicate<? super Throwable> retryPredicate(List<Class<? extends Throwable>> retryOn,
+                                                               Predicate<? super Throwable> retryIf) {
+
+        if (retryOn.isEmpty() && retryIf == null) {
+            return e -> !(e instanceof Error);
+        }
+
+        return e -> {
+            for (Class<? extends Throwable> type : retryOn) {
+                if (type.isInstance(e)) {
+                    return true;
+                }
+            }
+
+            return retryIf != null && retryIf.test(e);
+        };
+    }
+
+}
@@ -0,0 +1,27 @@
+package ice.bricks.exceptions;
+
+/**
+ * Wrapper of a checked exception that does not capture its own stack trace,
+ * the stack trace of the cause is usually enough to locate the failure.
+ * Creation of the wrapper costs about as much as a regular object allocation.
+ */
+public class StacklessException extends IllegalStateException {
+
+    public StacklessException(String message) {
+        super(message);
+    }
+
+    public StacklessException(Throwable cause) {
+        super(cause);
+    }
+
+    public StacklessException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+
+}
@@ -0,0 +1,18 @@
+package ice.bricks.exceptions;
+
+/**
+ * Defines how {@link ExceptionUtils} wraps checked exceptions into runtime ones.
+ */
+public enum WrappingMode {
+
+    /**
+     * Exceptions are wrapped into {@link IllegalStateException} with a full stack trace.
+     */
+    FULL,
+
+    /**
+     * Exceptions are wrapped into {@link StacklessException}, which skips the stack trace capture.
+     */
+    STACKLESS
+
+}
@@ -0,0 +1,323 @@
+package ice.bricks.io;
+
+import lombok.Builder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-lived appender that collects records from many threads and writes them to a file in batches,
+ * so a single write (and optionally a single fsync) is done for a group of records.
+ *
+ * Instead of:
+ * <pre>
+ *     IoUtils.runSafe(() -&gt; Files.write(auditLog, record, StandardOpenOption.APPEND));
+ * </pre>
+ *
+ * the code may look like this:
+ * <pre>
+ *     BatchingFileAppender appender = BatchingFileAppender.builder()
+ *             .file(auditLog)
+ *             .maxBatchSize(256)
+ *             .flushInterval(Duration.ofMillis(5))
+ *             .fsyncPolicy(BatchingFileAppender.FsyncPolicy.ON_FLUSH)
+ *             .build();
+ *
+ *     appender.append(record).join(); // returns once the record is durable
+ * </pre>
+ *
+ * A batch is flushed when it reaches {@code maxBatchSize} records, when its first record waits longer than
+ * {@code flushInterval}, or on demand with {@link #flush()} / {@link #sync()}.
+ * Records are passed to a single writer thread through a bounded queue,
+ * so producers are blocked if the writer cannot keep up.
+ * Once the writer thread stops, because the appender is closed or because of a failure,
+ * all the records that cannot be written anymore are completed exceptionally, and so are blocked producers.
+ */
+public final class BatchingFileAppender implements Closeable {
+
+    private static final int DEFAULT_MAX_BATCH_SIZE = 1024;
+    private static final int DEFAULT_QUEUE_CAPACITY = 64 * 1024;
+    private static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMillis(10);
+    private static final long IDLE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * Defines when the written data is forced to the storage device.
+     */
+    public enum FsyncPolicy {
+
+        /**
+         * Data is forced only when {@link BatchingFileAppender#sync()} is requested.
+         */
+        NEVER,
+
+        /**
+         * Data is forced after every batch, record futures complete after the data is forced.
+         */
+        ON_FLUSH
+
+    }
+
+    private final FileChannel channel;
+    private final BlockingQueue<PendingRecord> queue;
+    private final int maxBatchSize;
+    private final long flushIntervalNanos;
+    private final FsyncPolicy fsyncPolicy;
+    private final Thread writer;
+
+    private volatile boolean closed = false;
+    private volatile boolean stopped = false;
+    private volatile RuntimeException stopCause;
+
+    /**
+     * Opens a file for appending and starts a writer thread.
+     *
+     * @param file file to append records to, created if it does not exist
+     * @param maxBatchSize maximum number of records written at once, {@code 1024} by default
+     * @param flushInterval maximum time a record waits for a batch to be completed, {@code 10ms} by default
+     * @param fsyncPolicy policy to force the data to the storage device, {@link FsyncPolicy#NEVER} by default
+     * @param queueCapacity maximum number of records waiting to be written, {@code 65536} by default
+     */
+    @Builder
+    private BatchingFileAppender(Path file, Integer maxBatchSize, Duration flushInterval,
+                                 FsyncPolicy fsyncPolicy, Integer queueCapacity) {
+
+        Objects.requireNonNull(file, "file");
+
+        this.maxBatchSize = Objects.requireNonNullElse(maxBatchSize, DEFAULT_MAX_BATCH_SIZE);
+        this.flushIntervalNanos = Objects.requireNonNullElse(flushInterval, DEFAULT_FLUSH_INTERVAL).toNanos();
+        this.fsyncPolicy = Objects.requireNonNullElse(fsyncPolicy, FsyncPolicy.NEVER);
+        this.queue = new ArrayBlockingQueue<>(Objects.requireNonNullElse(queueCapacity, DEFAULT_QUEUE_CAPACITY));
+
+        if (this.maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+
+        this.channel = IoUtils.runSafe(() -> FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+
+        this.writer = new Thread(this::writeLoop, "batching-file-appender-" + file.getFileName());
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Appends a record to the file.
+     *
+     * @param record record to be appended
+     * @return future that completes once the record is written according to the {@link FsyncPolicy}
+     */
+    public CompletableFuture<Void> append(byte[] record) {
+        return enqueue(new PendingRecord(ByteBuffer.wrap(record), false));
+    }
+
+    /**
+     * Appends a record encoded as {@code UTF-8} to the file.
+     *
+     * @param record record to be appended
+     * @return future that completes once the record is written according to the {@link FsyncPolicy}
+     */
+    public CompletableFuture<Void> append(String record) {
+        return append(record.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Requests an immediate write of all the records appended so far.
+     *
+     * @return future that completes once all the previously appended records are written
+     */
+    public CompletableFuture<Void> flush() {
+        return enqueue(new PendingRecord(null, false));
+    }
+
+    /**
+     * Requests an immediate write of all the records appended so far and forces them to the storage device.
+     *
+     * @return future that completes once all the previously appended records are durable
+     */
+    public CompletableFuture<Void> sync() {
+        return enqueue(new PendingRecord(null, true));
+    }
+
+    /**
+     * Writes all the pending records, stops the writer thread and closes the file.
+     */
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+
+        // wakes the writer up so it writes the remaining records and stops immediately
+        put(new PendingRecord(null, this.fsyncPolicy == FsyncPolicy.ON_FLUSH));
+
+        try {
+            this.writer.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.writer.interrupt();
+        }
+
+        IoUtils.runSafe(this.channel::close);
+    }
+
+    private CompletableFuture<Void> enqueue(PendingRecord record) {
+        if (this.closed || this.stopped) {
+            throw stoppedException();
+        }
+
+        put(record);
+        return record.future;
+    }
+
+    private void put(PendingRecord record) {
+        try {
+            // the writer may stop while the queue is full, so waiting is never unbounded
+            while (!this.queue.offer(record, 10, TimeUnit.MILLISECONDS)) {
+                if (this.stopped) {
+                    record.future.completeExceptionally(stoppedException());
+                    return;
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while appending a record", e);
+        }
+
+        // the writer sets the flag before draining the queue, so the record is either drained or failed here
+        if (this.stopped) {
+            failPending(stoppedException());
+        }
+    }
+
+    private IllegalStateException stoppedException() {
+        return new IllegalStateException("Appender is closed", this.stopCause);
+    }
+
+    private void writeLoop() {
+        List<PendingRecord> batch = new ArrayList<>(this.maxBatchSize);
+        long deadline = 0;
+
+        try {
+            while (!this.closed || !this.queue.isEmpty() || !batch.isEmpty()) {
+                long timeout = batch.isEmpty() ? IDLE_POLL_NANOS : deadline - System.nanoTime();
+                PendingRecord next = this.queue.poll(timeout, TimeUnit.NANOSECONDS);
+
+                if (next != null) {
+                    if (batch.isEmpty()) {
+                        deadline = System.nanoTime() + this.flushIntervalNanos;
+                    }
+
+                    batch.add(next);
+                    this.queue.drainTo(batch, this.maxBatchSize - batch.size());
+                }
+
+                if (!batch.isEmpty() && isReadyToWrite(batch, deadline)) {
+                    writeBatch(batch);
+                    batch.clear();
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.stopCause = new IllegalStateException("Appender was interrupted", e);
+        }
+        catch (RuntimeException | Error e) {
+            this.stopCause = new IllegalStateException("Appender failed", e);
+            throw e;
+        }
+        finally {
+            this.stopped = true;
+
+            IllegalStateException exception = stoppedException();
+            batch.forEach(record -> record.future.completeExceptionally(exception));
+            failPending(exception);
+        }
+    }
+
+    private boolean isReadyToWrite(List<PendingRecord> batch, long deadline) {
+        if (batch.size() >= this.maxBatchSize || System.nanoTime() - deadline >= 0) {
+            return true;
+        }
+
+        for (PendingRecord record : batch) {
+            if (record.data == null) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void writeBatch(List<PendingRecord> batch) {
+        boolean syncRequested = this.fsyncPolicy == FsyncPolicy.ON_FLUSH;
+        List<ByteBuffer> buffers = new ArrayList<>(batch.size());
+
+        for (PendingRecord record : batch) {
+            if (record.data != null) {
+                buffers.add(record.data);
+            }
+
+            syncRequested |= record.sync;
+        }
+
+        try {
+            ByteBuffer[] data = buffers.toArray(new ByteBuffer[0]);
+            long remaining = 0;
+            for (ByteBuffer buffer : data) {
+                remaining += buffer.remaining();
+            }
+
+            while (remaining > 0) {
+                remaining -= this.channel.write(data);
+            }
+
+            if (syncRequested) {
+                this.channel.force(false);
+            }
+
+            batch.forEach(record -> record.future.complete(null));
+        }
+        catch (IOException e) {
+            UncheckedIOException exception = new UncheckedIOException(e);
+            batch.forEach(record -> record.future.completeExceptionally(exception));
+        }
+    }
+
+    private void failPending(RuntimeException exception) {
+        List<PendingRecord> pending = new ArrayList<>();
+        this.queue.drainTo(pending);
+        pending.forEach(record -> record.future.completeExceptionally(exception));
+    }
+
+    private static final class PendingRecord {
+
+        private final ByteBuffer data;
+        private final boolean sync;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingRecord(ByteBuffer data, boolean sync) {
+            this.data = data;
+            this.sync = sync;
+        }
+
+    }
+
+}
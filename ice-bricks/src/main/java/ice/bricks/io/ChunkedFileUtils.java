@@ -0,0 +1,163 @@
+package ice.bricks.io;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Contains utility methods to process large line-delimited files in parallel.
+ *
+ * Files are split into byte ranges aligned on line boundaries and read with positional reads,
+ * so all the chunks of a file share a single channel and can be processed concurrently.
+ * Only charsets where a line feed byte cannot be a part of another character are supported:
+ * {@code UTF-8}, {@code ISO-8859-1} and {@code US-ASCII}.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ChunkedFileUtils {
+
+    private static final Set<Charset> SUPPORTED_CHARSETS = Set.of(
+            StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.US_ASCII);
+
+    /**
+     * Splits a file into chunks of approximately a given size, every chunk starts at the beginning of a line.
+     *
+     * @param file file to be split
+     * @param chunkSize desired size of a chunk in bytes
+     * @return list of chunks covering the whole file
+     */
+    public static List<FileChunk> splitByLines(Path file, long chunkSize) {
+        return IoUtils.runSafe(() -> {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return splitByLines(channel, chunkSize);
+            }
+        });
+    }
+
+    /**
+     * Reads all lines from a file as a stream that can be efficiently processed in parallel,
+     * a parallel stream is split by byte offset aligned to line boundaries.
+     * The stream should be closed to release the underlying file.
+     *
+     * Instead of:
+     * <pre>
+     *     Files.lines(path).parallel().map(this::parse).collect(...);
+     * </pre>
+     *
+     * the code may look like this:
+     * <pre>
+     *     try (Stream&lt;String&gt; lines = ChunkedFileUtils.lines(path, StandardCharsets.UTF_8)) {
+     *         lines.parallel().map(this::parse).collect(...);
+     *     }
+     * </pre>
+     *
+     * @param file file to read
+     * @param charset charset of the file
+     * @return stream of lines
+     */
+    public static Stream<String> lines(Path file, Charset charset) {
+        checkCharset(charset);
+
+        FileChannel channel = IoUtils.runSafe(() -> FileChannel.open(file, StandardOpenOption.READ));
+
+        try {
+            return StreamSupport.stream(lineSpliterator(channel, charset), false)
+                    .onClose(() -> IoUtils.runSafe(channel::close));
+        }
+        catch (RuntimeException e) {
+            IoUtils.runSafe(channel::close);
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a spliterator over all lines available in a channel, that splits by byte offset
+     * aligned to line boundaries. The channel is read with positional reads and is not closed by the spliterator.
+     *
+     * @param channel channel to read lines from
+     * @param charset charset of the file
+     * @return spliterator of lines
+     */
+    public static Spliterator<String> lineSpliterator(FileChannel channel, Charset charset) {
+        checkCharset(charset);
+        return new LineSpliterator(channel, charset, 0, IoUtils.runSafe(channel::size));
+    }
+
+    /**
+     * Splits a file into chunks aligned on line boundaries, processes the lines of every chunk in parallel
+     * and reduces the results of individual chunks into a single one in the order of chunks.
+     *
+     * For instance, lines of a file can be counted in the following way:
+     * <pre>
+     *     long count = ChunkedFileUtils.processChunks(path, StandardCharsets.UTF_8, 16 * 1024 * 1024,
+     *             lines -&gt; lines.count(), 0L, Long::sum);
+     * </pre>
+     *
+     * @param file file to process
+     * @param charset charset of the file
+     * @param chunkSize desired size of a chunk in bytes
+     * @param chunkProcessor function that processes lines of a single chunk
+     * @param identity identity value of the reducer
+     * @param reducer associative function to combine results of chunks
+     * @param <R> type of the result
+     * @return combined result of all chunks
+     */
+    public static <R> R processChunks(Path file, Charset charset, long chunkSize,
+                                      Function<Stream<String>, R> chunkProcessor,
+                                      R identity, BinaryOperator<R> reducer) {
+        checkCharset(charset);
+
+        return IoUtils.runSafe(() -> {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return splitByLines(channel, chunkSize).parallelStream()
+                        .map(chunk -> {
+                            LineSpliterator lines = new LineSpliterator(
+                                    channel, charset, chunk.getStart(), chunk.getEnd());
+                            return chunkProcessor.apply(StreamSupport.stream(lines, false));
+                        })
+                        .reduce(identity, reducer);
+            }
+        });
+    }
+
+    private static List<FileChunk> splitByLines(FileChannel channel, long chunkSize) throws IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+
+        long size = channel.size();
+        List<FileChunk> chunks = new ArrayList<>((int) Math.min(size / chunkSize + 1, Integer.MAX_VALUE));
+
+        long start = 0;
+        while (start < size) {
+            long end = size - start > chunkSize
+                    ? LineSpliterator.findLineStart(channel, start + chunkSize, size)
+                    : size;
+
+            chunks.add(new FileChunk(start, end));
+            start = end;
+        }
+
+        return chunks;
+    }
+
+    private static void checkCharset(Charset charset) {
+        if (!SUPPORTED_CHARSETS.contains(charset)) {
+            throw new IllegalArgumentException(charset.name() + " is not supported");
+        }
+    }
+
+}
@@ -0,0 +1,34 @@
+package ice.bricks.io;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Represents a byte range of a file that starts at the beginning of a line
+ * and ends right after a line terminator or at the end of the file.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public final class FileChunk {
+
+    /**
+     * Inclusive start offset of the chunk.
+     */
+    private final long start;
+
+    /**
+     * Exclusive end offset of the chunk.
+     */
+    private final long end;
+
+    public long getLength() {
+        return this.end - this.start;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + this.start + ", " + this.end + ")";
+    }
+
+}
@@ -0,0 +1,491 @@
+package ice.bricks.io;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Collects byte, operation and latency counters of IO done through instrumented streams and channels.
+ * Metrics are aggregated per tag, so IO can be attributed to a certain subsystem.
+ * Counters are striped, so instrumented resources can be used concurrently without contention.
+ *
+ * Instrumented resources are transparent for {@link IoUtils#tryAndClose(IoUnsafeProducer, IoUnsafeConsumer)}:
+ * <pre>
+ *     IoMetrics metrics = IoMetrics.forTag("audit");
+ *     IoUtils.tryAndClose(metrics.inputStream(() -&gt; Files.newInputStream(path)), this::readData);
+ *
+ *     IoMetricsSnapshot snapshot = metrics.snapshot();
+ * </pre>
+ *
+ * Metrics of a tag can be exposed via JMX with {@link #registerMBean()}.
+ */
+public final class IoMetrics implements IoMetricsMXBean {
+
+    private static final ConcurrentMap<String, IoMetrics> METRICS = new ConcurrentHashMap<>();
+
+    private final String tag;
+
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder readOperations = new LongAdder();
+    private final LongAdder writeOperations = new LongAdder();
+    private final LongAdder readTimeNanos = new LongAdder();
+    private final LongAdder writeTimeNanos = new LongAdder();
+
+    private IoMetrics(String tag) {
+        this.tag = tag;
+    }
+
+    /**
+     * Returns metrics of a given tag, creating them on first access.
+     *
+     * @param tag tag to attribute IO to
+     * @return metrics of the tag
+     */
+    public static IoMetrics forTag(String tag) {
+        return METRICS.computeIfAbsent(tag, IoMetrics::new);
+    }
+
+    /**
+     * Returns snapshots of metrics of all the known tags.
+     *
+     * @return list of snapshots
+     */
+    public static List<IoMetricsSnapshot> snapshots() {
+        return METRICS.values().stream()
+                .map(IoMetrics::snapshot)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Wraps an input stream to collect metrics of read operations.
+     *
+     * @param inputStream stream to be instrumented
+     * @return instrumented stream
+     */
+    public InputStream instrument(InputStream inputStream) {
+        return new InstrumentedInputStream(inputStream);
+    }
+
+    /**
+     * Wraps an output stream to collect metrics of write operations.
+     *
+     * @param outputStream stream to be instrumented
+     * @return instrumented stream
+     */
+    public OutputStream instrument(OutputStream outputStream) {
+        return new InstrumentedOutputStream(outputStream);
+    }
+
+    /**
+     * Wraps a channel to collect metrics of read and write operations.
+     * A {@link FileChannel} is wrapped with {@link #instrument(FileChannel)}, so the result can be cast back to it.
+     *
+     * @param channel channel to be instrumented
+     * @return instrumented channel
+     */
+    public ByteChannel instrument(ByteChannel channel) {
+        if (channel instanceof FileChannel) {
+            return instrument((FileChannel) channel);
+        }
+
+        return new InstrumentedByteChannel(channel);
+    }
+
+    /**
+     * Wraps a file channel to collect metrics of read and write operations, including positional ones and transfers.
+     * All other operations, such as {@link FileChannel#force(boolean)} or {@link FileChannel#map}, are delegated as is.
+     *
+     * @param channel channel to be instrumented
+     * @return instrumented channel
+     */
+    public FileChannel instrument(FileChannel channel) {
+        return new InstrumentedFileChannel(channel);
+    }
+
+    /**
+     * Decorates a supplier of input streams, so every supplied stream is instrumented.
+     *
+     * @param supplier supplier of streams
+     * @return supplier of instrumented streams
+     */
+    public IoUnsafeProducer<InputStream> inputStream(IoUnsafeProducer<? extends InputStream> supplier) {
+        return () -> instrument(supplier.execute());
+    }
+
+    /**
+     * Decorates a supplier of output streams, so every supplied stream is instrumented.
+     *
+     * @param supplier supplier of streams
+     * @return supplier of instrumented streams
+     */
+    public IoUnsafeProducer<OutputStream> outputStream(IoUnsafeProducer<? extends OutputStream> supplier) {
+        return () -> instrument(supplier.execute());
+    }
+
+    /**
+     * Decorates a supplier of channels, so every supplied channel is instrumented.
+     *
+     * @param supplier supplier of channels
+     * @return supplier of instrumented channels
+     */
+    public IoUnsafeProducer<ByteChannel> channel(IoUnsafeProducer<? extends ByteChannel> supplier) {
+        return () -> instrument(supplier.execute());
+    }
+
+    /**
+     * Decorates a supplier of file channels, so every supplied channel is instrumented.
+     *
+     * @param supplier supplier of channels
+     * @return supplier of instrumented channels
+     */
+    public IoUnsafeProducer<FileChannel> fileChannel(IoUnsafeProducer<? extends FileChannel> supplier) {
+        return () -> instrument(supplier.execute());
+    }
+
+    /**
+     * Returns a point-in-time copy of the metrics.
+     *
+     * @return snapshot of the metrics
+     */
+    public IoMetricsSnapshot snapshot() {
+        return IoMetricsSnapshot.builder()
+                .tag(this.tag)
+                .bytesRead(getBytesRead())
+                .bytesWritten(getBytesWritten())
+                .readOperations(getReadOperations())
+                .writeOperations(getWriteOperations())
+                .readTimeNanos(getReadTimeNanos())
+                .writeTimeNanos(getWriteTimeNanos())
+                .build();
+    }
+
+    /**
+     * Resets all the counters.
+     */
+    public void reset() {
+        this.bytesRead.reset();
+        this.bytesWritten.reset();
+        this.readOperations.reset();
+        this.writeOperations.reset();
+        this.readTimeNanos.reset();
+        this.writeTimeNanos.reset();
+    }
+
+    /**
+     * Registers the metrics in the platform MBean server.
+     *
+     * @return name the metrics are registered with
+     */
+    public ObjectName registerMBean() {
+        try {
+            ObjectName name = getObjectName();
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+
+            return name;
+        }
+        catch (JMException e) {
+            throw new IllegalStateException("Unable to register IO metrics of '" + this.tag + "'", e);
+        }
+    }
+
+    /**
+     * Removes the metrics from the platform MBean server.
+     */
+    public void unregisterMBean() {
+        try {
+            ObjectName name = getObjectName();
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        }
+        catch (JMException e) {
+            throw new IllegalStateException("Unable to unregister IO metrics of '" + this.tag + "'", e);
+        }
+    }
+
+    @Override
+    public String getTag() {
+        return this.tag;
+    }
+
+    @Override
+    public long getBytesRead() {
+        return this.bytesRead.sum();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return this.bytesWritten.sum();
+    }
+
+    @Override
+    public long getReadOperations() {
+        return this.readOperations.sum();
+    }
+
+    @Override
+    public long getWriteOperations() {
+        return this.writeOperations.sum();
+    }
+
+    @Override
+    public long getReadTimeNanos() {
+        return this.readTimeNanos.sum();
+    }
+
+    @Override
+    public long getWriteTimeNanos() {
+        return this.writeTimeNanos.sum();
+    }
+
+    private ObjectName getObjectName() throws JMException {
+        return new ObjectName("ice.bricks.io:type=IoMetrics,tag=" + ObjectName.quote(this.tag));
+    }
+
+    private void recordRead(long bytes, long startNanos) {
+        this.readTimeNanos.add(System.nanoTime() - startNanos);
+        this.readOperations.increment();
+
+        if (bytes > 0) {
+            this.bytesRead.add(bytes);
+        }
+    }
+
+    private void recordWrite(long bytes, long startNanos) {
+        this.writeTimeNanos.add(System.nanoTime() - startNanos);
+        this.writeOperations.increment();
+
+        if (bytes > 0) {
+            this.bytesWritten.add(bytes);
+        }
+    }
+
+    private final class InstrumentedInputStream extends FilterInputStream {
+
+        private InstrumentedInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            long start = System.nanoTime();
+            int value = this.in.read();
+            recordRead(value < 0 ? 0 : 1, start);
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            long start = System.nanoTime();
+            int read = this.in.read(buffer, offset, length);
+            recordRead(read, start);
+            return read;
+        }
+
+    }
+
+    private final class InstrumentedOutputStream extends FilterOutputStream {
+
+        private InstrumentedOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int value) throws IOException {
+            long start = System.nanoTime();
+            this.out.write(value);
+            recordWrite(1, start);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            long start = System.nanoTime();
+            this.out.write(buffer, offset, length);
+            recordWrite(length, start);
+        }
+
+    }
+
+    private final class InstrumentedByteChannel implements ByteChannel {
+
+        private final ByteChannel channel;
+
+        private InstrumentedByteChannel(ByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read(ByteBuffer destination) throws IOException {
+            long start = System.nanoTime();
+            int read = this.channel.read(destination);
+            recordRead(read, start);
+            return read;
+        }
+
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            long start = System.nanoTime();
+            int written = this.channel.write(source);
+            recordWrite(written, start);
+            return written;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return this.channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.channel.close();
+        }
+
+    }
+
+    private final class InstrumentedFileChannel extends FileChannel {
+
+        private final FileChannel channel;
+
+        private InstrumentedFileChannel(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read(ByteBuffer destination) throws IOException {
+            long start = System.nanoTime();
+            int read = this.channel.read(destination);
+            recordRead(read, start);
+            return read;
+        }
+
+        @Override
+        public long read(ByteBuffer[] destinations, int offset, int length) throws IOException {
+            long start = System.nanoTime();
+            long read = this.channel.read(destinations, offset, length);
+            recordRead(read, start);
+            return read;
+        }
+
+        @Override
+        public int read(ByteBuffer destination, long position) throws IOException {
+            long start = System.nanoTime();
+            int read = this.channel.read(destination, position);
+            recordRead(read, start);
+            return read;
+        }
+
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            long start = System.nanoTime();
+            int written = this.channel.write(source);
+            recordWrite(written, start);
+            return written;
+        }
+
+        @Override
+        public long write(ByteBuffer[] sources, int offset, int length) throws IOException {
+            long start = System.nanoTime();
+            long written = this.channel.write(sources, offset, length);
+            recordWrite(written, start);
+            return written;
+        }
+
+        @Override
+        public int write(ByteBuffer source, long position) throws IOException {
+            long start = System.nanoTime();
+            int written = this.channel.write(source, position);
+            recordWrite(written, start);
+            return written;
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            long start = System.nanoTime();
+            long transferred = this.channel.transferTo(position, count, target);
+            recordRead(transferred, start);
+            return transferred;
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel source, long position, long count) throws IOException {
+            long start = System.nanoTime();
+            long transferred = this.channel.transferFrom(source, position, count);
+            recordWrite(transferred, start);
+            return transferred;
+        }
+
+        @Override
+        public long position() throws IOException {
+            return this.channel.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            this.channel.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return this.channel.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            this.channel.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            this.channel.force(metaData);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return this.channel.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return this.channel.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return this.channel.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            this.channel.close();
+        }
+
+    }
+
+}
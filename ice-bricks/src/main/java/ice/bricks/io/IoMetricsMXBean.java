@@ -0,0 +1,22 @@
+package ice.bricks.io;
+
+/**
+ * JMX view of {@link IoMetrics} collected for a single tag.
+ */
+public interface IoMetricsMXBean {
+
+    String getTag();
+
+    long getBytesRead();
+
+    long getBytesWritten();
+
+    long getReadOperations();
+
+    long getWriteOperations();
+
+    long getReadTimeNanos();
+
+    long getWriteTimeNanos();
+
+}
@@ -0,0 +1,23 @@
+package ice.bricks.io;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Point-in-time copy of {@link IoMetrics} collected for a single tag.
+ */
+@Getter
+@Builder
+@ToString
+public final class IoMetricsSnapshot {
+
+    private final String tag;
+    private final long bytesRead;
+    private final long bytesWritten;
+    private final long readOperations;
+    private final long writeOperations;
+    private final long readTimeNanos;
+    private final long writeTimeNanos;
+
+}
@@ -0,0 +1,195 @@
+package ice.bricks.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over lines of a byte range of a file.
+ * The range is read with positional reads, so several spliterators can share the same channel,
+ * and it is split by byte offset aligned to the next line terminator.
+ */
+final class LineSpliterator implements Spliterator<String> {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MIN_SPLIT_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final Charset charset;
+
+    private long position;
+    private final long end;
+
+    private ByteBuffer buffer;
+    private byte[] line = new byte[128];
+    private int lineLength;
+
+    LineSpliterator(FileChannel channel, Charset charset, long start, long end) {
+        this.channel = channel;
+        this.charset = charset;
+        this.position = start;
+        this.end = end;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super String> action) {
+        String nextLine = IoUtils.runSafe(this::readLine);
+        if (nextLine == null) {
+            return false;
+        }
+
+        action.accept(nextLine);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super String> action) {
+        String nextLine;
+        while ((nextLine = IoUtils.runSafe(this::readLine)) != null) {
+            action.accept(nextLine);
+        }
+    }
+
+    @Override
+    public Spliterator<String> trySplit() {
+        // splitting is only possible before the traversal has started
+        if (this.buffer != null || this.end - this.position < 2L * MIN_SPLIT_SIZE) {
+            return null;
+        }
+
+        long middle = this.position + (this.end - this.position) / 2;
+        long boundary = IoUtils.runSafe(() -> findLineStart(this.channel, middle, this.end));
+        if (boundary >= this.end) {
+            return null;
+        }
+
+        LineSpliterator prefix = new LineSpliterator(this.channel, this.charset, this.position, boundary);
+        this.position = boundary;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        // number of remaining bytes is an upper bound of the number of remaining lines
+        return this.end - this.position;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.NONNULL;
+    }
+
+    private String readLine() throws IOException {
+        this.lineLength = 0;
+
+        if (this.buffer == null) {
+            this.buffer = ByteBuffer.allocate((int) Math.min(BUFFER_SIZE, Math.max(this.end - this.position, 1)));
+            this.buffer.flip();
+        }
+
+        while (true) {
+            if (!this.buffer.hasRemaining()) {
+                if (this.position >= this.end) {
+                    return this.lineLength > 0 ? decodeLine() : null;
+                }
+
+                fillBuffer();
+            }
+
+            byte[] bytes = this.buffer.array();
+            int from = this.buffer.position();
+            int limit = this.buffer.limit();
+
+            for (int i = from; i < limit; i++) {
+                if (bytes[i] == '\n') {
+                    appendToLine(bytes, from, i - from);
+                    this.buffer.position(i + 1);
+                    return decodeLine();
+                }
+            }
+
+            appendToLine(bytes, from, limit - from);
+            this.buffer.position(limit);
+        }
+    }
+
+    private void fillBuffer() throws IOException {
+        this.buffer.clear();
+        this.buffer.limit((int) Math.min(this.buffer.capacity(), this.end - this.position));
+
+        int read = 0;
+        while (read == 0) {
+            read = this.channel.read(this.buffer, this.position);
+        }
+
+        if (read < 0) {
+            throw new IOException("Unexpected end of file at position " + this.position);
+        }
+
+        this.position += read;
+        this.buffer.flip();
+    }
+
+    private void appendToLine(byte[] bytes, int offset, int length) {
+        if (this.lineLength + length > this.line.length) {
+            this.line = Arrays.copyOf(this.line, Math.max(this.line.length * 2, this.lineLength + length));
+        }
+
+        System.arraycopy(bytes, offset, this.line, this.lineLength, length);
+        this.lineLength += length;
+    }
+
+    private String decodeLine() {
+        int length = this.lineLength;
+        if (length > 0 && this.line[length - 1] == '\r') {
+            length--;
+        }
+
+        return new String(this.line, 0, length, this.charset);
+    }
+
+    /**
+     * Finds the offset of the first line that starts at or after a given position.
+     *
+     * @param channel file channel to read from
+     * @param from position to start from
+     * @param end exclusive end of the search range
+     * @return offset of the line start or {@code end} if there is no line start in the range
+     * @throws IOException if the channel cannot be read
+     */
+    static long findLineStart(FileChannel channel, long from, long end) throws IOException {
+        if (from <= 0) {
+            return 0;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(8 * 1024);
+
+        // the line starts right at the position if it is preceded by a line terminator
+        long position = from - 1;
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                return end;
+            }
+
+            byte[] bytes = buffer.array();
+            for (int i = 0; i < read; i++) {
+                if (bytes[i] == '\n') {
+                    return position + i + 1;
+                }
+            }
+
+            position += read;
+        }
+
+        return end;
+    }
+
+}
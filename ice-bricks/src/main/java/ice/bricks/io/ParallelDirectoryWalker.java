@@ -0,0 +1,339 @@
+package ice.bricks.io;
+
+import lombok.Builder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Walks a file tree in parallel, visiting every directory in a separate fork-join task.
+ * Unlike {@link Files#walk(Path, java.nio.file.FileVisitOption...)} directories are listed concurrently,
+ * and discovered entries are streamed to the caller as soon as they are found, so the order of entries
+ * is not defined except that a directory is always reported before its content.
+ *
+ * The walker can be configured in the following way:
+ * <pre>
+ *     ParallelDirectoryWalker walker = ParallelDirectoryWalker.builder()
+ *             .maxDepth(3)
+ *             .filter(entry -&gt; !entry.getPath().endsWith(".git"))
+ *             .build();
+ *
+ *     try (Stream&lt;PathEntry&gt; entries = walker.walk(Paths.get("/data"))) {
+ *         entries.filter(entry -&gt; entry.getAttributes().isRegularFile()).forEach(this::index);
+ *     }
+ * </pre>
+ *
+ * Closing the stream cancels the walk. While the consumer lags behind, walking tasks wait for space
+ * in the buffer as {@link ForkJoinPool.ManagedBlocker managed blockers}, so the pool may start
+ * compensating threads up to its maximum size; pass a dedicated pool to bound them.
+ * Any {@link IOException} is wrapped into {@link UncheckedIOException} and rethrown to the consumer of the stream, the same way as {@link IoUtils#runSafe(IoUnsafeOperation)} does.
+ */
+@Builder
+public final class ParallelDirectoryWalker {
+
+    private static final Object END_OF_WALK = new Object();
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    /**
+     * Maximum number of directory levels to visit, {@code 0} means that only the starting entry is reported.
+     */
+    @Builder.Default
+    private final int maxDepth = Integer.MAX_VALUE;
+
+    /**
+     * Filter to be applied to every discovered entry except the starting one.
+     * Rejected entries are not reported and rejected directories are not visited at all.
+     */
+    @Builder.Default
+    private final Predicate<PathEntry> filter = entry -> true;
+
+    /**
+     * Defines if symbolic links should be followed.
+     */
+    @Builder.Default
+    private final boolean followLinks = false;
+
+    /**
+     * Pool to run directory listing tasks in.
+     */
+    @Builder.Default
+    private final ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    /**
+     * Maximum number of discovered entries that are not consumed yet,
+     * walking tasks are paused when the limit is reached.
+     */
+    @Builder.Default
+    private final int bufferSize = 1024;
+
+    /**
+     * Walks a file tree starting from a given path.
+     * The returned stream should be closed to stop the walk if it was not fully consumed;
+     * a stream that is abandoned without being closed stops the walk once it is garbage collected.
+     *
+     * @param start starting path
+     * @return stream of discovered entries
+     */
+    public Stream<PathEntry> walk(Path start) {
+        if (this.maxDepth < 0) {
+            throw new IllegalArgumentException("maxDepth is negative");
+        }
+
+        BasicFileAttributes attributes = IoUtils.runSafe(() -> readAttributes(start));
+        PathEntry root = new PathEntry(start, attributes, 0);
+
+        WalkState state = new WalkState();
+        state.start(root);
+
+        // walking tasks reference only the state, so the spliterator becomes unreachable once the stream is abandoned
+        Walk walk = new Walk(state);
+        Cleaner.Cleanable cleanable = CLEANER.register(walk, state::cancel);
+
+        return StreamSupport.stream(walk, false).onClose(cleanable::clean);
+    }
+
+    private BasicFileAttributes readAttributes(Path path) throws IOException {
+        LinkOption[] linkOptions = this.followLinks ? new LinkOption[0] : new LinkOption[] {LinkOption.NOFOLLOW_LINKS};
+        return Files.readAttributes(path, BasicFileAttributes.class, linkOptions);
+    }
+
+    /**
+     * Consumer side of a walk, takes entries published by walking tasks.
+     */
+    private static final class Walk extends Spliterators.AbstractSpliterator<PathEntry> {
+
+        private final WalkState state;
+        private boolean finished = false;
+
+        private Walk(WalkState state) {
+            super(Long.MAX_VALUE, Spliterator.DISTINCT | Spliterator.NONNULL);
+            this.state = state;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super PathEntry> action) {
+            if (this.finished) {
+                return false;
+            }
+
+            Object next;
+            try {
+                next = this.state.entries.take();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.state.cancel();
+                throw new IllegalStateException("Directory walk was interrupted", e);
+            }
+
+            if (next == END_OF_WALK) {
+                this.finished = true;
+
+                RuntimeException exception = this.state.failure.get();
+                if (exception != null) {
+                    throw exception;
+                }
+
+                return false;
+            }
+
+            action.accept((PathEntry) next);
+            return true;
+        }
+
+    }
+
+    /**
+     * Producer side of a walk, shared by walking tasks.
+     */
+    private final class WalkState {
+
+        private final BlockingQueue<Object> entries = new LinkedBlockingQueue<>(bufferSize);
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        private volatile boolean cancelled = false;
+
+        private void start(PathEntry root) {
+            this.entries.add(root);
+
+            if (!root.getAttributes().isDirectory() || maxDepth == 0) {
+                this.entries.add(END_OF_WALK);
+                return;
+            }
+
+            pool.execute(() -> {
+                try {
+                    new WalkTask(root, null).invoke();
+                }
+                catch (RuntimeException e) {
+                    fail(e);
+                }
+                finally {
+                    publish(END_OF_WALK);
+                }
+            });
+        }
+
+        private void publish(Object entry) {
+            if (this.entries.offer(entry)) {
+                return;
+            }
+
+            try {
+                // lets the pool compensate for the blocked worker while the consumer catches up
+                ForkJoinPool.managedBlock(new Publisher(entry));
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+            }
+        }
+
+        private void fail(RuntimeException exception) {
+            this.failure.compareAndSet(null, exception);
+        }
+
+        private boolean isStopped() {
+            return this.cancelled || this.failure.get() != null;
+        }
+
+        private void cancel() {
+            this.cancelled = true;
+            this.entries.clear();
+        }
+
+        /**
+         * Waits until an entry is taken into the buffer or the walk is cancelled.
+         */
+        private final class Publisher implements ForkJoinPool.ManagedBlocker {
+
+            private final Object entry;
+            private boolean published = false;
+
+            private Publisher(Object entry) {
+                this.entry = entry;
+            }
+
+            @Override
+            public boolean block() throws InterruptedException {
+                while (!this.published && !cancelled) {
+                    this.published = entries.offer(this.entry, 10, TimeUnit.MILLISECONDS);
+                }
+
+                return true;
+            }
+
+            @Override
+            public boolean isReleasable() {
+                if (!this.published && !cancelled) {
+                    this.published = entries.offer(this.entry);
+                }
+
+                return this.published || cancelled;
+            }
+
+        }
+
+        private final class WalkTask extends RecursiveAction {
+
+            private final PathEntry directory;
+            private final WalkTask parent;
+
+            private WalkTask(PathEntry directory, WalkTask parent) {
+                this.directory = directory;
+                this.parent = parent;
+            }
+
+            @Override
+            protected void compute() {
+                if (isStopped()) {
+                    return;
+                }
+
+                List<WalkTask> subtasks = new ArrayList<>();
+                int childDepth = this.directory.getDepth() + 1;
+
+                try {
+                    if (followLinks) {
+                        checkLoop();
+                    }
+                }
+                catch (IOException e) {
+                    fail(new UncheckedIOException(e));
+                    return;
+                }
+
+                try (DirectoryStream<Path> children = Files.newDirectoryStream(this.directory.getPath())) {
+                    for (Path child : children) {
+                        if (isStopped()) {
+                            return;
+                        }
+
+                        PathEntry entry = new PathEntry(child, readAttributes(child), childDepth);
+                        if (!filter.test(entry)) {
+                            continue;
+                        }
+
+                        publish(entry);
+
+                        if (entry.getAttributes().isDirectory() && childDepth < maxDepth) {
+                            subtasks.add(new WalkTask(entry, this));
+                        }
+                    }
+                }
+                catch (IOException e) {
+                    fail(new UncheckedIOException(e));
+                    return;
+                }
+                catch (RuntimeException e) {
+                    fail(e);
+                    return;
+                }
+
+                invokeAll(subtasks);
+            }
+
+            private void checkLoop() throws IOException {
+                Path path = this.directory.getPath();
+                Object fileKey = this.directory.getAttributes().fileKey();
+
+                for (WalkTask ancestor = this.parent; ancestor != null; ancestor = ancestor.parent) {
+                    PathEntry ancestorEntry = ancestor.directory;
+
+                    boolean sameFile = fileKey != null
+                            ? Objects.equals(fileKey, ancestorEntry.getAttributes().fileKey())
+                            : Files.isSameFile(path, ancestorEntry.getPath());
+
+                    if (sameFile) {
+                        throw new FileSystemLoopException(path.toString());
+                    }
+                }
+            }
+
+        }
+
+    }
+
+}
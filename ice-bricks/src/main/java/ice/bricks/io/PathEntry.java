@@ -0,0 +1,26 @@
+package ice.bricks.io;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Represents a file system entry discovered by {@link ParallelDirectoryWalker}.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public final class PathEntry {
+
+    private final Path path;
+    private final BasicFileAttributes attributes;
+    private final int depth;
+
+    @Override
+    public String toString() {
+        return this.path.toString();
+    }
+
+}
@@ -0,0 +1,410 @@
+package ice.bricks.io;
+
+import ice.bricks.exceptions.ExceptionUtils;
+import lombok.Builder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Keyed pool of {@link Closeable} resources that complements {@link IoUtils#tryAndClose(IoUnsafeProducer,
+ * IoUnsafeConsumer)}: instead of being closed after every use, a resource is returned to the pool
+ * and reused by the next caller with the same key.
+ *
+ * Instead of:
+ * <pre>
+ *     IoUtils.tryAndClose(() -&gt; FileChannel.open(path), this::readHeader);
+ * </pre>
+ *
+ * the code may look like this:
+ * <pre>
+ *     ResourcePool&lt;Path, FileChannel&gt; pool = ResourcePool.&lt;Path, FileChannel&gt;builder()
+ *             .maxIdlePerKey(4)
+ *             .maxIdleTime(Duration.ofMinutes(1))
+ *             .validator(FileChannel::isOpen)
+ *             .build();
+ *
+ *     pool.tryAndReturn(path, () -&gt; FileChannel.open(path), this::readHeader);
+ * </pre>
+ *
+ * Idle resources are reused in LIFO order, so the least recently used ones stay at the tail of the pool
+ * and expire first. The total number of live resources, both borrowed and idle, can be limited as well:
+ * once the limit is reached a caller evicts an idle resource of another key or waits until one is returned.
+ * Expired idle resources of all keys are swept as a part of borrowing and returning resources,
+ * at most once per {@code maxIdleTime}, so {@link #evictIdle()} does not have to be scheduled.
+ * Evicted resources are closed with {@link IoUtils#runSafe(IoUnsafeOperation)}.
+ *
+ * @param <K> type of the key
+ * @param <T> type of the resource
+ */
+public final class ResourcePool<K, T extends Closeable> implements Closeable {
+
+    private static final int DEFAULT_MAX_IDLE_PER_KEY = 8;
+    private static final long WAIT_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long MIN_EVICTION_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ConcurrentMap<K, IdleResources<T>> idleResources = new ConcurrentHashMap<>();
+
+    private final int maxIdlePerKey;
+    private final long maxIdleNanos;
+    private final Predicate<? super T> validator;
+    private final Semaphore permits;
+    private final long maxWaitNanos;
+    private final AtomicLong nextEvictionNanos;
+
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a new pool.
+     *
+     * @param maxIdlePerKey maximum number of idle resources retained per key, {@code 8} by default
+     * @param maxIdleTime time after which an idle resource is evicted, not limited by default
+     * @param validator predicate that checks if an idle resource can be reused, all resources are valid by default
+     * @param maxTotal maximum number of live resources, both borrowed and idle, over all keys, not limited by default
+     * @param maxWait maximum time to wait for a resource once {@code maxTotal} is reached, not limited by default
+     */
+    @Builder
+    private ResourcePool(Integer maxIdlePerKey, Duration maxIdleTime, Predicate<? super T> validator,
+                         Integer maxTotal, Duration maxWait) {
+
+        this.maxIdlePerKey = Objects.requireNonNullElse(maxIdlePerKey, DEFAULT_MAX_IDLE_PER_KEY);
+        this.maxIdleNanos = maxIdleTime == null ? Long.MAX_VALUE : maxIdleTime.toNanos();
+        this.validator = validator == null ? resource -> true : validator;
+        this.maxWaitNanos = maxWait == null ? Long.MAX_VALUE : maxWait.toNanos();
+        this.nextEvictionNanos = new AtomicLong(System.nanoTime() + evictionIntervalNanos());
+
+        if (this.maxIdlePerKey < 0) {
+            throw new IllegalArgumentException("maxIdlePerKey is negative");
+        }
+
+        if (maxTotal != null && maxTotal <= 0) {
+            throw new IllegalArgumentException("maxTotal must be positive");
+        }
+
+        this.permits = new Semaphore(Objects.requireNonNullElse(maxTotal, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Borrows a resource for a given key, supplies it to the consumer and then returns it to the pool.
+     * A new resource is obtained from the supplier only if there is no valid idle resource available.
+     * If the consumer fails the resource is closed instead of being returned.
+     * When {@code maxTotal} resources are live, the call waits up to {@code maxWait} for one to become available
+     * and then fails with {@link IllegalStateException}.
+     * A closed pool rejects the call with {@link IllegalStateException} as well.
+     *
+     * @param key key of the resource
+     * @param resourceSupplier supplier of a new resource
+     * @param resourceConsumer consumer of the resource
+     */
+    public void tryAndReturn(K key, IoUnsafeProducer<T> resourceSupplier, IoUnsafeConsumer<T> resourceConsumer) {
+        T resource = borrow(key, resourceSupplier);
+
+        try {
+            resourceConsumer.execute(resource);
+        }
+        catch (IOException e) {
+            discard(resource);
+            throw new UncheckedIOException(e);
+        }
+        catch (RuntimeException | Error e) {
+            discard(resource);
+            throw e;
+        }
+
+        release(key, resource);
+    }
+
+    /**
+     * Closes idle resources that exceeded the maximum idle time.
+     *
+     * @return number of evicted resources
+     */
+    public int evictIdle() {
+        long now = System.nanoTime();
+        int evicted = 0;
+
+        for (Map.Entry<K, IdleResources<T>> entry : this.idleResources.entrySet()) {
+            IdleResources<T> resources = entry.getValue();
+            evicted += resources.evictExpired(now, this.maxIdleNanos, this::discard);
+
+            // keys that are not used anymore should not be retained forever,
+            // resources returned to them concurrently are either pushed again or closed here
+            if (resources.size.get() == 0 && this.idleResources.remove(entry.getKey(), resources)) {
+                IdleResource<T> idle;
+                while ((idle = resources.pollLast()) != null) {
+                    discard(idle.resource);
+                }
+            }
+        }
+
+        return evicted;
+    }
+
+    /**
+     * Returns number of idle resources kept by the pool.
+     *
+     * @return number of idle resources
+     */
+    public int getIdleCount() {
+        return this.idleResources.values().stream()
+                .mapToInt(resources -> resources.size.get())
+                .sum();
+    }
+
+    /**
+     * Closes all idle resources, resources borrowed at the moment are closed once returned.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+
+        Throwable failure = null;
+        for (IdleResources<T> resources : this.idleResources.values()) {
+            IdleResource<T> idle;
+            while ((idle = resources.pollLast()) != null) {
+                try {
+                    discard(idle.resource);
+                }
+                catch (RuntimeException e) {
+                    failure = ExceptionUtils.chainExceptions(failure, e);
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw (RuntimeException) failure;
+        }
+    }
+
+    private T borrow(K key, IoUnsafeProducer<T> resourceSupplier) {
+        if (this.closed) {
+            throw new IllegalStateException("Resource pool is closed");
+        }
+
+        evictIdleIfDue();
+
+        long deadline = System.nanoTime() + this.maxWaitNanos;
+
+        while (true) {
+            T idle = pollIdle(key);
+            if (idle != null) {
+                return idle;
+            }
+
+            if (this.permits.tryAcquire() || evictIdleOfAnotherKey(key) && this.permits.tryAcquire()) {
+                break;
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new IllegalStateException("Resource pool is exhausted");
+            }
+
+            try {
+                // resources returned as idle do not release their permits, so they are checked on every slice
+                if (this.permits.tryAcquire(Math.min(remaining, WAIT_SLICE_NANOS), TimeUnit.NANOSECONDS)) {
+                    break;
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a resource", e);
+            }
+        }
+
+        try {
+            return IoUtils.runSafe(resourceSupplier);
+        }
+        catch (RuntimeException | Error e) {
+            this.permits.release();
+            throw e;
+        }
+    }
+
+    private T pollIdle(K key) {
+        IdleResources<T> resources = this.idleResources.get(key);
+        if (resources == null) {
+            return null;
+        }
+
+        long now = System.nanoTime();
+
+        IdleResource<T> idle;
+        while ((idle = resources.pollFirst()) != null) {
+            boolean valid;
+            try {
+                valid = now - idle.releasedAt < this.maxIdleNanos && this.validator.test(idle.resource);
+            }
+            catch (RuntimeException | Error e) {
+                discard(idle.resource);
+                throw e;
+            }
+
+            if (valid) {
+                return idle.resource;
+            }
+
+            discard(idle.resource);
+        }
+
+        return null;
+    }
+
+    private boolean evictIdleOfAnotherKey(K key) {
+        for (Map.Entry<K, IdleResources<T>> entry : this.idleResources.entrySet()) {
+            if (entry.getKey().equals(key)) {
+                continue;
+            }
+
+            IdleResource<T> eldest = entry.getValue().pollLast();
+            if (eldest != null) {
+                discard(eldest.resource);
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void release(K key, T resource) {
+        if (this.closed || this.maxIdlePerKey == 0) {
+            discard(resource);
+            return;
+        }
+
+        evictIdleIfDue();
+
+        IdleResource<T> idle = new IdleResource<>(resource, System.nanoTime());
+        IdleResources<T> resources;
+
+        do {
+            resources = this.idleResources.computeIfAbsent(key, k -> new IdleResources<>());
+            resources.push(idle);
+
+            // resources of a key could be removed by evictIdle() concurrently, the resource is pushed again then
+        } while (this.idleResources.get(key) != resources && resources.remove(idle));
+
+        while (resources.size.get() > this.maxIdlePerKey) {
+            IdleResource<T> eldest = resources.pollLast();
+            if (eldest == null) {
+                break;
+            }
+
+            discard(eldest.resource);
+        }
+
+        // pool could be closed concurrently with returning the resource
+        if (this.closed) {
+            close();
+        }
+    }
+
+    private void evictIdleIfDue() {
+        if (this.maxIdleNanos == Long.MAX_VALUE) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long next = this.nextEvictionNanos.get();
+
+        // a single caller sweeps the pool, others proceed without waiting
+        if (now - next >= 0 && this.nextEvictionNanos.compareAndSet(next, now + evictionIntervalNanos())) {
+            evictIdle();
+        }
+    }
+
+    private long evictionIntervalNanos() {
+        return Math.max(this.maxIdleNanos, MIN_EVICTION_INTERVAL_NANOS);
+    }
+
+    private void discard(T resource) {
+        try {
+            IoUtils.runSafe(resource::close);
+        }
+        finally {
+            this.permits.release();
+        }
+    }
+
+    private static final class IdleResources<T extends Closeable> {
+
+        private final Deque<IdleResource<T>> resources = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        private void push(IdleResource<T> resource) {
+            this.resources.addFirst(resource);
+            this.size.incrementAndGet();
+        }
+
+        private IdleResource<T> pollFirst() {
+            IdleResource<T> resource = this.resources.pollFirst();
+            if (resource != null) {
+                this.size.decrementAndGet();
+            }
+
+            return resource;
+        }
+
+        private boolean remove(IdleResource<T> resource) {
+            if (this.resources.removeFirstOccurrence(resource)) {
+                this.size.decrementAndGet();
+                return true;
+            }
+
+            return false;
+        }
+
+        private IdleResource<T> pollLast() {
+            IdleResource<T> resource = this.resources.pollLast();
+            if (resource != null) {
+                this.size.decrementAndGet();
+            }
+
+            return resource;
+        }
+
+        private int evictExpired(long now, long maxIdleNanos, Consumer<T> discard) {
+            int evicted = 0;
+
+            IdleResource<T> eldest;
+            while ((eldest = this.resources.peekLast()) != null && now - eldest.releasedAt >= maxIdleNanos) {
+                // removal may fail if the resource was borrowed concurrently
+                if (this.resources.removeLastOccurrence(eldest)) {
+                    this.size.decrementAndGet();
+                    discard.accept(eldest.resource);
+                    evicted++;
+                }
+            }
+
+            return evicted;
+        }
+
+    }
+
+    private static final class IdleResource<T extends Closeable> {
+
+        private final T resource;
+        private final long releasedAt;
+
+        private IdleResource(T resource, long releasedAt) {
+            this.resource = resource;
+            this.releasedAt = releasedAt;
+        }
+
+    }
+
+}
@@ -0,0 +1,287 @@
+package ice.bricks.meta;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads the name, the super class, interfaces and annotations of a class out of its class file.
+ * Only the constant pool and class attributes are decoded, fields and methods are skipped.
+ */
+final class ClassFileParser {
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int ACC_MODULE = 0x8000;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELD_REF = 9;
+    private static final int CONSTANT_METHOD_REF = 10;
+    private static final int CONSTANT_INTERFACE_METHOD_REF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private final ByteBuffer buffer;
+
+    // offsets of constant pool entries, right after their tags
+    private int[] constants;
+    private String[] strings;
+
+    private ClassFileParser(byte[] classFile) {
+        this.buffer = ByteBuffer.wrap(classFile);
+    }
+
+    /**
+     * Parses a class file.
+     *
+     * @param classFile content of the class file
+     * @return class description, or {@code null} for a module descriptor
+     * @throws IllegalArgumentException if the content is not a valid class file
+     */
+    @Nullable
+    static ClassInfo parse(byte[] classFile) {
+        try {
+            return new ClassFileParser(classFile).parse();
+        }
+        catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Class file is truncated or malformed", e);
+        }
+    }
+
+    @Nullable
+    private ClassInfo parse() {
+        if (this.buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a class file");
+        }
+
+        // minor and major versions
+        skip(4);
+
+        readConstantPool();
+
+        int accessFlags = readUnsignedShort();
+        if ((accessFlags & ACC_MODULE) != 0) {
+            return null;
+        }
+
+        String name = readClassName(readUnsignedShort());
+
+        int superClassIndex = readUnsignedShort();
+        String superClassName = superClassIndex == 0 ? null : readClassName(superClassIndex);
+
+        int interfaceCount = readUnsignedShort();
+        List<String> interfaceNames = new ArrayList<>(interfaceCount);
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaceNames.add(readClassName(readUnsignedShort()));
+        }
+
+        // fields and methods
+        skipMembers();
+        skipMembers();
+
+        List<String> annotationNames = readAnnotationNames();
+
+        return new ClassInfo(name, superClassName, Collections.unmodifiableList(interfaceNames),
+                annotationNames, accessFlags);
+    }
+
+    private void readConstantPool() {
+        int count = readUnsignedShort();
+        this.constants = new int[count];
+        this.strings = new String[count];
+
+        for (int i = 1; i < count; i++) {
+            int tag = this.buffer.get() & 0xFF;
+            this.constants[i] = this.buffer.position();
+
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    skip(readUnsignedShort());
+                    break;
+                case CONSTANT_CLASS:
+                case CONSTANT_STRING:
+                case CONSTANT_METHOD_TYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    skip(2);
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    skip(3);
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                case CONSTANT_FIELD_REF:
+                case CONSTANT_METHOD_REF:
+                case CONSTANT_INTERFACE_METHOD_REF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    skip(4);
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    // 8-byte constants take two entries
+                    skip(8);
+                    i++;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown constant pool tag " + tag);
+            }
+        }
+    }
+
+    private void skipMembers() {
+        int count = readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            // access flags, name and descriptor
+            skip(6);
+            skipAttributes();
+        }
+    }
+
+    private void skipAttributes() {
+        int count = readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            skip(2);
+            skip(this.buffer.getInt());
+        }
+    }
+
+    private List<String> readAnnotationNames() {
+        List<String> annotationNames = new ArrayList<>();
+
+        int count = readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            String attributeName = readUtf8(readUnsignedShort());
+            int length = this.buffer.getInt();
+            int end = this.buffer.position() + length;
+
+            if (attributeName.equals("RuntimeVisibleAnnotations")
+                    || attributeName.equals("RuntimeInvisibleAnnotations")) {
+
+                int annotationCount = readUnsignedShort();
+                for (int j = 0; j < annotationCount; j++) {
+                    annotationNames.add(descriptorToName(readUtf8(readUnsignedShort())));
+                    skipElementValuePairs();
+                }
+            }
+
+            this.buffer.position(end);
+        }
+
+        return Collections.unmodifiableList(annotationNames);
+    }
+
+    private void skipAnnotation() {
+        // type index
+        skip(2);
+        skipElementValuePairs();
+    }
+
+    private void skipElementValuePairs() {
+        int count = readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            // element name index
+            skip(2);
+            skipElementValue();
+        }
+    }
+
+    private void skipElementValue() {
+        int tag = this.buffer.get() & 0xFF;
+        switch (tag) {
+            case 'e':
+                // enum type and constant name
+                skip(4);
+                break;
+            case '@':
+                skipAnnotation();
+                break;
+            case '[':
+                int count = readUnsignedShort();
+                for (int i = 0; i < count; i++) {
+                    skipElementValue();
+                }
+                break;
+            default:
+                // constant or class index
+                skip(2);
+        }
+    }
+
+    private String readClassName(int classIndex) {
+        int nameIndex = this.buffer.getShort(this.constants[classIndex]) & 0xFFFF;
+        return readUtf8(nameIndex).replace('/', '.');
+    }
+
+    private String readUtf8(int index) {
+        String cached = this.strings[index];
+        if (cached != null) {
+            return cached;
+        }
+
+        int offset = this.constants[index];
+        int length = this.buffer.getShort(offset) & 0xFFFF;
+        String value = decodeModifiedUtf8(this.buffer.array(), offset + 2, length);
+
+        this.strings[index] = value;
+        return value;
+    }
+
+    private int readUnsignedShort() {
+        return this.buffer.getShort() & 0xFFFF;
+    }
+
+    private void skip(int bytes) {
+        this.buffer.position(this.buffer.position() + bytes);
+    }
+
+    private static String descriptorToName(String descriptor) {
+        // annotation types are given as field descriptors: Lpackage/Name;
+        if (descriptor.length() > 2 && descriptor.charAt(0) == 'L' && descriptor.endsWith(";")) {
+            return descriptor.substring(1, descriptor.length() - 1).replace('/', '.');
+        }
+
+        return descriptor;
+    }
+
+    private static String decodeModifiedUtf8(byte[] bytes, int offset, int length) {
+        char[] chars = new char[length];
+        int count = 0;
+        int end = offset + length;
+
+        for (int i = offset; i < end; ) {
+            int b = bytes[i] & 0xFF;
+
+            if (b < 0x80) {
+                chars[count++] = (char) b;
+                i++;
+            }
+            else if ((b & 0xE0) == 0xC0) {
+                chars[count++] = (char) (((b & 0x1F) << 6) | (bytes[i + 1] & 0x3F));
+                i += 2;
+            }
+            else {
+                chars[count++] = (char) (((b & 0x0F) << 12) | ((bytes[i + 1] & 0x3F) << 6) | (bytes[i + 2] & 0x3F));
+                i += 3;
+            }
+        }
+
+        return new String(chars, 0, count);
+    }
+
+}
@@ -0,0 +1,146 @@
+package ice.bricks.meta;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Classes found by {@link ClassScanner}, with lookups by name, annotation and super type.
+ * If several roots contain a class with the same name, the one of the first root is kept,
+ * the same way a class loader resolves it.
+ */
+public final class ClassIndex {
+
+    private final Map<String, ClassInfo> classesByName;
+    private final Map<String, List<ClassInfo>> directSubtypes = new HashMap<>();
+    private final List<String> malformedClassFiles;
+
+    ClassIndex(List<ClassInfo> classes, List<String> malformedClassFiles) {
+        Map<String, ClassInfo> byName = new LinkedHashMap<>();
+        for (ClassInfo info : classes) {
+            byName.putIfAbsent(info.getName(), info);
+        }
+
+        this.classesByName = Collections.unmodifiableMap(byName);
+        this.malformedClassFiles = List.copyOf(malformedClassFiles);
+
+        for (ClassInfo info : byName.values()) {
+            if (info.getSuperClassName() != null) {
+                this.directSubtypes.computeIfAbsent(info.getSuperClassName(), name -> new ArrayList<>()).add(info);
+            }
+
+            for (String interfaceName : info.getInterfaceNames()) {
+                this.directSubtypes.computeIfAbsent(interfaceName, name -> new ArrayList<>()).add(info);
+            }
+        }
+    }
+
+    /**
+     * Returns all the classes.
+     *
+     * @return classes in the order of roots
+     */
+    public List<ClassInfo> getClasses() {
+        return List.copyOf(this.classesByName.values());
+    }
+
+    /**
+     * Returns locations of class files that were skipped, because they could not be parsed.
+     * Only roots that were scanned report them, roots read from the index file do not.
+     *
+     * @return locations of class files, in the order of roots
+     */
+    public List<String> getMalformedClassFiles() {
+        return this.malformedClassFiles;
+    }
+
+    /**
+     * Returns the number of classes.
+     *
+     * @return number of classes
+     */
+    public int size() {
+        return this.classesByName.size();
+    }
+
+    /**
+     * Returns a class by its name, or {@code null} if there is no such class.
+     *
+     * @param name binary name of the class
+     * @return class or {@code null}
+     */
+    @Nullable
+    public ClassInfo findClass(String name) {
+        return this.classesByName.get(name);
+    }
+
+    /**
+     * Returns classes directly annotated with a given annotation.
+     *
+     * @param annotationName binary name of the annotation
+     * @return annotated classes
+     */
+    public List<ClassInfo> findAnnotatedWith(String annotationName) {
+        return this.classesByName.values().stream()
+                .filter(info -> info.isAnnotatedWith(annotationName))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns classes directly annotated with a given annotation.
+     *
+     * @param annotationType annotation
+     * @return annotated classes
+     */
+    public List<ClassInfo> findAnnotatedWith(Class<? extends Annotation> annotationType) {
+        return findAnnotatedWith(annotationType.getName());
+    }
+
+    /**
+     * Returns classes extending or implementing a given type, directly or through other indexed classes.
+     *
+     * @param typeName binary name of the class or interface
+     * @return subtypes
+     */
+    public List<ClassInfo> findSubtypes(String typeName) {
+        List<ClassInfo> result = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+
+        Deque<String> pending = new ArrayDeque<>();
+        pending.add(typeName);
+
+        String current;
+        while ((current = pending.poll()) != null) {
+            for (ClassInfo subtype : this.directSubtypes.getOrDefault(current, List.of())) {
+                if (visited.add(subtype.getName())) {
+                    result.add(subtype);
+                    pending.add(subtype.getName());
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns classes extending or implementing a given type, see {@link #findSubtypes(String)}.
+     *
+     * @param type class or interface
+     * @return subtypes
+     */
+    public List<ClassInfo> findSubtypes(Class<?> type) {
+        return findSubtypes(type.getName());
+    }
+
+}
@@ -0,0 +1,102 @@
+package ice.bricks.meta;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+/**
+ * Describes a class found by {@link ClassScanner} out of its class file, without loading the class.
+ * Names are binary names as returned by {@link Class#getName()}, e.g. {@code java.util.Map$Entry}.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public final class ClassInfo {
+
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ANNOTATION = 0x2000;
+    private static final int ACC_ENUM = 0x4000;
+
+    private final String name;
+
+    @Nullable
+    private final String superClassName;
+
+    private final List<String> interfaceNames;
+    private final List<String> annotationNames;
+    private final int accessFlags;
+
+    /**
+     * Returns the parsed class name.
+     *
+     * @return class name
+     */
+    public ClassName getClassName() {
+        return ClassName.of(this.name);
+    }
+
+    /**
+     * Checks if the class is annotated with an annotation of a given name,
+     * both runtime and class file retention annotations are considered.
+     *
+     * @param annotationName binary name of the annotation
+     * @return {@code true} if the class is annotated
+     */
+    public boolean isAnnotatedWith(String annotationName) {
+        return this.annotationNames.contains(annotationName);
+    }
+
+    /**
+     * Checks if the class is public.
+     *
+     * @return {@code true} if the class is public
+     */
+    public boolean isPublic() {
+        return Modifier.isPublic(this.accessFlags);
+    }
+
+    /**
+     * Checks if the class is abstract, interfaces are abstract as well.
+     *
+     * @return {@code true} if the class is abstract
+     */
+    public boolean isAbstract() {
+        return Modifier.isAbstract(this.accessFlags);
+    }
+
+    /**
+     * Checks if the class is an interface, annotation types are interfaces as well.
+     *
+     * @return {@code true} if the class is an interface
+     */
+    public boolean isInterface() {
+        return (this.accessFlags & ACC_INTERFACE) != 0;
+    }
+
+    /**
+     * Checks if the class is an annotation type.
+     *
+     * @return {@code true} if the class is an annotation type
+     */
+    public boolean isAnnotation() {
+        return (this.accessFlags & ACC_ANNOTATION) != 0;
+    }
+
+    /**
+     * Checks if the class is an enum.
+     *
+     * @return {@code true} if the class is an enum
+     */
+    public boolean isEnum() {
+        return (this.accessFlags & ACC_ENUM) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+
+}
@@ -0,0 +1,417 @@
+package ice.bricks.meta;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Class name parsed once into a package, a simple name, enclosing classes and array dimensions.
+ * Instances are interned, so parsing the same name again returns the same instance,
+ * and parts of the name are returned as {@link CharSequence} views that do not allocate.
+ *
+ * Instead of:
+ * <pre>
+ *     String classPackage = ClassUtils.getClassPackage(canonicalClassName);
+ *     String className = ClassUtils.getClassName(canonicalClassName);
+ * </pre>
+ *
+ * the code may look like this:
+ * <pre>
+ *     ClassName name = ClassName.of(canonicalClassName);
+ *     writer.append(name.getPackageName()).append(name.getSimpleName());
+ * </pre>
+ *
+ * Canonical names ({@code java.util.Map.Entry[]}), binary names ({@code java.util.Map$Entry})
+ * and names returned by {@link Class#getName()} for arrays ({@code [Ljava.util.Map$Entry;}) are supported.
+ * As nested classes are separated with dots in canonical names, package segments are told
+ * from class segments by convention: a class segment starts with an upper case letter.
+ * If no segment does, the last one is the class.
+ *
+ * In binary names {@code $} is a legal character of names too, so it separates nested classes only
+ * if it follows an identifier character and starts an identifier itself: {@code Outer$Inner} is nested,
+ * while {@code $Proxy12}, {@code Outer$1} or {@code Outer$$Lambda$14} are single names.
+ * Names of {@link Class} objects are derived from the class itself and not guessed from the string.
+ */
+public final class ClassName {
+
+    private static final int MAX_INTERNED = 64 * 1024;
+
+    private static final ConcurrentMap<String, ClassName> INTERNED = new ConcurrentHashMap<>();
+
+    private static final ClassValue<ClassName> BY_TYPE = new ClassValue<>() {
+        @Override
+        protected ClassName computeValue(Class<?> type) {
+            return intern(type.getName(), fromType(type));
+        }
+    };
+
+    private final String canonicalName;
+    private final NameSegment packageName;
+    private final NameSegment simpleName;
+    private final int arrayDimensions;
+
+    @Nullable
+    private final ClassName enclosingClass;
+
+    private ClassName(String canonicalName, NameSegment packageName, NameSegment simpleName, int arrayDimensions,
+                      @Nullable ClassName enclosingClass) {
+
+        this.canonicalName = canonicalName;
+        this.packageName = packageName;
+        this.simpleName = simpleName;
+        this.arrayDimensions = arrayDimensions;
+        this.enclosingClass = enclosingClass;
+    }
+
+    /**
+     * Returns a parsed class name, parsing it only if it was not parsed before.
+     * The name is looked up as is, so a lookup of an interned name does not allocate.
+     *
+     * @param name canonical, binary or array class name
+     * @return class name
+     */
+    public static ClassName of(String name) {
+        ClassName interned = INTERNED.get(name);
+        if (interned != null) {
+            return interned;
+        }
+
+        ClassName parsed = parse(name);
+
+        // the table stops growing at its limit, names are still parsed correctly but not interned
+        if (INTERNED.size() >= MAX_INTERNED) {
+            return parsed;
+        }
+
+        ClassName existing = INTERNED.putIfAbsent(name, parsed);
+        return existing == null ? parsed : existing;
+    }
+
+    /**
+     * Returns a name of a class. Enclosing classes are taken from the class itself,
+     * so names containing {@code $} are split the same way as the compiler did.
+     *
+     * @param type class
+     * @return class name
+     */
+    public static ClassName of(Class<?> type) {
+        return BY_TYPE.get(type);
+    }
+
+    /**
+     * Returns the canonical name, e.g. {@code java.util.Map.Entry[]}.
+     *
+     * @return canonical name
+     */
+    public String getCanonicalName() {
+        return this.canonicalName;
+    }
+
+    /**
+     * Returns the package name, or an empty sequence for the default package.
+     *
+     * @return package name
+     */
+    public CharSequence getPackageName() {
+        return this.packageName;
+    }
+
+    /**
+     * Returns the simple name without array dimensions, e.g. {@code Entry} for {@code java.util.Map.Entry[]}.
+     *
+     * @return simple name
+     */
+    public CharSequence getSimpleName() {
+        return this.simpleName;
+    }
+
+    /**
+     * Returns the name of the enclosing class, or {@code null} for a top-level class.
+     * Enclosing classes of arrays are enclosing classes of their components.
+     *
+     * @return enclosing class name or {@code null}
+     */
+    @Nullable
+    public ClassName getEnclosingClass() {
+        return this.enclosingClass;
+    }
+
+    /**
+     * Returns the name of the outermost enclosing class without array dimensions,
+     * e.g. {@code java.util.Map} for {@code java.util.Map.Entry[]}.
+     *
+     * @return top-level class name
+     */
+    public ClassName getTopLevelClass() {
+        ClassName result = this;
+        while (result.enclosingClass != null) {
+            result = result.enclosingClass;
+        }
+
+        return result.arrayDimensions == 0 ? result : result.getComponentClass();
+    }
+
+    /**
+     * Returns the number of array dimensions, {@code 0} if the name is not an array.
+     *
+     * @return array dimensions
+     */
+    public int getArrayDimensions() {
+        return this.arrayDimensions;
+    }
+
+    /**
+     * Checks if the name is an array.
+     *
+     * @return {@code true} if the name is an array
+     */
+    public boolean isArray() {
+        return this.arrayDimensions > 0;
+    }
+
+    /**
+     * Checks if the name is a nested class.
+     *
+     * @return {@code true} if the name is a nested class
+     */
+    public boolean isNested() {
+        return this.enclosingClass != null;
+    }
+
+    /**
+     * Returns the name of array elements without dimensions, or this name if it is not an array.
+     *
+     * @return component class name
+     */
+    public ClassName getComponentClass() {
+        if (this.arrayDimensions == 0) {
+            return this;
+        }
+
+        return of(this.canonicalName.substring(0, this.canonicalName.length() - 2 * this.arrayDimensions));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+
+        return other instanceof ClassName && this.canonicalName.equals(((ClassName) other).canonicalName);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.canonicalName.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return this.canonicalName;
+    }
+
+    private static ClassName intern(String key, ClassName name) {
+        if (INTERNED.size() >= MAX_INTERNED) {
+            return name;
+        }
+
+        ClassName existing = INTERNED.putIfAbsent(key, name);
+        if (existing == null) {
+            return name;
+        }
+
+        if (existing.equals(name)) {
+            return existing;
+        }
+
+        // the class knows its nesting better than a name parsed before
+        INTERNED.replace(key, existing, name);
+        return name;
+    }
+
+    private static ClassName fromType(Class<?> type) {
+        if (type.isArray()) {
+            int dimensions = 0;
+            Class<?> component = type;
+            while (component.isArray()) {
+                component = component.getComponentType();
+                dimensions++;
+            }
+
+            ClassName componentName = of(component);
+            String canonicalName = componentName.canonicalName + "[]".repeat(dimensions);
+
+            return new ClassName(canonicalName,
+                    componentName.packageName.within(canonicalName),
+                    componentName.simpleName.within(canonicalName),
+                    dimensions, componentName.enclosingClass);
+        }
+
+        if (type.isMemberClass()) {
+            ClassName enclosingClass = of(type.getEnclosingClass());
+            String canonicalName = enclosingClass.canonicalName + '.' + type.getSimpleName();
+
+            return new ClassName(canonicalName,
+                    enclosingClass.packageName.within(canonicalName),
+                    new NameSegment(canonicalName, enclosingClass.canonicalName.length() + 1, canonicalName.length()),
+                    0, enclosingClass);
+        }
+
+        // top-level, local, anonymous and hidden classes are named by their binary names as is
+        String name = type.getName();
+        int packageLength = type.isPrimitive() ? 0 : type.getPackageName().length();
+
+        return new ClassName(name,
+                packageLength == 0 ? NameSegment.EMPTY : new NameSegment(name, 0, packageLength),
+                new NameSegment(name, packageLength == 0 ? 0 : packageLength + 1, name.length()),
+                0, null);
+    }
+
+    private static ClassName parse(String name) {
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("Class name is empty");
+        }
+
+        String componentName;
+        int dimensions = 0;
+
+        if (name.charAt(0) == '[') {
+            while (dimensions < name.length() && name.charAt(dimensions) == '[') {
+                dimensions++;
+            }
+
+            componentName = parseDescriptor(name, dimensions);
+        }
+        else {
+            int end = name.length();
+            while (end >= 2 && name.charAt(end - 2) == '[' && name.charAt(end - 1) == ']') {
+                dimensions++;
+                end -= 2;
+            }
+
+            componentName = name.substring(0, end);
+        }
+
+        String canonicalComponent = toCanonical(componentName);
+        String canonicalName = dimensions == 0
+                ? canonicalComponent
+                : canonicalComponent + "[]".repeat(dimensions);
+
+        int classStart = classStart(componentName);
+
+        NameSegment packageName = classStart == 0
+                ? NameSegment.EMPTY
+                : new NameSegment(canonicalName, 0, classStart - 1);
+
+        int simpleNameStart = Math.max(
+                canonicalComponent.lastIndexOf('.') + 1,
+                classStart);
+
+        NameSegment simpleName = new NameSegment(canonicalName, simpleNameStart, canonicalComponent.length());
+
+        ClassName enclosingClass = null;
+        if (simpleNameStart > classStart) {
+            enclosingClass = of(canonicalComponent.substring(0, simpleNameStart - 1));
+        }
+
+        return new ClassName(canonicalName, packageName, simpleName, dimensions, enclosingClass);
+    }
+
+    private static String toCanonical(String componentName) {
+        int separator = nextNestingSeparator(componentName, 0);
+        if (separator < 0) {
+            return componentName;
+        }
+
+        StringBuilder canonical = new StringBuilder(componentName);
+        for (; separator >= 0; separator = nextNestingSeparator(componentName, separator + 1)) {
+            canonical.setCharAt(separator, '.');
+        }
+
+        return canonical.toString();
+    }
+
+    private static int nextNestingSeparator(String componentName, int from) {
+        for (int i = componentName.indexOf('$', from); i >= 0; i = componentName.indexOf('$', i + 1)) {
+            if (isNestingSeparator(componentName, i)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static boolean isNestingSeparator(String componentName, int index) {
+        if (index == 0 || index + 1 >= componentName.length()) {
+            return false;
+        }
+
+        // '$' is a legal identifier character as well, e.g. in $Proxy12, Outer$1 or Outer$$Lambda$14
+        char previous = componentName.charAt(index - 1);
+        char next = componentName.charAt(index + 1);
+
+        return previous != '$' && Character.isJavaIdentifierPart(previous)
+                && next != '$' && Character.isJavaIdentifierStart(next);
+    }
+
+    private static int classStart(String componentName) {
+        // binary names mark nested classes explicitly
+        int nested = nextNestingSeparator(componentName, 0);
+        int searchEnd = nested >= 0 ? nested : componentName.length();
+
+        int segmentStart = 0;
+        while (segmentStart < searchEnd) {
+            if (Character.isUpperCase(componentName.charAt(segmentStart))) {
+                return segmentStart;
+            }
+
+            int dot = componentName.indexOf('.', segmentStart);
+            if (dot < 0 || dot >= searchEnd) {
+                break;
+            }
+
+            segmentStart = dot + 1;
+        }
+
+        // no segment looks like a class, so the last segment before nested classes is the class
+        return componentName.lastIndexOf('.', searchEnd - 1) + 1;
+    }
+
+    private static String parseDescriptor(String name, int dimensions) {
+        if (dimensions >= name.length()) {
+            throw new IllegalArgumentException("Invalid array class name: " + name);
+        }
+
+        char type = name.charAt(dimensions);
+        if (type == 'L' && name.endsWith(";")) {
+            return name.substring(dimensions + 1, name.length() - 1);
+        }
+
+        if (dimensions + 1 != name.length()) {
+            throw new IllegalArgumentException("Invalid array class name: " + name);
+        }
+
+        switch (type) {
+            case 'Z':
+                return "boolean";
+            case 'B':
+                return "byte";
+            case 'C':
+                return "char";
+            case 'S':
+                return "short";
+            case 'I':
+                return "int";
+            case 'J':
+                return "long";
+            case 'F':
+                return "float";
+            case 'D':
+                return "double";
+            default:
+                throw new IllegalArgumentException("Invalid array class name: " + name);
+        }
+    }
+
+}
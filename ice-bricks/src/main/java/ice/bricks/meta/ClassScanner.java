@@ -0,0 +1,348 @@
+package ice.bricks.meta;
+
+import ice.bricks.io.IoUnsafeProducer;
+import ice.bricks.io.IoUtils;
+import ice.bricks.io.ParallelDirectoryWalker;
+import ice.bricks.io.PathEntry;
+import ice.bricks.streams.StreamUtils;
+import lombok.Builder;
+import lombok.Singular;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Finds classes in jars, directories and the runtime image by reading their class files,
+ * without loading the classes.
+ *
+ * Instead of:
+ * <pre>
+ *     for (String className : listClassNames(jar)) {
+ *         Class&lt;?&gt; type = ClassUtils.getClassByName(className);
+ *         if (type != null &amp;&amp; type.isAnnotationPresent(Handler.class)) {
+ *             handlers.add(type);
+ *         }
+ *     }
+ * </pre>
+ *
+ * the code may look like this:
+ * <pre>
+ *     ClassScanner scanner = ClassScanner.builder()
+ *             .includePackage("com.acme.handlers")
+ *             .indexFile(Paths.get("/var/cache/app/classes.idx"))
+ *             .build();
+ *
+ *     List&lt;ClassInfo&gt; handlers = scanner.scanClassPath().findAnnotatedWith(Handler.class);
+ * </pre>
+ *
+ * Roots are scanned in parallel, and so are the class files of every root.
+ * If an index file is given, classes of jars and of the runtime image are saved to it together with
+ * fingerprints of the roots (size and modification time of a jar, version of the runtime), so the next scan,
+ * e.g. after a restart, reads unchanged roots from the index instead of scanning them.
+ * Directories are always scanned, as they usually hold classes being changed.
+ * A corrupted index or an index written with other packages is ignored and replaced.
+ * Class files that cannot be parsed are skipped and reported by {@link ClassIndex#getMalformedClassFiles()}.
+ */
+public final class ClassScanner {
+
+    private static final String CLASS_FILE_SUFFIX = ".class";
+    private static final URI RUNTIME_IMAGE = URI.create("jrt:/");
+
+    private final List<String> includedResourcePrefixes;
+    private final Path indexFile;
+    private final ForkJoinPool pool;
+    private final String configuration;
+
+    /**
+     * Creates a scanner.
+     *
+     * @param includePackages packages to be scanned including their subpackages, all packages by default
+     * @param indexFile file to keep the index in, no index is kept by default
+     * @param pool pool to scan in, the common {@link ForkJoinPool} by default
+     */
+    @Builder
+    private ClassScanner(@Singular("includePackage") List<String> includePackages, Path indexFile,
+                         ForkJoinPool pool) {
+
+        this.includedResourcePrefixes = includePackages.stream()
+                .map(name -> name.replace('.', '/') + '/')
+                .sorted()
+                .collect(Collectors.toUnmodifiableList());
+
+        this.indexFile = indexFile;
+        this.pool = Objects.requireNonNullElseGet(pool, ForkJoinPool::commonPool);
+        this.configuration = String.join(",", this.includedResourcePrefixes);
+    }
+
+    /**
+     * Returns the root of the runtime image, to scan classes of the platform modules.
+     *
+     * @return path of the runtime image modules
+     */
+    public static Path runtimeImage() {
+        return FileSystems.getFileSystem(RUNTIME_IMAGE).getPath("/modules");
+    }
+
+    /**
+     * Scans jars and directories of the class path, as given by the {@code java.class.path} property.
+     *
+     * @return index of found classes
+     */
+    public ClassIndex scanClassPath() {
+        List<Path> roots = Stream.of(System.getProperty("java.class.path", "").split(File.pathSeparator))
+                .filter(entry -> !entry.isEmpty())
+                .map(Paths::get)
+                .collect(Collectors.toList());
+
+        return scan(roots);
+    }
+
+    /**
+     * Scans jars, directories or the {@link #runtimeImage() runtime image}.
+     * Roots that do not exist are skipped.
+     *
+     * @param roots roots to be scanned
+     * @return index of found classes, in the order of roots
+     */
+    public ClassIndex scan(Collection<Path> roots) {
+        Map<String, IndexFile.Root> previous = this.indexFile == null
+                ? Map.of()
+                : IndexFile.read(this.indexFile, this.configuration);
+
+        List<Path> rootList = List.copyOf(roots);
+        List<RootScan> scans = StreamUtils.executeIn(this.pool, () -> rootList.parallelStream()
+                .map(root -> scanRoot(root, previous))
+                .collect(Collectors.toList()));
+
+        if (this.indexFile != null) {
+            updateIndex(previous, scans);
+        }
+
+        List<ClassInfo> classes = new ArrayList<>();
+        List<String> malformedClassFiles = new ArrayList<>();
+        for (RootScan scan : scans) {
+            classes.addAll(scan.classes);
+            malformedClassFiles.addAll(scan.malformedClassFiles);
+        }
+
+        return new ClassIndex(classes, malformedClassFiles);
+    }
+
+    private RootScan scanRoot(Path root, Map<String, IndexFile.Root> previous) {
+        boolean runtimeImage = isRuntimeImage(root);
+
+        if (!runtimeImage && !Files.exists(root)) {
+            return new RootScan(root.toString(), null, List.of(), List.of(), false);
+        }
+
+        BasicFileAttributes attributes = runtimeImage
+                ? null
+                : IoUtils.runSafe(() -> Files.readAttributes(root, BasicFileAttributes.class));
+
+        String key = runtimeImage ? root.toUri().toString() : root.toAbsolutePath().normalize().toString();
+        String fingerprint = fingerprint(runtimeImage, attributes);
+
+        IndexFile.Root indexed = fingerprint == null ? null : previous.get(key);
+        if (indexed != null && indexed.fingerprint.equals(fingerprint)) {
+            return new RootScan(key, fingerprint, indexed.classes, List.of(), false);
+        }
+
+        Queue<String> malformed = new ConcurrentLinkedQueue<>();
+        List<ClassInfo> classes = attributes == null || attributes.isDirectory()
+                ? scanDirectory(root, runtimeImage, malformed)
+                : scanArchive(root, malformed);
+
+        List<String> malformedClassFiles = malformed.stream().sorted().collect(Collectors.toList());
+        return new RootScan(key, fingerprint, classes, malformedClassFiles, fingerprint != null);
+    }
+
+    private List<ClassInfo> scanArchive(Path archive, Queue<String> malformed) {
+        return IoUtils.runSafe(() -> {
+            try (ZipFile zip = new ZipFile(archive.toFile())) {
+                return zip.stream()
+                        .parallel()
+                        .filter(entry -> !entry.isDirectory() && isIncludedClassFile(entry.getName()))
+                        .map(entry -> parse(archive + "!/" + entry.getName(), () -> readEntry(zip, entry), malformed))
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList());
+            }
+        });
+    }
+
+    private List<ClassInfo> scanDirectory(Path directory, boolean runtimeImage, Queue<String> malformed) {
+        ParallelDirectoryWalker walker = ParallelDirectoryWalker.builder()
+                .pool(this.pool)
+                .filter(entry -> !entry.getAttributes().isDirectory()
+                        || isIncludedDirectory(resourceName(directory, entry.getPath(), runtimeImage)))
+                .build();
+
+        try (Stream<PathEntry> entries = walker.walk(directory)) {
+            return entries
+                    .parallel()
+                    .filter(entry -> entry.getAttributes().isRegularFile())
+                    .filter(entry -> isIncludedClassFile(resourceName(directory, entry.getPath(), runtimeImage)))
+                    .map(entry -> parse(
+                            entry.getPath().toString(), () -> Files.readAllBytes(entry.getPath()), malformed))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private void updateIndex(Map<String, IndexFile.Root> previous, List<RootScan> scans) {
+        boolean changed = false;
+        Map<String, IndexFile.Root> roots = new LinkedHashMap<>(previous);
+
+        for (RootScan scan : scans) {
+            if (scan.scanned) {
+                roots.put(scan.key, new IndexFile.Root(scan.fingerprint, scan.classes));
+                changed = true;
+            }
+        }
+
+        // roots that no longer exist are dropped
+        changed |= roots.keySet().removeIf(key -> !key.startsWith(RUNTIME_IMAGE.getScheme())
+                && !Files.exists(Paths.get(key)));
+
+        if (changed) {
+            IndexFile.write(this.indexFile, this.configuration, roots);
+        }
+    }
+
+    private boolean isIncludedClassFile(String resourceName) {
+        if (!resourceName.endsWith(CLASS_FILE_SUFFIX)
+                || resourceName.startsWith("META-INF/")
+                || resourceName.endsWith("module-info.class")
+                || resourceName.endsWith("package-info.class")) {
+
+            return false;
+        }
+
+        if (this.includedResourcePrefixes.isEmpty()) {
+            return true;
+        }
+
+        for (String prefix : this.includedResourcePrefixes) {
+            if (resourceName.startsWith(prefix)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean isIncludedDirectory(String resourceName) {
+        if (this.includedResourcePrefixes.isEmpty() || resourceName.isEmpty()) {
+            return true;
+        }
+
+        String directory = resourceName + '/';
+        for (String prefix : this.includedResourcePrefixes) {
+            // parents of included packages are visited to reach them
+            if (directory.startsWith(prefix) || prefix.startsWith(directory)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static ClassInfo parse(String location, IoUnsafeProducer<byte[]> classFile, Queue<String> malformed) {
+        byte[] bytes = IoUtils.runSafe(classFile);
+
+        try {
+            return ClassFileParser.parse(bytes);
+        }
+        catch (IllegalArgumentException e) {
+            // a single broken class file should not make the other classes of the root unavailable
+            malformed.add(location);
+            return null;
+        }
+    }
+
+    private static byte[] readEntry(ZipFile zip, ZipEntry entry) throws IOException {
+        try (InputStream input = zip.getInputStream(entry)) {
+            return input.readAllBytes();
+        }
+    }
+
+    private static String resourceName(Path root, Path path, boolean runtimeImage) {
+        Path relative = root.relativize(path);
+
+        // classes of the runtime image are nested into module directories
+        int first = runtimeImage ? 1 : 0;
+        if (relative.getNameCount() <= first || relative.toString().isEmpty()) {
+            return "";
+        }
+
+        StringBuilder name = new StringBuilder();
+        for (int i = first; i < relative.getNameCount(); i++) {
+            if (i > first) {
+                name.append('/');
+            }
+            name.append(relative.getName(i));
+        }
+
+        return name.toString();
+    }
+
+    private static boolean isRuntimeImage(Path root) {
+        return RUNTIME_IMAGE.getScheme().equals(root.getFileSystem().provider().getScheme());
+    }
+
+    private static String fingerprint(boolean runtimeImage, BasicFileAttributes attributes) {
+        if (runtimeImage) {
+            return "runtime:" + System.getProperty("java.home") + ':' + Runtime.version();
+        }
+
+        if (attributes.isDirectory()) {
+            return null;
+        }
+
+        return "archive:" + attributes.size() + ':' + attributes.lastModifiedTime().toMillis();
+    }
+
+    /**
+     * Classes of a single root, class files that could not be parsed, and whether they were scanned
+     * or read from the index.
+     */
+    private static final class RootScan {
+
+        private final String key;
+        private final String fingerprint;
+        private final List<ClassInfo> classes;
+        private final List<String> malformedClassFiles;
+        private final boolean scanned;
+
+        private RootScan(String key, String fingerprint, List<ClassInfo> classes, List<String> malformedClassFiles,
+                         boolean scanned) {
+
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.classes = classes;
+            this.malformedClassFiles = malformedClassFiles;
+            this.scanned = scanned;
+        }
+
+    }
+
+}
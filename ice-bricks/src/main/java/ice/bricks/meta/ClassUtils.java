@@ -1,5 +1,6 @@
 package ice.bricks.meta;
 
+import ice.bricks.objects.BoundedCache;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import org.jetbrains.annotations.Nullable;
@@ -10,9 +11,14 @@ import org.jetbrains.annotations.Nullable;
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public final class ClassUtils {
 
+    private static final BoundedCache<String, Class<?>> CLASSES_BY_NAME = BoundedCache.<String, Class<?>>builder()
+            .maximumSize(1024)
+            .build();
+
     /**
      * Returns class package without a class name out of canonical class name,
      * or {@code null} if class has no package defined.
+     * For names that are split repeatedly see {@link ClassName}, which parses a name once.
      *
      * @param canonicalClassName canonical class name
      * @return class package if defined or {@code null}
@@ -28,6 +34,7 @@ public final class ClassUtils {
 
     /**
      * Returns class name out of canonical class name.
+     * For names that are split repeatedly see {@link ClassName}, which parses a name once.
      *
      * @param canonicalClassName canonical class name
      * @return class name
@@ -42,14 +49,27 @@ public final class ClassUtils {
 
     /**
      * Returns class name its string name, or {@code null} if class cannot be loaded.
+     * Loaded classes are cached, so repeated lookups of the same name do not go through the class loader,
+     * while names that cannot be loaded are looked up again on every call.
      *
      * @param className canonical class name
      * @return class looked up by name or {@code null}
      */
     @Nullable
     public static Class<?> getClassByName(String className) {
+        if (className == null) {
+            return null;
+        }
+
+        Class<?> cached = CLASSES_BY_NAME.getIfPresent(className);
+        if (cached != null) {
+            return cached;
+        }
+
         try {
-            return Class.forName(className);
+            Class<?> loaded = Class.forName(className);
+            CLASSES_BY_NAME.put(className, loaded);
+            return loaded;
         }
         catch (Exception ignored) {
             return null;
@@ -0,0 +1,228 @@
+package ice.bricks.meta;
+
+import ice.bricks.io.IoUtils;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistent index of {@link ClassScanner}: classes of every root together with a fingerprint of the root.
+ * All names are written once into a string table and referenced by variable-length indexes.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class IndexFile {
+
+    private static final int MAGIC = 0x1CEB1D58;
+    private static final int VERSION = 1;
+
+    /**
+     * Reads an index, an index that is missing, corrupted, of another version or another scan configuration
+     * is treated as empty, so everything is scanned again.
+     *
+     * @param file index file
+     * @param configuration description of the scan configuration the index must have been written with
+     * @return indexed roots by their keys
+     */
+    static Map<String, Root> read(Path file, String configuration) {
+        if (!Files.isRegularFile(file)) {
+            return Map.of();
+        }
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION || !input.readUTF().equals(configuration)) {
+                return Map.of();
+            }
+
+            String[] strings = new String[readVarInt(input)];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = input.readUTF();
+            }
+
+            int rootCount = readVarInt(input);
+            Map<String, Root> roots = new LinkedHashMap<>(rootCount * 2);
+
+            for (int i = 0; i < rootCount; i++) {
+                String key = strings[readVarInt(input)];
+                String fingerprint = strings[readVarInt(input)];
+
+                int classCount = readVarInt(input);
+                List<ClassInfo> classes = new ArrayList<>(classCount);
+                for (int j = 0; j < classCount; j++) {
+                    classes.add(readClass(input, strings));
+                }
+
+                roots.put(key, new Root(fingerprint, classes));
+            }
+
+            return roots;
+        }
+        catch (IOException | RuntimeException e) {
+            return Map.of();
+        }
+    }
+
+    /**
+     * Writes an index, replacing the existing one atomically.
+     *
+     * @param file index file
+     * @param configuration description of the scan configuration
+     * @param roots indexed roots by their keys
+     */
+    static void write(Path file, String configuration, Map<String, Root> roots) {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        for (Map.Entry<String, Root> root : roots.entrySet()) {
+            index(strings, root.getKey());
+            index(strings, root.getValue().fingerprint);
+
+            for (ClassInfo info : root.getValue().classes) {
+                index(strings, info.getName());
+                if (info.getSuperClassName() != null) {
+                    index(strings, info.getSuperClassName());
+                }
+                info.getInterfaceNames().forEach(name -> index(strings, name));
+                info.getAnnotationNames().forEach(name -> index(strings, name));
+            }
+        }
+
+        IoUtils.runSafe(() -> {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+
+            Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                try (DataOutputStream output = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+
+                    output.writeInt(MAGIC);
+                    output.writeInt(VERSION);
+                    output.writeUTF(configuration);
+
+                    writeVarInt(output, strings.size());
+                    for (String string : strings.keySet()) {
+                        output.writeUTF(string);
+                    }
+
+                    writeVarInt(output, roots.size());
+                    for (Map.Entry<String, Root> root : roots.entrySet()) {
+                        writeVarInt(output, strings.get(root.getKey()));
+                        writeVarInt(output, strings.get(root.getValue().fingerprint));
+
+                        writeVarInt(output, root.getValue().classes.size());
+                        for (ClassInfo info : root.getValue().classes) {
+                            writeClass(output, info, strings);
+                        }
+                    }
+                }
+
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (IOException | UncheckedIOException e) {
+                Files.deleteIfExists(temporary);
+                throw e;
+            }
+        });
+    }
+
+    private static ClassInfo readClass(DataInputStream input, String[] strings) throws IOException {
+        String name = strings[readVarInt(input)];
+
+        int superClassIndex = readVarInt(input);
+        String superClassName = superClassIndex == 0 ? null : strings[superClassIndex - 1];
+
+        int accessFlags = readVarInt(input);
+        List<String> interfaceNames = readNames(input, strings);
+        List<String> annotationNames = readNames(input, strings);
+
+        return new ClassInfo(name, superClassName, interfaceNames, annotationNames, accessFlags);
+    }
+
+    private static void writeClass(DataOutputStream output, ClassInfo info, Map<String, Integer> strings)
+            throws IOException {
+
+        writeVarInt(output, strings.get(info.getName()));
+        writeVarInt(output, info.getSuperClassName() == null ? 0 : strings.get(info.getSuperClassName()) + 1);
+        writeVarInt(output, info.getAccessFlags());
+        writeNames(output, info.getInterfaceNames(), strings);
+        writeNames(output, info.getAnnotationNames(), strings);
+    }
+
+    private static List<String> readNames(DataInputStream input, String[] strings) throws IOException {
+        int count = readVarInt(input);
+        if (count == 0) {
+            return List.of();
+        }
+
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(strings[readVarInt(input)]);
+        }
+
+        return Collections.unmodifiableList(names);
+    }
+
+    private static void writeNames(DataOutputStream output, List<String> names, Map<String, Integer> strings)
+            throws IOException {
+
+        writeVarInt(output, names.size());
+        for (String name : names) {
+            writeVarInt(output, strings.get(name));
+        }
+    }
+
+    private static void index(Map<String, Integer> strings, String string) {
+        strings.putIfAbsent(string, strings.size());
+    }
+
+    private static int readVarInt(DataInputStream input) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = input.readUnsignedByte();
+            result |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+
+        throw new IOException("Malformed variable-length integer");
+    }
+
+    private static void writeVarInt(DataOutputStream output, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        output.writeByte(value);
+    }
+
+    /**
+     * Classes of a root together with the fingerprint of the root they were scanned from.
+     */
+    static final class Root {
+
+        final String fingerprint;
+        final List<ClassInfo> classes;
+
+        Root(String fingerprint, List<ClassInfo> classes) {
+            this.fingerprint = fingerprint;
+            this.classes = classes;
+        }
+
+    }
+
+}
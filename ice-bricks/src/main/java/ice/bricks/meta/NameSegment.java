@@ -0,0 +1,72 @@
+package ice.bricks.meta;
+
+/**
+ * Part of a class name viewed in place, without copying characters.
+ * The string is created once on the first {@link #toString()} call.
+ */
+final class NameSegment implements CharSequence {
+
+    static final NameSegment EMPTY = new NameSegment("", 0, 0);
+
+    private final String source;
+    private final int start;
+    private final int end;
+
+    private String value;
+
+    NameSegment(String source, int start, int end) {
+        this.source = source;
+        this.start = start;
+        this.end = end;
+
+        if (start == 0 && end == source.length()) {
+            this.value = source;
+        }
+    }
+
+    /**
+     * Returns the same part of another name that starts with the same characters as the source name.
+     *
+     * @param name name that has the source name as a prefix
+     * @return segment viewed in the given name
+     */
+    NameSegment within(String name) {
+        return this.end == 0 ? EMPTY : new NameSegment(name, this.start, this.end);
+    }
+
+    @Override
+    public int length() {
+        return this.end - this.start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for length " + length());
+        }
+
+        return this.source.charAt(this.start + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length() || start > end) {
+            throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") is out of bounds");
+        }
+
+        return new NameSegment(this.source, this.start + start, this.start + end);
+    }
+
+    @Override
+    public String toString() {
+        String result = this.value;
+        if (result == null) {
+            // racy initialization is fine, every thread computes the same string
+            result = this.source.substring(this.start, this.end);
+            this.value = result;
+        }
+
+        return result;
+    }
+
+}
@@ -0,0 +1,586 @@
+package ice.bricks.objects;
+
+import lombok.Builder;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Thread-safe cache holding a limited number of entries.
+ *
+ * Instead of:
+ * <pre>
+ *     Map&lt;String, Schema&gt; schemas = new ConcurrentHashMap&lt;&gt;(); // grows forever
+ *     Schema schema = schemas.computeIfAbsent(name, this::loadSchema);
+ * </pre>
+ *
+ * the code may look like this:
+ * <pre>
+ *     BoundedCache&lt;String, Schema&gt; schemas = BoundedCache.&lt;String, Schema&gt;builder()
+ *             .maximumSize(10_000)
+ *             .expireAfterWrite(Duration.ofMinutes(10))
+ *             .build();
+ *
+ *     Schema schema = schemas.get(name, this::loadSchema);
+ * </pre>
+ *
+ * New entries are placed into a small admission window ordered by recency. Entries leaving the window
+ * compete with the least recently used entry of the main space: the one accessed less frequently recently,
+ * as estimated by a count-min sketch, is evicted. This keeps frequently used entries in the cache
+ * when it is swept by one-off lookups.
+ *
+ * Lookups do not take locks: accesses are recorded in striped lossy buffers, and the eviction policy
+ * is updated from them in batches, either when a buffer gets full or on the next write.
+ *
+ * With weak keys, keys are compared by identity, and entries are removed once their keys are garbage collected.
+ * Expired entries are treated as absent and removed when looked up, or by the maintenance of the eviction policy
+ * once they are the least recently used ones of the admission window or the main space.
+ */
+public final class BoundedCache<K, V> {
+
+    private static final int READ_BUFFER_SIZE = 16;
+    private static final int READ_BUFFER_STRIPES =
+            Math.min(16, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+    private static final double WINDOW_FRACTION = 0.01;
+
+    private final long maximumWindowSize;
+    private final long maximumMainSize;
+    private final long expireAfterWriteNanos;
+    private final boolean weakKeys;
+
+    private final ConcurrentHashMap<Object, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final ReferenceQueue<K> keyQueue = new ReferenceQueue<>();
+
+    private final ReadBuffer[] readBuffers = new ReadBuffer[READ_BUFFER_STRIPES];
+    private final Consumer<Node<K, V>> accessRecorder = this::onAccess;
+
+    // fields below are guarded by the eviction lock
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final FrequencySketch sketch;
+    private final Node<K, V> window = Node.sentinel();
+    private final Node<K, V> main = Node.sentinel();
+    private long windowSize;
+    private long mainSize;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * Creates a cache.
+     *
+     * @param maximumSize maximum number of entries
+     * @param expireAfterWrite time an entry is retained for after being written, entries do not expire by default
+     * @param weakKeys whether keys are referenced weakly and compared by identity, {@code false} by default
+     */
+    @Builder
+    private BoundedCache(long maximumSize, Duration expireAfterWrite, Boolean weakKeys) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
+
+        this.maximumWindowSize = Math.max(1, (long) (maximumSize * WINDOW_FRACTION));
+        this.maximumMainSize = maximumSize - this.maximumWindowSize;
+        this.expireAfterWriteNanos = expireAfterWrite == null ? 0 : expireAfterWrite.toNanos();
+        this.weakKeys = Objects.requireNonNullElse(weakKeys, false);
+        this.sketch = new FrequencySketch(maximumSize);
+
+        if (expireAfterWrite != null && this.expireAfterWriteNanos <= 0) {
+            throw new IllegalArgumentException("expireAfterWrite must be positive");
+        }
+
+        for (int i = 0; i < this.readBuffers.length; i++) {
+            this.readBuffers[i] = new ReadBuffer();
+        }
+    }
+
+    /**
+     * Returns a cached value, or {@code null} if there is no value for a key.
+     *
+     * @param key key
+     * @return cached value or {@code null}
+     */
+    @Nullable
+    public V getIfPresent(K key) {
+        Node<K, V> node = this.data.get(lookupKey(key));
+
+        if (node == null) {
+            this.missCount.increment();
+            return null;
+        }
+
+        if (isExpired(node)) {
+            this.missCount.increment();
+            removeExpired(node);
+            return null;
+        }
+
+        this.hitCount.increment();
+        afterRead(node);
+        return node.value;
+    }
+
+    /**
+     * Returns a cached value, computing and caching it if there is no value for a key.
+     * The value is computed outside of any lock, so the function may use the cache itself;
+     * concurrent calls for the same key may compute the value more than once, and the first cached value wins.
+     *
+     * @param key key
+     * @param mappingFunction function computing a value, {@code null} values are not cached
+     * @return cached or computed value, or {@code null} if the function returned {@code null}
+     */
+    @Nullable
+    public V get(K key, Function<? super K, ? extends V> mappingFunction) {
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        V value = mappingFunction.apply(key);
+        if (value == null) {
+            return null;
+        }
+
+        Node<K, V> node = newNode(key, value);
+        AtomicReference<Node<K, V>> replaced = new AtomicReference<>();
+
+        Node<K, V> current = this.data.compute(node.keyReference, (keyReference, existing) -> {
+            if (existing != null && !isExpired(existing)) {
+                return existing;
+            }
+
+            replaced.set(existing);
+            return node;
+        });
+
+        if (current != node) {
+            afterRead(current);
+            return current.value;
+        }
+
+        afterWrite(node, replaced.get());
+        return value;
+    }
+
+    /**
+     * Caches a value, replacing the existing one.
+     *
+     * @param key key
+     * @param value value
+     */
+    public void put(K key, V value) {
+        Node<K, V> node = newNode(key, Objects.requireNonNull(value, "value"));
+        Node<K, V> replaced = this.data.put(node.keyReference, node);
+        afterWrite(node, replaced);
+    }
+
+    /**
+     * Removes a cached value.
+     *
+     * @param key key
+     */
+    public void invalidate(K key) {
+        Node<K, V> removed = this.data.remove(lookupKey(key));
+        if (removed == null) {
+            return;
+        }
+
+        this.evictionLock.lock();
+        try {
+            discard(removed);
+        }
+        finally {
+            this.evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Removes all cached values.
+     */
+    public void invalidateAll() {
+        this.evictionLock.lock();
+        try {
+            for (Object keyReference : this.data.keySet()) {
+                Node<K, V> removed = this.data.remove(keyReference);
+                if (removed != null) {
+                    discard(removed);
+                }
+            }
+
+            maintenance();
+        }
+        finally {
+            this.evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of cached entries, which may include expired entries and entries
+     * whose keys were garbage collected, but not yet removed.
+     *
+     * @return number of entries
+     */
+    public long estimatedSize() {
+        return this.data.size();
+    }
+
+    /**
+     * Applies pending updates of the eviction policy and removes entries whose keys were garbage collected,
+     * as well as expired entries that are the least recently used ones.
+     */
+    public void cleanUp() {
+        this.evictionLock.lock();
+        try {
+            maintenance();
+        }
+        finally {
+            this.evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns statistics of the cache.
+     *
+     * @return snapshot of the statistics
+     */
+    public CacheStats stats() {
+        return CacheStats.builder()
+                .hitCount(this.hitCount.sum())
+                .missCount(this.missCount.sum())
+                .evictionCount(this.evictionCount.sum())
+                .build();
+    }
+
+    private Node<K, V> newNode(K key, V value) {
+        Object keyReference = this.weakKeys ? new WeakKeyReference<>(key, this.keyQueue) : key;
+        long writeTime = this.expireAfterWriteNanos > 0 ? System.nanoTime() : 0;
+        return new Node<>(keyReference, value, writeTime);
+    }
+
+    private Object lookupKey(Object key) {
+        return this.weakKeys ? new LookupKeyReference(key) : key;
+    }
+
+    private boolean isExpired(Node<K, V> node) {
+        return this.expireAfterWriteNanos > 0 && System.nanoTime() - node.writeTime >= this.expireAfterWriteNanos;
+    }
+
+    private void removeExpired(Node<K, V> node) {
+        if (this.data.remove(node.keyReference, node)) {
+            this.evictionLock.lock();
+            try {
+                discard(node);
+            }
+            finally {
+                this.evictionLock.unlock();
+            }
+        }
+    }
+
+    private void afterRead(Node<K, V> node) {
+        int stripe = (int) (Thread.currentThread().getId() * 0x9E3779B9L >>> 16) & (this.readBuffers.length - 1);
+
+        if (!this.readBuffers[stripe].offer(node) && this.evictionLock.tryLock()) {
+            try {
+                maintenance();
+            }
+            finally {
+                this.evictionLock.unlock();
+            }
+        }
+    }
+
+    private void afterWrite(Node<K, V> node, @Nullable Node<K, V> replaced) {
+        this.evictionLock.lock();
+        try {
+            maintenance();
+
+            if (replaced != null) {
+                discard(replaced);
+            }
+
+            // the node may have been already replaced or removed by a concurrent write
+            if (!node.removed && this.data.get(node.keyReference) == node) {
+                onAdd(node);
+            }
+        }
+        finally {
+            this.evictionLock.unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void maintenance() {
+        Reference<? extends K> collected;
+        while ((collected = this.keyQueue.poll()) != null) {
+            Node<K, V> removed = this.data.remove(collected);
+            if (removed != null) {
+                discard(removed);
+            }
+        }
+
+        for (ReadBuffer buffer : this.readBuffers) {
+            buffer.drain((Consumer<Object>) (Consumer<?>) this.accessRecorder);
+        }
+
+        if (this.expireAfterWriteNanos > 0) {
+            long now = System.nanoTime();
+            expireFromHead(this.window, now);
+            expireFromHead(this.main, now);
+        }
+    }
+
+    private void expireFromHead(Node<K, V> sentinel, long now) {
+        // entries are ordered by access, so the sweep stops at the first least recently used entry that is alive
+        Node<K, V> node = sentinel.next;
+        while (node != sentinel && now - node.writeTime >= this.expireAfterWriteNanos) {
+            Node<K, V> next = node.next;
+            this.data.remove(node.keyReference, node);
+            discard(node);
+            node = next;
+        }
+    }
+
+    private void onAccess(Node<K, V> node) {
+        if (!node.linked) {
+            return;
+        }
+
+        this.sketch.increment(node.hash);
+        node.unlink();
+        node.linkBefore(node.inWindow ? this.window : this.main);
+    }
+
+    private void onAdd(Node<K, V> node) {
+        this.sketch.increment(node.hash);
+
+        node.inWindow = true;
+        node.linkBefore(this.window);
+        this.windowSize++;
+
+        while (this.windowSize > this.maximumWindowSize) {
+            Node<K, V> candidate = this.window.next;
+            candidate.unlink();
+            this.windowSize--;
+
+            candidate.inWindow = false;
+            candidate.linkBefore(this.main);
+            this.mainSize++;
+
+            if (this.mainSize > this.maximumMainSize) {
+                Node<K, V> victim = this.main.next;
+                if (victim != candidate && this.sketch.frequency(candidate.hash) > this.sketch.frequency(victim.hash)) {
+                    evict(victim);
+                }
+                else {
+                    evict(candidate);
+                }
+            }
+        }
+    }
+
+    private void evict(Node<K, V> node) {
+        this.data.remove(node.keyReference, node);
+        discard(node);
+        this.evictionCount.increment();
+    }
+
+    private void discard(Node<K, V> node) {
+        if (node.removed) {
+            return;
+        }
+
+        node.removed = true;
+
+        if (node.linked) {
+            node.unlink();
+
+            if (node.inWindow) {
+                this.windowSize--;
+            }
+            else {
+                this.mainSize--;
+            }
+        }
+    }
+
+    /**
+     * Cache entry, linked into the admission window or the main space by the eviction lock holder.
+     */
+    private static final class Node<K, V> {
+
+        private final Object keyReference;
+        private final int hash;
+        private final V value;
+        private final long writeTime;
+
+        private Node<K, V> prev;
+        private Node<K, V> next;
+        private boolean linked;
+        private boolean inWindow;
+        private boolean removed;
+
+        private Node(Object keyReference, V value, long writeTime) {
+            this.keyReference = keyReference;
+            this.hash = keyReference == null ? 0 : keyReference.hashCode();
+            this.value = value;
+            this.writeTime = writeTime;
+        }
+
+        private static <K, V> Node<K, V> sentinel() {
+            Node<K, V> sentinel = new Node<>(null, null, 0);
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            return sentinel;
+        }
+
+        private void linkBefore(Node<K, V> sentinel) {
+            this.prev = sentinel.prev;
+            this.next = sentinel;
+            sentinel.prev.next = this;
+            sentinel.prev = this;
+            this.linked = true;
+        }
+
+        private void unlink() {
+            this.prev.next = this.next;
+            this.next.prev = this.prev;
+            this.prev = null;
+            this.next = null;
+            this.linked = false;
+        }
+
+    }
+
+    /**
+     * Lossy bounded buffer of recorded accesses, filled by readers and drained by the eviction lock holder.
+     */
+    private static final class ReadBuffer {
+
+        private final AtomicReferenceArray<Object> elements = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        private final AtomicLong writeIndex = new AtomicLong();
+        private volatile long readIndex;
+
+        /**
+         * Records an access, dropping it if another reader is recording at the same time.
+         *
+         * @return {@code false} if the buffer is full and needs to be drained
+         */
+        private boolean offer(Object element) {
+            long tail = this.writeIndex.get();
+            if (tail - this.readIndex >= READ_BUFFER_SIZE) {
+                return false;
+            }
+
+            if (this.writeIndex.compareAndSet(tail, tail + 1)) {
+                this.elements.lazySet((int) tail & (READ_BUFFER_SIZE - 1), element);
+            }
+
+            return true;
+        }
+
+        private void drain(Consumer<Object> consumer) {
+            long head = this.readIndex;
+            long tail = this.writeIndex.get();
+
+            for (; head < tail; head++) {
+                int index = (int) head & (READ_BUFFER_SIZE - 1);
+                Object element = this.elements.get(index);
+                if (element == null) {
+                    // slot is claimed, but the element is not published yet
+                    break;
+                }
+
+                this.elements.lazySet(index, null);
+                consumer.accept(element);
+            }
+
+            this.readIndex = head;
+        }
+
+    }
+
+    /**
+     * Marker of key references that are compared by the identity of their referents.
+     */
+    private interface KeyReference {
+
+        Object get();
+
+        static boolean referentEquals(KeyReference reference, Object other) {
+            if (reference == other) {
+                return true;
+            }
+
+            Object referent = reference.get();
+            return referent != null && other instanceof KeyReference && referent == ((KeyReference) other).get();
+        }
+
+    }
+
+    /**
+     * Weakly referenced key stored in the map.
+     */
+    private static final class WeakKeyReference<K> extends WeakReference<K> implements KeyReference {
+
+        private final int hash;
+
+        private WeakKeyReference(K key, ReferenceQueue<K> queue) {
+            super(key, queue);
+            this.hash = System.identityHashCode(key);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return KeyReference.referentEquals(this, other);
+        }
+
+    }
+
+    /**
+     * Strongly referenced key used to look up weakly referenced keys.
+     */
+    private static final class LookupKeyReference implements KeyReference {
+
+        private final Object key;
+
+        private LookupKeyReference(Object key) {
+            this.key = key;
+        }
+
+        @Override
+        public Object get() {
+            return this.key;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this.key);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return KeyReference.referentEquals(this, other);
+        }
+
+    }
+
+}
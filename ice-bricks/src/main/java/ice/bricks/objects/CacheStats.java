@@ -0,0 +1,29 @@
+package ice.bricks.objects;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Point-in-time copy of statistics collected by {@link BoundedCache}.
+ */
+@Getter
+@Builder
+@ToString
+public final class CacheStats {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+
+    /**
+     * Returns the ratio of lookups that found a value, or {@code 1} if there were no lookups.
+     *
+     * @return hit rate
+     */
+    public double getHitRate() {
+        long requests = this.hitCount + this.missCount;
+        return requests == 0 ? 1 : (double) this.hitCount / requests;
+    }
+
+}
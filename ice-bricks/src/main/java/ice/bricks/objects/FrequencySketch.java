@@ -0,0 +1,91 @@
+package ice.bricks.objects;
+
+/**
+ * Count-min sketch of 4-bit counters estimating how often keys were accessed recently.
+ * Counters are halved once the number of recorded accesses reaches a sample size,
+ * so the estimate follows changes of the access pattern.
+ * Not thread-safe, {@link BoundedCache} accesses it under the eviction lock only.
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0x97cb3127e0d2b14fL, 0xc2b2ae3d27d4eb4fL, 0x165667b19e3779f9L, 0x9e3779b97f4a7c15L
+    };
+
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+
+    private final long[] table;
+    private final int sampleSize;
+
+    private int size;
+
+    FrequencySketch(long maximumSize) {
+        int capacity = (int) Math.min(Math.max(maximumSize, 16), 1 << 30);
+        this.table = new long[Integer.highestOneBit(capacity - 1) << 1];
+        this.sampleSize = (int) Math.min(10L * capacity, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Records an access of a key.
+     *
+     * @param hash hash code of the key
+     */
+    void increment(int hash) {
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long spread = spread(hash, i);
+            int index = index(spread);
+            int offset = offset(spread);
+
+            if (((this.table[index] >>> offset) & MAX_COUNT) < MAX_COUNT) {
+                this.table[index] += 1L << offset;
+                added = true;
+            }
+        }
+
+        if (added && ++this.size >= this.sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * Returns an estimated number of recent accesses of a key, at most {@code 15}.
+     *
+     * @param hash hash code of the key
+     * @return estimated frequency
+     */
+    int frequency(int hash) {
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long spread = spread(hash, i);
+            int count = (int) ((this.table[index(spread)] >>> offset(spread)) & MAX_COUNT);
+            frequency = Math.min(frequency, count);
+        }
+
+        return frequency;
+    }
+
+    private void reset() {
+        for (int i = 0; i < this.table.length; i++) {
+            this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+        }
+
+        this.size /= 2;
+    }
+
+    private int index(long spread) {
+        return (int) (spread >>> 32) & (this.table.length - 1);
+    }
+
+    private static int offset(long spread) {
+        // one of 16 counters packed into a long
+        return ((int) spread & 15) << 2;
+    }
+
+    private static long spread(int hash, int function) {
+        long spread = (hash + SEEDS[function]) * SEEDS[function];
+        return spread ^ (spread >>> 29);
+    }
+
+}
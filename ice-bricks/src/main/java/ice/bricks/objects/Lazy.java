@@ -0,0 +1,130 @@
+package ice.bricks.objects;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Value that is computed once on first access and then returned without synchronization.
+ *
+ * Instead of:
+ * <pre>
+ *     private volatile Config config;
+ *
+ *     Config getConfig() {
+ *         Config result = config;
+ *         if (result == null) {
+ *             synchronized (this) {
+ *                 ...
+ *             }
+ *         }
+ *         return result;
+ *     }
+ * </pre>
+ *
+ * the code may look like this:
+ * <pre>
+ *     private final Lazy&lt;Config&gt; config = Lazy.of(this::loadConfig);
+ *
+ *     Config getConfig() {
+ *         return config.get();
+ *     }
+ * </pre>
+ *
+ * If the computation fails, the exception is propagated and the value is computed again on the next access.
+ * A computation that accesses its own value fails with {@link IllegalStateException} instead of recursing.
+ *
+ * @param <T> type of the value
+ */
+public final class Lazy<T> implements Supplier<T> {
+
+    private static final Object UNSET = new Object();
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(Lazy.class, "value", Object.class);
+        }
+        catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Supplier<? extends T> supplier;
+    private Thread computingThread;
+
+    @SuppressWarnings("unused") // accessed via VALUE
+    private Object value = UNSET;
+
+    private Lazy(Supplier<? extends T> supplier) {
+        this.supplier = supplier;
+    }
+
+    /**
+     * Creates a lazy value.
+     *
+     * @param supplier computation of the value
+     * @param <T> type of the value
+     * @return lazy value
+     */
+    public static <T> Lazy<T> of(Supplier<? extends T> supplier) {
+        return new Lazy<>(Objects.requireNonNull(supplier, "supplier"));
+    }
+
+    /**
+     * Returns the value, computing it on first access.
+     *
+     * @return value
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get() {
+        Object current = VALUE.getAcquire(this);
+        if (current != UNSET) {
+            return (T) current;
+        }
+
+        return compute();
+    }
+
+    /**
+     * Checks if the value is already computed.
+     *
+     * @return {@code true} if the value is computed
+     */
+    public boolean isInitialized() {
+        return VALUE.getAcquire(this) != UNSET;
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized T compute() {
+        Object current = VALUE.getAcquire(this);
+        if (current != UNSET) {
+            return (T) current;
+        }
+
+        if (this.computingThread == Thread.currentThread()) {
+            throw new IllegalStateException("Recursive initialization of a lazy value");
+        }
+
+        this.computingThread = Thread.currentThread();
+        try {
+            T computed = this.supplier.get();
+
+            VALUE.setRelease(this, computed);
+            this.supplier = null;
+            return computed;
+        }
+        finally {
+            this.computingThread = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        Object current = VALUE.getAcquire(this);
+        return current == UNSET ? "Lazy[not initialized]" : "Lazy[" + current + "]";
+    }
+
+}
@@ -0,0 +1,102 @@
+package ice.bricks.objects;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Function that caches results per argument, optionally for a limited time.
+ *
+ * Results are computed by {@link Lazy} values created inside the map, while the computation itself
+ * runs outside of the map, so a function may call itself for other arguments
+ * without a recursive update of the map.
+ *
+ * Expired results are removed when they are requested again, and all the map is swept for expired results
+ * once the number of new results since the previous sweep reaches the size of the map,
+ * so the sweeps take amortized constant time per new result.
+ * Arguments must not be {@code null}.
+ */
+final class MemoizingFunction<T, R> implements Function<T, R> {
+
+    private static final int MIN_WRITES_BEFORE_PURGE = 16;
+
+    private final Function<? super T, ? extends R> function;
+    private final long timeToLiveNanos;
+
+    private final ConcurrentMap<T, Entry<R>> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger writesSincePurge = new AtomicInteger();
+
+    /**
+     * Creates a memoizing function.
+     *
+     * @param function function to be memoized
+     * @param timeToLiveNanos time a result is cached for, or a non-positive value to cache results forever
+     */
+    MemoizingFunction(Function<? super T, ? extends R> function, long timeToLiveNanos) {
+        this.function = function;
+        this.timeToLiveNanos = timeToLiveNanos;
+    }
+
+    @Override
+    public R apply(T argument) {
+        Objects.requireNonNull(argument, "Memoized function does not accept null arguments");
+
+        Entry<R> entry = this.entries.get(argument);
+
+        if (entry == null || isExpired(entry)) {
+            if (entry != null) {
+                this.entries.remove(argument, entry);
+            }
+
+            entry = this.entries.computeIfAbsent(argument, this::newEntry);
+
+            if (this.timeToLiveNanos > 0) {
+                purgeIfNeeded();
+            }
+        }
+
+        return entry.value.get();
+    }
+
+    private Entry<R> newEntry(T argument) {
+        if (this.timeToLiveNanos <= 0) {
+            return new Entry<>(Lazy.of(() -> this.function.apply(argument)), 0);
+        }
+
+        this.writesSincePurge.incrementAndGet();
+        return new Entry<>(Lazy.of(() -> this.function.apply(argument)), System.nanoTime() + this.timeToLiveNanos);
+    }
+
+    private void purgeIfNeeded() {
+        int writes = this.writesSincePurge.get();
+
+        // results requested only once would otherwise be kept forever
+        if (writes >= Math.max(this.entries.size(), MIN_WRITES_BEFORE_PURGE)
+                && this.writesSincePurge.compareAndSet(writes, 0)) {
+
+            this.entries.values().removeIf(this::isExpired);
+        }
+    }
+
+    private boolean isExpired(Entry<R> entry) {
+        return this.timeToLiveNanos > 0 && System.nanoTime() - entry.expiresAtNanos >= 0;
+    }
+
+    /**
+     * Cached result and the time it expires at.
+     */
+    private static final class Entry<R> {
+
+        private final Lazy<R> value;
+        private final long expiresAtNanos;
+
+        private Entry(Lazy<R> value, long expiresAtNanos) {
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+    }
+
+}
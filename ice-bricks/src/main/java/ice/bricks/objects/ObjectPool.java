@@ -0,0 +1,313 @@
+package ice.bricks.objects;
+
+import lombok.Builder;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Pool of reusable objects that are expensive to allocate, such as large buffers, builders or parsers.
+ *
+ * Instead of:
+ * <pre>
+ *     StringBuilder builder = new StringBuilder(64 * 1024);
+ *     render(document, builder);
+ *     return builder.toString();
+ * </pre>
+ *
+ * the code may look like this:
+ * <pre>
+ *     ObjectPool&lt;StringBuilder&gt; builders = ObjectPool.&lt;StringBuilder&gt;builder()
+ *             .factory(() -&gt; new StringBuilder(64 * 1024))
+ *             .reset(builder -&gt; builder.setLength(0))
+ *             .validator(builder -&gt; builder.capacity() &lt;= 1024 * 1024)
+ *             .build();
+ *
+ *     return builders.tryAndReturn(builder -&gt; {
+ *         render(document, builder);
+ *         return builder.toString();
+ *     });
+ * </pre>
+ *
+ * Every thread keeps a few returned objects in a thread-local cache, which is used without any synchronization.
+ * Objects that do not fit into it are shared with other threads through a lock-free stack limited
+ * by {@code maxRetained}. So up to {@code maxRetained} objects plus {@code threadLocalCapacity} objects
+ * per thread are retained, and pools are meant to be long-lived, for example static fields.
+ *
+ * @param <T> type of the pooled objects
+ */
+public final class ObjectPool<T> {
+
+    private static final int DEFAULT_MAX_RETAINED = 64;
+    private static final int DEFAULT_THREAD_LOCAL_CAPACITY = 4;
+
+    private final Supplier<? extends T> factory;
+    private final Consumer<? super T> reset;
+    private final Predicate<? super T> validator;
+    private final int maxRetained;
+
+    private final ThreadLocal<LocalCache> localCaches;
+
+    private final AtomicReference<StackNode<T>> sharedTop = new AtomicReference<>();
+    private final AtomicInteger sharedSize = new AtomicInteger();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder discardedCount = new LongAdder();
+
+    /**
+     * Creates a pool.
+     *
+     * @param factory creates new objects when there are no objects to reuse
+     * @param reset brings a returned object to its initial state, nothing is done by default
+     * @param validator checks if a returned object can be reused, e.g. if it has not grown too much,
+     *                  all objects are reused by default
+     * @param maxRetained maximum number of objects shared between threads, {@code 64} by default
+     * @param threadLocalCapacity maximum number of objects cached by every thread, {@code 4} by default
+     */
+    @Builder
+    private ObjectPool(Supplier<? extends T> factory, Consumer<? super T> reset, Predicate<? super T> validator,
+                       Integer maxRetained, Integer threadLocalCapacity) {
+
+        this.factory = Objects.requireNonNull(factory, "factory");
+        this.reset = Objects.requireNonNullElse(reset, object -> { });
+        this.validator = Objects.requireNonNullElse(validator, object -> true);
+        this.maxRetained = Objects.requireNonNullElse(maxRetained, DEFAULT_MAX_RETAINED);
+
+        int localCapacity = Objects.requireNonNullElse(threadLocalCapacity, DEFAULT_THREAD_LOCAL_CAPACITY);
+
+        if (this.maxRetained < 0) {
+            throw new IllegalArgumentException("maxRetained is negative");
+        }
+
+        if (localCapacity < 0) {
+            throw new IllegalArgumentException("threadLocalCapacity is negative");
+        }
+
+        this.localCaches = ThreadLocal.withInitial(() -> new LocalCache(localCapacity));
+    }
+
+    /**
+     * Borrows an object, supplies it to the function and then returns it to the pool,
+     * also if the function fails.
+     *
+     * @param function function using the object, must not keep references to it
+     * @param <R> type of the result
+     * @return result of the function
+     */
+    public <R> R tryAndReturn(Function<? super T, ? extends R> function) {
+        T object = borrow();
+
+        try {
+            return function.apply(object);
+        }
+        finally {
+            release(object);
+        }
+    }
+
+    /**
+     * Borrows an object for a try-with-resources block, the object is returned to the pool when the lease is closed.
+     *
+     * @return lease of the object
+     */
+    public Lease<T> lease() {
+        return new Lease<>(this, borrow());
+    }
+
+    /**
+     * Borrows an object, reusing a returned one if possible.
+     * The object should be returned with {@link #release(Object)}, otherwise it is just garbage collected.
+     *
+     * @return object
+     */
+    public T borrow() {
+        LocalCache local = this.localCaches.get();
+
+        @SuppressWarnings("unchecked")
+        T object = (T) local.pop();
+
+        if (object == null) {
+            object = popShared();
+        }
+
+        if (object != null) {
+            this.hitCount.increment();
+            return object;
+        }
+
+        this.missCount.increment();
+        return this.factory.get();
+    }
+
+    /**
+     * Returns a borrowed object to the pool. The object is reset and retained,
+     * unless it is not valid or the pool is full.
+     *
+     * @param object borrowed object
+     */
+    public void release(T object) {
+        if (!this.validator.test(object)) {
+            this.discardedCount.increment();
+            return;
+        }
+
+        this.reset.accept(object);
+
+        if (!this.localCaches.get().push(object) && !pushShared(object)) {
+            this.discardedCount.increment();
+        }
+    }
+
+    /**
+     * Drops objects shared between threads, thread-local caches are kept.
+     */
+    public void clear() {
+        StackNode<T> top = this.sharedTop.getAndSet(null);
+        for (StackNode<T> node = top; node != null; node = node.next) {
+            this.sharedSize.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns statistics of the pool.
+     *
+     * @return snapshot of the statistics
+     */
+    public ObjectPoolStats stats() {
+        return ObjectPoolStats.builder()
+                .hitCount(this.hitCount.sum())
+                .missCount(this.missCount.sum())
+                .discardedCount(this.discardedCount.sum())
+                .build();
+    }
+
+    private T popShared() {
+        StackNode<T> top;
+        do {
+            top = this.sharedTop.get();
+            if (top == null) {
+                return null;
+            }
+        }
+        while (!this.sharedTop.compareAndSet(top, top.next));
+
+        this.sharedSize.decrementAndGet();
+        return top.value;
+    }
+
+    private boolean pushShared(T object) {
+        // the size is reserved before pushing, so concurrent pushes cannot exceed the limit
+        int size;
+        do {
+            size = this.sharedSize.get();
+            if (size >= this.maxRetained) {
+                return false;
+            }
+        }
+        while (!this.sharedSize.compareAndSet(size, size + 1));
+
+        StackNode<T> node = new StackNode<>(object);
+        StackNode<T> top;
+        do {
+            top = this.sharedTop.get();
+            node.next = top;
+        }
+        while (!this.sharedTop.compareAndSet(top, node));
+
+        return true;
+    }
+
+    /**
+     * Borrowed object that is returned to the pool when the lease is closed.
+     *
+     * @param <T> type of the object
+     */
+    public static final class Lease<T> implements AutoCloseable {
+
+        private final ObjectPool<T> pool;
+        private T object;
+
+        private Lease(ObjectPool<T> pool, T object) {
+            this.pool = pool;
+            this.object = object;
+        }
+
+        /**
+         * Returns the borrowed object.
+         *
+         * @return borrowed object
+         */
+        public T get() {
+            if (this.object == null) {
+                throw new IllegalStateException("Lease is closed");
+            }
+
+            return this.object;
+        }
+
+        /**
+         * Returns the object to the pool, repeated calls do nothing.
+         */
+        @Override
+        public void close() {
+            if (this.object != null) {
+                T released = this.object;
+                this.object = null;
+                this.pool.release(released);
+            }
+        }
+
+    }
+
+    /**
+     * Objects cached by a single thread.
+     */
+    private static final class LocalCache {
+
+        private final Object[] objects;
+        private int size;
+
+        private LocalCache(int capacity) {
+            this.objects = new Object[capacity];
+        }
+
+        private Object pop() {
+            if (this.size == 0) {
+                return null;
+            }
+
+            Object object = this.objects[--this.size];
+            this.objects[this.size] = null;
+            return object;
+        }
+
+        private boolean push(Object object) {
+            if (this.size == this.objects.length) {
+                return false;
+            }
+
+            this.objects[this.size++] = object;
+            return true;
+        }
+
+    }
+
+    private static final class StackNode<T> {
+
+        private final T value;
+        private StackNode<T> next;
+
+        private StackNode(T value) {
+            this.value = value;
+        }
+
+    }
+
+}
@@ -0,0 +1,30 @@
+package ice.bricks.objects;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Point-in-time copy of statistics collected by {@link ObjectPool}.
+ */
+@Getter
+@Builder
+@ToString
+public final class ObjectPoolStats {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long discardedCount;
+
+    /**
+     * Returns the ratio of borrowed objects that were reused instead of created,
+     * or {@code 1} if nothing was borrowed.
+     *
+     * @return hit rate
+     */
+    public double getHitRate() {
+        long borrows = this.hitCount + this.missCount;
+        return borrows == 0 ? 1 : (double) this.hitCount / borrows;
+    }
+
+}
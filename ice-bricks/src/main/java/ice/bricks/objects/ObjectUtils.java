@@ -2,8 +2,13 @@ package ice.bricks.objects;
 
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
+import org.jetbrains.annotations.Nullable;
 
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * Contains general objects-related utility methods.
@@ -38,4 +43,118 @@ public final class ObjectUtils {
         return condition.test(value) ? defaultValue : value;
     }
 
+    /**
+     * Creates a value that is computed once on first access, see {@link Lazy}.
+     *
+     * @param supplier computation of the value
+     * @param <T> type of the value
+     * @return lazy value
+     */
+    public static <T> Lazy<T> lazy(Supplier<? extends T> supplier) {
+        return Lazy.of(supplier);
+    }
+
+    /**
+     * Creates a thread-safe function that computes a result once per argument and then returns the cached one.
+     *
+     * Instead of:
+     * <pre>
+     *     Map&lt;Class&lt;?&gt;, Schema&gt; schemas = new ConcurrentHashMap&lt;&gt;();
+     *     Schema schema = schemas.computeIfAbsent(type, this::buildSchema);
+     * </pre>
+     *
+     * which fails if {@code buildSchema} needs schemas of other types, the code may look like this:
+     * <pre>
+     *     Function&lt;Class&lt;?&gt;, Schema&gt; schemas = ObjectUtils.memoize(this::buildSchema);
+     *     Schema schema = schemas.apply(type);
+     * </pre>
+     *
+     * Results are computed outside of the map lock, so the function may call itself recursively
+     * for other arguments. A recursive call for the same argument fails with {@link IllegalStateException}.
+     * A {@code null} argument is rejected with {@link NullPointerException}.
+     *
+     * @param function function to be memoized
+     * @param <T> type of the argument
+     * @param <R> type of the result
+     * @return memoizing function
+     */
+    public static <T, R> Function<T, R> memoize(Function<? super T, ? extends R> function) {
+        return new MemoizingFunction<>(Objects.requireNonNull(function, "function"), 0);
+    }
+
+    /**
+     * Creates a thread-safe function that caches a result per argument for a given time,
+     * after that the result is computed again on the next call, see {@link #memoize(Function)}.
+     * Expired results of arguments that are not requested again are removed as new results are cached.
+     *
+     * @param function function to be memoized
+     * @param timeToLive time a result is cached for
+     * @param <T> type of the argument
+     * @param <R> type of the result
+     * @return memoizing function
+     */
+    public static <T, R> Function<T, R> memoize(Function<? super T, ? extends R> function, Duration timeToLive) {
+        long timeToLiveNanos = timeToLive.toNanos();
+        if (timeToLiveNanos <= 0) {
+            throw new IllegalArgumentException("timeToLive must be positive");
+        }
+
+        return new MemoizingFunction<>(Objects.requireNonNull(function, "function"), timeToLiveNanos);
+    }
+
+    /**
+     * Creates a thread-safe supplier that caches its value for a given time,
+     * after that the value is computed again on the next call.
+     *
+     * @param supplier supplier to be memoized
+     * @param timeToLive time the value is cached for
+     * @param <T> type of the value
+     * @return memoizing supplier
+     */
+    public static <T> Supplier<T> memoize(Supplier<? extends T> supplier, Duration timeToLive) {
+        Function<Boolean, T> function = memoize(key -> supplier.get(), timeToLive);
+        return () -> function.apply(Boolean.TRUE);
+    }
+
+    /**
+     * Checks if objects are equal by comparing their fields, see {@link ValueSemantics}.
+     * Unlike {@code EqualsBuilder.reflectionEquals} fields are resolved once per class.
+     *
+     * @param object object
+     * @param other other object
+     * @return {@code true} if the objects are of the same class and their fields are equal
+     */
+    public static boolean reflectionEquals(@Nullable Object object, @Nullable Object other) {
+        if (object == null || other == null) {
+            return object == other;
+        }
+
+        return semanticsOf(object).equals(object, other);
+    }
+
+    /**
+     * Calculates a hash code of an object out of its fields, see {@link ValueSemantics}.
+     *
+     * @param object object
+     * @return hash code
+     */
+    public static int reflectionHashCode(@Nullable Object object) {
+        return object == null ? 0 : semanticsOf(object).hashCode(object);
+    }
+
+    /**
+     * Prints an object with its fields, see {@link ValueSemantics}.
+     *
+     * @param object object
+     * @return string representation
+     */
+    public static String reflectionToString(@Nullable Object object) {
+        return object == null ? "null" : semanticsOf(object).toString(object);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ValueSemantics<Object> semanticsOf(Object object) {
+        return (ValueSemantics<Object>) ValueSemantics.of(object.getClass());
+    }
+
 }
@@ -0,0 +1,509 @@
+package ice.bricks.objects;
+
+import ice.bricks.reflection.FieldAccessException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Reflective {@code equals}, {@code hashCode} and {@code toString} of a class, resolved once
+ * and then performed through method handles, comparing primitive fields without boxing.
+ *
+ * Instead of:
+ * <pre>
+ *     public boolean equals(Object other) {
+ *         return EqualsBuilder.reflectionEquals(this, other);
+ *     }
+ * </pre>
+ *
+ * the code may look like this:
+ * <pre>
+ *     private static final ValueSemantics&lt;Order&gt; SEMANTICS = ValueSemantics.of(Order.class);
+ *
+ *     public boolean equals(Object other) {
+ *         return SEMANTICS.equals(this, other);
+ *     }
+ * </pre>
+ *
+ * Fields of the class and of its superclasses are used, except static, transient and synthetic ones
+ * unless another field filter is given. Array fields are compared, hashed and printed by their contents.
+ * Private fields of classes in named modules can be accessed only if their packages are open to {@code ice.bricks}.
+ *
+ * @param <T> type of the objects
+ */
+public final class ValueSemantics<T> {
+
+    private static final Predicate<Field> DEFAULT_FIELD_FILTER = field ->
+            !Modifier.isTransient(field.getModifiers()) && !field.isSynthetic();
+
+    private static final ClassValue<ValueSemantics<?>> DEFAULT_SEMANTICS = new ClassValue<>() {
+        @Override
+        protected ValueSemantics<?> computeValue(Class<?> type) {
+            return new ValueSemantics<>(type, DEFAULT_FIELD_FILTER);
+        }
+    };
+
+    private final Class<T> type;
+    private final FieldAccessor[] fields;
+
+    private ValueSemantics(Class<T> type, Predicate<? super Field> fieldFilter) {
+        this.type = type;
+        this.fields = resolveFields(type, fieldFilter);
+    }
+
+    /**
+     * Returns cached semantics of a class using all its non-static, non-transient fields.
+     *
+     * @param type class of the objects
+     * @param <T> type of the objects
+     * @return semantics of the class
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ValueSemantics<T> of(Class<T> type) {
+        return (ValueSemantics<T>) DEFAULT_SEMANTICS.get(type);
+    }
+
+    /**
+     * Resolves semantics of a class using non-static fields accepted by a filter.
+     * The result is not cached, so it should be kept by the caller.
+     *
+     * @param type class of the objects
+     * @param fieldFilter filter of the fields
+     * @param <T> type of the objects
+     * @return semantics of the class
+     */
+    public static <T> ValueSemantics<T> of(Class<T> type, Predicate<? super Field> fieldFilter) {
+        return new ValueSemantics<>(type, Objects.requireNonNull(fieldFilter, "fieldFilter"));
+    }
+
+    /**
+     * Checks if an object is equal to another one, which must be of exactly the same class.
+     *
+     * @param object object of the class
+     * @param other other object
+     * @return {@code true} if the objects are equal
+     */
+    public boolean equals(T object, Object other) {
+        if (object == other) {
+            return true;
+        }
+
+        if (object == null || other == null || object.getClass() != this.type || other.getClass() != this.type) {
+            return false;
+        }
+
+        try {
+            for (FieldAccessor field : this.fields) {
+                if (!field.equals(object, other)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+        catch (Throwable e) {
+            throw fieldAccessFailure(e);
+        }
+    }
+
+    /**
+     * Calculates a hash code of an object.
+     *
+     * @param object object of the class
+     * @return hash code
+     */
+    public int hashCode(T object) {
+        if (object == null) {
+            return 0;
+        }
+
+        try {
+            int result = 1;
+            for (FieldAccessor field : this.fields) {
+                result = 31 * result + field.hashCode(object);
+            }
+
+            return result;
+        }
+        catch (Throwable e) {
+            throw fieldAccessFailure(e);
+        }
+    }
+
+    /**
+     * Prints an object like {@code Order(id=1, items=[a, b])}.
+     *
+     * @param object object of the class
+     * @return string representation
+     */
+    public String toString(T object) {
+        if (object == null) {
+            return "null";
+        }
+
+        StringBuilder result = new StringBuilder(this.type.getSimpleName()).append('(');
+
+        try {
+            for (int i = 0; i < this.fields.length; i++) {
+                if (i > 0) {
+                    result.append(", ");
+                }
+
+                FieldAccessor field = this.fields[i];
+                result.append(field.name).append('=');
+                field.append(result, object);
+            }
+        }
+        catch (Throwable e) {
+            throw fieldAccessFailure(e);
+        }
+
+        return result.append(')').toString();
+    }
+
+    private RuntimeException fieldAccessFailure(Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+
+        return new FieldAccessException("Unable to access fields of " + this.type.getSimpleName(), e);
+    }
+
+    private static FieldAccessor[] resolveFields(Class<?> type, Predicate<? super Field> fieldFilter) {
+        List<FieldAccessor> accessors = new ArrayList<>();
+
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            MethodHandles.Lookup lookup = null;
+
+            for (Field field : current.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || !fieldFilter.test(field)) {
+                    continue;
+                }
+
+                if (lookup == null) {
+                    lookup = privateLookup(current);
+                }
+
+                accessors.add(FieldAccessor.of(field, getter(lookup, field)));
+            }
+        }
+
+        return accessors.toArray(new FieldAccessor[0]);
+    }
+
+    private static MethodHandles.Lookup privateLookup(Class<?> type) {
+        try {
+            // classes of other modules can be accessed only if this module reads them
+            ValueSemantics.class.getModule().addReads(type.getModule());
+            return MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+        }
+        catch (IllegalAccessException e) {
+            throw new FieldAccessException("Unable to access fields of " + type.getSimpleName(), e);
+        }
+    }
+
+    private static MethodHandle getter(MethodHandles.Lookup lookup, Field field) {
+        try {
+            MethodHandle getter = lookup.unreflectGetter(field);
+            return getter.asType(MethodType.methodType(field.getType(), Object.class));
+        }
+        catch (IllegalAccessException e) {
+            throw new FieldAccessException("Unable to access field " + field.getName(), e);
+        }
+    }
+
+    /**
+     * Compares, hashes and prints a field, the getter is typed as {@code (Object) -> field type}
+     * and invoked exactly, so primitive values are not boxed.
+     */
+    private abstract static class FieldAccessor {
+
+        protected final String name;
+        protected final MethodHandle getter;
+
+        private FieldAccessor(Field field, MethodHandle getter) {
+            this.name = field.getName();
+            this.getter = getter;
+        }
+
+        abstract boolean equals(Object object, Object other) throws Throwable;
+
+        abstract int hashCode(Object object) throws Throwable;
+
+        abstract void append(StringBuilder builder, Object object) throws Throwable;
+
+        private static FieldAccessor of(Field field, MethodHandle getter) {
+            Class<?> type = field.getType();
+
+            if (type == int.class) {
+                return new IntAccessor(field, getter);
+            }
+
+            if (type == long.class) {
+                return new LongAccessor(field, getter);
+            }
+
+            if (type == double.class) {
+                return new DoubleAccessor(field, getter);
+            }
+
+            if (type == float.class) {
+                return new FloatAccessor(field, getter);
+            }
+
+            if (type == boolean.class) {
+                return new BooleanAccessor(field, getter);
+            }
+
+            if (type == char.class) {
+                return new CharAccessor(field, getter);
+            }
+
+            if (type == byte.class) {
+                return new ByteAccessor(field, getter);
+            }
+
+            if (type == short.class) {
+                return new ShortAccessor(field, getter);
+            }
+
+            return new ObjectAccessor(field, getter.asType(MethodType.methodType(Object.class, Object.class)));
+        }
+
+    }
+
+    private static final class IntAccessor extends FieldAccessor {
+
+        private IntAccessor(Field field, MethodHandle getter) {
+            super(field, getter);
+        }
+
+        @Override
+        boolean equals(Object object, Object other) throws Throwable {
+            return (int) this.getter.invokeExact(object) == (int) this.getter.invokeExact(other);
+        }
+
+        @Override
+        int hashCode(Object object) throws Throwable {
+            return Integer.hashCode((int) this.getter.invokeExact(object));
+        }
+
+        @Override
+        void append(StringBuilder builder, Object object) throws Throwable {
+            builder.append((int) this.getter.invokeExact(object));
+        }
+
+    }
+
+    private static final class LongAccessor extends FieldAccessor {
+
+        private LongAccessor(Field field, MethodHandle getter) {
+            super(field, getter);
+        }
+
+        @Override
+        boolean equals(Object object, Object other) throws Throwable {
+            return (long) this.getter.invokeExact(object) == (long) this.getter.invokeExact(other);
+        }
+
+        @Override
+        int hashCode(Object object) throws Throwable {
+            return Long.hashCode((long) this.getter.invokeExact(object));
+        }
+
+        @Override
+        void append(StringBuilder builder, Object object) throws Throwable {
+            builder.append((long) this.getter.invokeExact(object));
+        }
+
+    }
+
+    private static final class DoubleAccessor extends FieldAccessor {
+
+        private DoubleAccessor(Field field, MethodHandle getter) {
+            super(field, getter);
+        }
+
+        @Override
+        boolean equals(Object object, Object other) throws Throwable {
+            // same as Double.equals: NaN is equal to itself, 0.0 is not equal to -0.0
+            double value = (double) this.getter.invokeExact(object);
+            double otherValue = (double) this.getter.invokeExact(other);
+            return Double.compare(value, otherValue) == 0;
+        }
+
+        @Override
+        int hashCode(Object object) throws Throwable {
+            return Double.hashCode((double) this.getter.invokeExact(object));
+        }
+
+        @Override
+        void append(StringBuilder builder, Object object) throws Throwable {
+            builder.append((double) this.getter.invokeExact(object));
+        }
+
+    }
+
+    private static final class FloatAccessor extends FieldAccessor {
+
+        private FloatAccessor(Field field, MethodHandle getter) {
+            super(field, getter);
+        }
+
+        @Override
+        boolean equals(Object object, Object other) throws Throwable {
+            float value = (float) this.getter.invokeExact(object);
+            float otherValue = (float) this.getter.invokeExact(other);
+            return Float.compare(value, otherValue) == 0;
+        }
+
+        @Override
+        int hashCode(Object object) throws Throwable {
+            return Float.hashCode((float) this.getter.invokeExact(object));
+        }
+
+        @Override
+        void append(StringBuilder builder, Object object) throws Throwable {
+            builder.append((float) this.getter.invokeExact(object));
+        }
+
+    }
+
+    private static final class BooleanAccessor extends FieldAccessor {
+
+        private BooleanAccessor(Field field, MethodHandle getter) {
+            super(field, getter);
+        }
+
+        @Override
+        boolean equals(Object object, Object other) throws Throwable {
+            return (boolean) this.getter.invokeExact(object) == (boolean) this.getter.invokeExact(other);
+        }
+
+        @Override
+        int hashCode(Object object) throws Throwable {
+            return Boolean.hashCode((boolean) this.getter.invokeExact(object));
+        }
+
+        @Override
+        void append(StringBuilder builder, Object object) throws Throwable {
+            builder.append((boolean) this.getter.invokeExact(object));
+        }
+
+    }
+
+    private static final class CharAccessor extends FieldAccessor {
+
+        private CharAccessor(Field field, MethodHandle getter) {
+            super(field, getter);
+        }
+
+        @Override
+        boolean equals(Object object, Object other) throws Throwable {
+            return (char) this.getter.invokeExact(object) == (char) this.getter.invokeExact(other);
+        }
+
+        @Override
+        int hashCode(Object object) throws Throwable {
+            return Character.hashCode((char) this.getter.invokeExact(object));
+        }
+
+        @Override
+        void append(StringBuilder builder, Object object) throws Throwable {
+            builder.append((char) this.getter.invokeExact(object));
+        }
+
+    }
+
+    private static final class ByteAccessor extends FieldAccessor {
+
+        private ByteAccessor(Field field, MethodHandle getter) {
+            super(field, getter);
+        }
+
+        @Override
+        boolean equals(Object object, Object other) throws Throwable {
+            return (byte) this.getter.invokeExact(object) == (byte) this.getter.invokeExact(other);
+        }
+
+        @Override
+        int hashCode(Object object) throws Throwable {
+            return Byte.hashCode((byte) this.getter.invokeExact(object));
+        }
+
+        @Override
+        void append(StringBuilder builder, Object object) throws Throwable {
+            builder.append((byte) this.getter.invokeExact(object));
+        }
+
+    }
+
+    private static final class ShortAccessor extends FieldAccessor {
+
+        private ShortAccessor(Field field, MethodHandle getter) {
+            super(field, getter);
+        }
+
+        @Override
+        boolean equals(Object object, Object other) throws Throwable {
+            return (short) this.getter.invokeExact(object) == (short) this.getter.invokeExact(other);
+        }
+
+        @Override
+        int hashCode(Object object) throws Throwable {
+            return Short.hashCode((short) this.getter.invokeExact(object));
+        }
+
+        @Override
+        void append(StringBuilder builder, Object object) throws Throwable {
+            builder.append((short) this.getter.invokeExact(object));
+        }
+
+    }
+
+    private static final class ObjectAccessor extends FieldAccessor {
+
+        private ObjectAccessor(Field field, MethodHandle getter) {
+            super(field, getter);
+        }
+
+        @Override
+        boolean equals(Object object, Object other) throws Throwable {
+            Object value = (Object) this.getter.invokeExact(object);
+            Object otherValue = (Object) this.getter.invokeExact(other);
+            return Objects.deepEquals(value, otherValue);
+        }
+
+        @Override
+        int hashCode(Object object) throws Throwable {
+            Object value = (Object) this.getter.invokeExact(object);
+            if (value != null && value.getClass().isArray()) {
+                return Arrays.deepHashCode(new Object[] {value});
+            }
+
+            return Objects.hashCode(value);
+        }
+
+        @Override
+        void append(StringBuilder builder, Object object) throws Throwable {
+            Object value = (Object) this.getter.invokeExact(object);
+            if (value != null && value.getClass().isArray()) {
+                String array = Arrays.deepToString(new Object[] {value});
+                builder.append(array, 1, array.length() - 1);
+                return;
+            }
+
+            builder.append(value);
+        }
+
+    }
+
+}
@@ -0,0 +1,197 @@
+package ice.bricks.streams;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over a source that cannot be split efficiently, like an {@link Iterator}, a drained queue
+ * or a reader. Elements are handed off to other workers in batches sized by a {@link BatchSizePolicy},
+ * and the time spent on processing of handed off elements is measured, so the policy can adapt
+ * batch sizes to the actual per-element cost.
+ *
+ * Instead of:
+ * <pre>
+ *     StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), true)
+ * </pre>
+ *
+ * which hands off at least 1024 elements per split, the code may look like this:
+ * <pre>
+ *     StreamSupport.stream(
+ *             AdaptiveSpliterator.of(iterator, queue.size(), BatchSizePolicy.adaptive(Duration.ofMillis(1), 1024)),
+ *             true);
+ * </pre>
+ */
+public final class AdaptiveSpliterator<T> implements Spliterator<T> {
+
+    private final Spliterator<T> source;
+    private final BatchSizePolicy policy;
+    private final int characteristics;
+    private final Cost cost;
+
+    private long estimatedSize;
+    private int batchSize = 0;
+
+    private AdaptiveSpliterator(Spliterator<T> source, long estimatedSize, BatchSizePolicy policy) {
+        this.source = source;
+        this.policy = policy;
+        this.characteristics = source.characteristics() & ~(Spliterator.SIZED | Spliterator.SUBSIZED);
+        this.cost = new Cost();
+        this.estimatedSize = estimatedSize < 0 ? Long.MAX_VALUE : estimatedSize;
+    }
+
+    /**
+     * Creates a spliterator over elements of an iterator.
+     *
+     * @param iterator source of elements
+     * @param estimatedSize estimated number of elements, or a negative value if unknown
+     * @param policy batch size policy
+     * @param <T> type of element
+     * @return spliterator
+     */
+    public static <T> AdaptiveSpliterator<T> of(Iterator<T> iterator, long estimatedSize, BatchSizePolicy policy) {
+        return of(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), estimatedSize, policy);
+    }
+
+    /**
+     * Creates a spliterator over elements of another spliterator, which is traversed sequentially.
+     *
+     * @param source source of elements
+     * @param estimatedSize estimated number of elements, or a negative value to take an estimate of the source
+     * @param policy batch size policy
+     * @param <T> type of element
+     * @return spliterator
+     */
+    public static <T> AdaptiveSpliterator<T> of(Spliterator<T> source, long estimatedSize, BatchSizePolicy policy) {
+        return new AdaptiveSpliterator<>(source, estimatedSize < 0 ? source.estimateSize() : estimatedSize, policy);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (!this.source.tryAdvance(action)) {
+            return false;
+        }
+
+        consumed(1);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        this.source.forEachRemaining(action);
+        this.estimatedSize = 0;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        int size = Math.max(1, this.policy.nextBatchSize(this.batchSize, this.cost.perElement()));
+
+        Object[] batch = new Object[size];
+        int[] count = new int[1];
+        while (count[0] < size && this.source.tryAdvance(element -> batch[count[0]++] = element)) {
+            // element is stored by the action
+        }
+
+        if (count[0] == 0) {
+            return null;
+        }
+
+        this.batchSize = size;
+        consumed(count[0]);
+
+        Spliterator<T> split = Spliterators.spliterator(batch, 0, count[0], this.characteristics);
+        return new MeasuredSpliterator<>(split, this.cost);
+    }
+
+    @Override
+    public long estimateSize() {
+        return this.estimatedSize;
+    }
+
+    @Override
+    public int characteristics() {
+        return this.characteristics;
+    }
+
+    private void consumed(long count) {
+        if (this.estimatedSize != Long.MAX_VALUE) {
+            // keeps a non-zero estimate while the source may still have elements
+            this.estimatedSize = Math.max(1, this.estimatedSize - count);
+        }
+    }
+
+    /**
+     * Accumulates the time spent on processing of handed off elements, shared by all the parts of a split.
+     */
+    private static final class Cost {
+
+        private final LongAdder elements = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        private void record(long count, long startNanos) {
+            this.nanos.add(System.nanoTime() - startNanos);
+            this.elements.add(count);
+        }
+
+        private long perElement() {
+            long count = this.elements.sum();
+            return count == 0 ? BatchSizePolicy.UNKNOWN_COST : this.nanos.sum() / count;
+        }
+
+    }
+
+    /**
+     * Measures traversal of a handed off batch.
+     */
+    private static final class MeasuredSpliterator<T> implements Spliterator<T> {
+
+        private final Spliterator<T> batch;
+        private final Cost cost;
+
+        private MeasuredSpliterator(Spliterator<T> batch, Cost cost) {
+            this.batch = batch;
+            this.cost = cost;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            long start = System.nanoTime();
+            boolean advanced = this.batch.tryAdvance(action);
+
+            if (advanced) {
+                this.cost.record(1, start);
+            }
+
+            return advanced;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            long count = this.batch.estimateSize();
+            long start = System.nanoTime();
+
+            this.batch.forEachRemaining(action);
+            this.cost.record(count, start);
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            Spliterator<T> split = this.batch.trySplit();
+            return split == null ? null : new MeasuredSpliterator<>(split, this.cost);
+        }
+
+        @Override
+        public long estimateSize() {
+            return this.batch.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return this.batch.characteristics();
+        }
+
+    }
+
+}
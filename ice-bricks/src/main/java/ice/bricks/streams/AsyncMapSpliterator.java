@@ -0,0 +1,100 @@
+package ice.bricks.streams;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Spliterator that maps elements of a source spliterator asynchronously with a given executor.
+ * At most {@code maxInFlight} elements are being mapped at a time, the source is pulled only when
+ * a mapped element is consumed, and results are produced in the encounter order of the source.
+ */
+final class AsyncMapSpliterator<T, R> extends Spliterators.AbstractSpliterator<R> {
+
+    private final Spliterator<T> source;
+    private final Function<? super T, ? extends R> mapper;
+    private final Executor executor;
+    private final int maxInFlight;
+
+    private final Deque<CompletableFuture<R>> inFlight;
+    private final Consumer<T> submitter;
+
+    AsyncMapSpliterator(Spliterator<T> source, Function<? super T, ? extends R> mapper,
+                        Executor executor, int maxInFlight) {
+
+        // not SIZED, otherwise count() would be computed from the source size without running the mapper
+        super(source.estimateSize(), source.characteristics() & Spliterator.ORDERED);
+
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+
+        this.source = source;
+        this.mapper = mapper;
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+
+        this.inFlight = new ArrayDeque<>(maxInFlight);
+        this.submitter = element -> this.inFlight.addLast(
+                CompletableFuture.supplyAsync(() -> this.mapper.apply(element), this.executor));
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super R> action) {
+        while (this.inFlight.size() < this.maxInFlight && this.source.tryAdvance(this.submitter)) {
+            // element is submitted by the action
+        }
+
+        CompletableFuture<R> next = this.inFlight.pollFirst();
+        if (next == null) {
+            return false;
+        }
+
+        action.accept(await(next));
+        return true;
+    }
+
+    @Override
+    public Spliterator<R> trySplit() {
+        // mapping is already concurrent, splitting would break the bound of elements in flight
+        return null;
+    }
+
+    /**
+     * Cancels all the elements that are being mapped.
+     */
+    void cancel() {
+        CompletableFuture<R> future;
+        while ((future = this.inFlight.pollFirst()) != null) {
+            future.cancel(false);
+        }
+    }
+
+    private R await(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        }
+        catch (CompletionException | CancellationException e) {
+            cancel();
+
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IllegalStateException(cause);
+        }
+    }
+
+}
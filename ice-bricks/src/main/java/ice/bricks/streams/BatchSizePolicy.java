@@ -0,0 +1,93 @@
+package ice.bricks.streams;
+
+import java.time.Duration;
+
+/**
+ * Defines how many elements an {@link AdaptiveSpliterator} hands off per split.
+ */
+@FunctionalInterface
+public interface BatchSizePolicy {
+
+    /**
+     * Cost of an element used when it is not measured yet.
+     */
+    long UNKNOWN_COST = -1;
+
+    /**
+     * Calculates the size of the next batch.
+     *
+     * @param previousBatchSize size of the previous batch, {@code 0} for the first one
+     * @param elementCostNanos average time spent to process an element of already split batches,
+     *                         or {@link #UNKNOWN_COST} if nothing is processed yet
+     * @return number of elements in the next batch, at least {@code 1}
+     */
+    int nextBatchSize(int previousBatchSize, long elementCostNanos);
+
+    /**
+     * Creates a policy that always hands off batches of the same size.
+     *
+     * @param batchSize number of elements in a batch
+     * @return policy
+     */
+    static BatchSizePolicy fixed(int batchSize) {
+        checkPositive(batchSize, "batchSize");
+        return (previousBatchSize, elementCostNanos) -> batchSize;
+    }
+
+    /**
+     * Creates a policy that increases every next batch by a given increment up to a maximum size,
+     * like {@link java.util.Spliterators#spliteratorUnknownSize(java.util.Iterator, int)} does
+     * starting from 1024 elements.
+     *
+     * @param initialBatchSize number of elements in the first batch
+     * @param increment number of elements added to every next batch
+     * @param maxBatchSize maximum number of elements in a batch
+     * @return policy
+     */
+    static BatchSizePolicy arithmetic(int initialBatchSize, int increment, int maxBatchSize) {
+        checkPositive(initialBatchSize, "initialBatchSize");
+        checkPositive(maxBatchSize, "maxBatchSize");
+
+        if (increment < 0) {
+            throw new IllegalArgumentException("increment is negative");
+        }
+
+        return (previousBatchSize, elementCostNanos) -> previousBatchSize == 0
+                ? Math.min(initialBatchSize, maxBatchSize)
+                : (int) Math.min((long) previousBatchSize + increment, maxBatchSize);
+    }
+
+    /**
+     * Creates a policy that sizes batches so processing of a batch takes approximately a given time.
+     * Until the cost of elements is measured, batches grow one element at a time,
+     * so few expensive elements are still spread over all the workers.
+     *
+     * @param targetBatchTime desired processing time of a batch
+     * @param maxBatchSize maximum number of elements in a batch
+     * @return policy
+     */
+    static BatchSizePolicy adaptive(Duration targetBatchTime, int maxBatchSize) {
+        checkPositive(maxBatchSize, "maxBatchSize");
+
+        long targetNanos = targetBatchTime.toNanos();
+        if (targetNanos <= 0) {
+            throw new IllegalArgumentException("targetBatchTime must be positive");
+        }
+
+        return (previousBatchSize, elementCostNanos) -> {
+            if (elementCostNanos == UNKNOWN_COST) {
+                return Math.min(previousBatchSize + 1, maxBatchSize);
+            }
+
+            long batchSize = elementCostNanos == 0 ? maxBatchSize : targetNanos / elementCostNanos;
+            return (int) Math.max(1, Math.min(batchSize, maxBatchSize));
+        };
+    }
+
+    private static void checkPositive(int value, String name) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " must be positive");
+        }
+    }
+
+}
@@ -0,0 +1,171 @@
+package ice.bricks.streams;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator that groups elements of a source spliterator into fixed-size batches.
+ *
+ * Sources that are {@code SIZED} and {@code SUBSIZED} are split in batch-aligned ranges:
+ * if a split prefix does not end on a batch boundary, the elements missing in its last batch are moved
+ * from the beginning of the remaining part, so all the batches except the very last one are full.
+ * Other sources are traversed lazily and split by buffering a growing number of batches.
+ */
+final class BatchSpliterator<T> implements Spliterator<List<T>> {
+
+    private static final int MAX_BUFFERED_BATCHES = 1024;
+
+    private final Spliterator<T> source;
+    private final List<T> tail;
+    private final int batchSize;
+    private final boolean reuseBuffer;
+
+    private int tailIndex = 0;
+    private boolean sourceExhausted = false;
+    private int bufferedBatches = 0;
+
+    private List<T> batch;
+    private final Consumer<T> batchAppender = element -> this.batch.add(element);
+
+    BatchSpliterator(Spliterator<T> source, int batchSize, boolean reuseBuffer) {
+        this(source, Collections.emptyList(), batchSize, reuseBuffer);
+    }
+
+    private BatchSpliterator(Spliterator<T> source, List<T> tail, int batchSize, boolean reuseBuffer) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+
+        this.source = source;
+        this.tail = tail;
+        this.batchSize = batchSize;
+        this.reuseBuffer = reuseBuffer;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super List<T>> action) {
+        List<T> next = nextBatch(this.reuseBuffer);
+        if (next == null) {
+            return false;
+        }
+
+        action.accept(next);
+        return true;
+    }
+
+    @Override
+    public Spliterator<List<T>> trySplit() {
+        if (isSubsized()) {
+            return splitAligned();
+        }
+
+        return splitBuffered();
+    }
+
+    @Override
+    public long estimateSize() {
+        long sourceSize = this.sourceExhausted ? 0 : this.source.estimateSize();
+        if (sourceSize == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+
+        long elements = sourceSize + (this.tail.size() - this.tailIndex);
+        return elements / this.batchSize + (elements % this.batchSize == 0 ? 0 : 1);
+    }
+
+    @Override
+    public int characteristics() {
+        int characteristics = Spliterator.NONNULL | (this.source.characteristics() & Spliterator.ORDERED);
+
+        if (isSubsized()) {
+            characteristics |= Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        return characteristics;
+    }
+
+    private boolean isSubsized() {
+        return this.source.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED);
+    }
+
+    private Spliterator<List<T>> splitAligned() {
+        if (this.sourceExhausted) {
+            return null;
+        }
+
+        Spliterator<T> prefix = this.source.trySplit();
+        if (prefix == null) {
+            return null;
+        }
+
+        int remainder = (int) (prefix.getExactSizeIfKnown() % this.batchSize);
+        List<T> carry = new ArrayList<>();
+
+        if (remainder != 0) {
+            // completes the last batch of the prefix with the first elements of the remaining part,
+            // the carry is owned by the prefix afterwards, so it must not be reused here as a buffer
+            List<T> buffer = this.batch;
+            this.batch = carry;
+            while (carry.size() < this.batchSize - remainder && advance()) {
+                // elements are appended by advance()
+            }
+            this.batch = buffer;
+        }
+
+        return new BatchSpliterator<>(prefix, carry, this.batchSize, this.reuseBuffer);
+    }
+
+    private Spliterator<List<T>> splitBuffered() {
+        int batches = Math.min(this.bufferedBatches + 1, MAX_BUFFERED_BATCHES);
+        List<List<T>> buffered = new ArrayList<>(batches);
+
+        List<T> next;
+        while (buffered.size() < batches && (next = nextBatch(false)) != null) {
+            buffered.add(next);
+        }
+
+        if (buffered.isEmpty()) {
+            return null;
+        }
+
+        this.bufferedBatches = batches;
+        return Spliterators.spliterator(buffered, characteristics() & ~(Spliterator.SIZED | Spliterator.SUBSIZED));
+    }
+
+    private List<T> nextBatch(boolean reuse) {
+        if (reuse && this.batch != null) {
+            this.batch.clear();
+        }
+        else {
+            this.batch = new ArrayList<>(this.batchSize);
+        }
+
+        while (this.batch.size() < this.batchSize && advance()) {
+            // elements are appended by advance()
+        }
+
+        return this.batch.isEmpty() ? null : this.batch;
+    }
+
+    private boolean advance() {
+        if (!this.sourceExhausted) {
+            if (this.source.tryAdvance(this.batchAppender)) {
+                return true;
+            }
+
+            this.sourceExhausted = true;
+        }
+
+        if (this.tailIndex < this.tail.size()) {
+            this.batch.add(this.tail.get(this.tailIndex++));
+            return true;
+        }
+
+        return false;
+    }
+
+}
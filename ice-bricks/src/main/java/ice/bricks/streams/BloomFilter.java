@@ -0,0 +1,172 @@
+package ice.bricks.streams;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.ToLongFunction;
+
+/**
+ * Thread-safe Bloom filter: a set of elements that takes a fixed amount of memory
+ * and answers membership queries with a configurable rate of false positives (but never false negatives).
+ *
+ * Can be used to drop repeated elements of a huge stream in constant memory,
+ * at the cost of occasionally dropping a unique one:
+ * <pre>
+ *     BloomFilter&lt;String&gt; seen = BloomFilter.create(100_000_000, 0.01);
+ *     events.map(Event::getId).filter(seen::put).forEach(this::process);
+ * </pre>
+ *
+ * Filters built for parts of a stream can be merged, see {@link StreamUtils#toBloomFilter(long, double)}.
+ */
+public final class BloomFilter<T> {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashFunctions;
+    private final ToLongFunction<? super T> hasher;
+
+    private BloomFilter(long bitCount, int hashFunctions, ToLongFunction<? super T> hasher) {
+        this.words = new AtomicLongArray(Math.toIntExact((bitCount + 63) / 64));
+        this.bitCount = bitCount;
+        this.hashFunctions = hashFunctions;
+        this.hasher = hasher;
+    }
+
+    /**
+     * Creates a filter that hashes elements by their {@link Object#hashCode()}.
+     *
+     * @param expectedInsertions expected number of distinct elements
+     * @param falsePositiveRate desired rate of false positives once the expected number of elements is added
+     * @param <T> type of element
+     * @return empty filter
+     */
+    public static <T> BloomFilter<T> create(long expectedInsertions, double falsePositiveRate) {
+        return create(expectedInsertions, falsePositiveRate, Hashing::hash);
+    }
+
+    /**
+     * Creates a filter that hashes elements with a given function.
+     * A 64-bit hash function reduces false positives on large sets compared to {@link Object#hashCode()}.
+     *
+     * @param expectedInsertions expected number of distinct elements
+     * @param falsePositiveRate desired rate of false positives once the expected number of elements is added
+     * @param hasher 64-bit hash function of elements
+     * @param <T> type of element
+     * @return empty filter
+     */
+    public static <T> BloomFilter<T> create(long expectedInsertions, double falsePositiveRate,
+                                            ToLongFunction<? super T> hasher) {
+
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions must be positive");
+        }
+
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+
+        double ln2 = Math.log(2);
+        long bitCount = Math.max(64, (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2)));
+        int hashFunctions = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * ln2));
+
+        return new BloomFilter<>(bitCount, hashFunctions, Objects.requireNonNull(hasher, "hasher"));
+    }
+
+    /**
+     * Adds an element to the filter.
+     *
+     * @param element element to be added
+     * @return {@code true} if the element was definitely not added before,
+     * {@code false} if it might have been added before; an element added concurrently by several threads
+     * may be reported as new to more than one of them
+     */
+    public boolean put(T element) {
+        long hash = this.hasher.applyAsLong(element);
+        long secondHash = Hashing.rehash(hash);
+
+        boolean changed = false;
+        for (int i = 0; i < this.hashFunctions; i++) {
+            changed |= setBit(index(hash, secondHash, i));
+        }
+
+        return changed;
+    }
+
+    /**
+     * Checks if an element might have been added to the filter.
+     *
+     * @param element element to be checked
+     * @return {@code false} if the element was definitely not added, {@code true} if it might have been added
+     */
+    public boolean mightContain(T element) {
+        long hash = this.hasher.applyAsLong(element);
+        long secondHash = Hashing.rehash(hash);
+
+        for (int i = 0; i < this.hashFunctions; i++) {
+            long index = index(hash, secondHash, i);
+            if ((this.words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Adds all the elements of another filter of the same configuration to this filter.
+     *
+     * @param other filter to be merged
+     * @return this filter
+     */
+    public BloomFilter<T> merge(BloomFilter<T> other) {
+        if (other.bitCount != this.bitCount || other.hashFunctions != this.hashFunctions) {
+            throw new IllegalArgumentException("Filters of different configurations cannot be merged");
+        }
+
+        for (int i = 0; i < this.words.length(); i++) {
+            long bits = other.words.get(i);
+            if (bits != 0) {
+                this.words.accumulateAndGet(i, bits, (left, right) -> left | right);
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * Returns the number of bits used by the filter.
+     *
+     * @return number of bits
+     */
+    public long getBitCount() {
+        return this.bitCount;
+    }
+
+    /**
+     * Returns the number of hash functions applied to every element.
+     *
+     * @return number of hash functions
+     */
+    public int getHashFunctions() {
+        return this.hashFunctions;
+    }
+
+    private long index(long hash, long secondHash, int i) {
+        return ((hash + i * secondHash) & Long.MAX_VALUE) % this.bitCount;
+    }
+
+    private boolean setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+
+        long current;
+        do {
+            current = this.words.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+        } while (!this.words.compareAndSet(word, current, current | mask));
+
+        return true;
+    }
+
+}
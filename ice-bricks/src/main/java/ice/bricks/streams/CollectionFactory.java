@@ -0,0 +1,200 @@
+package ice.bricks.streams;
+
+import ice.bricks.reflection.ReflectionUtils;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.Vector;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.TransferQueue;
+
+/**
+ * Creates collections of a requested type presized for an expected number of elements.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class CollectionFactory {
+
+    static final int UNKNOWN_SIZE = -1;
+
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    /**
+     * Creates a collection of a given type. Concrete types are instantiated as is,
+     * interfaces and abstract types are replaced with a default implementation of their family.
+     *
+     * @param collectionType requested collection type
+     * @param expectedSize expected number of elements or {@link #UNKNOWN_SIZE}
+     * @return new empty collection
+     */
+    static Collection<Object> newCollection(Class<?> collectionType, long expectedSize) {
+        int capacity = expectedSize < 0 ? UNKNOWN_SIZE : (int) Math.min(expectedSize, MAX_CAPACITY);
+
+        Collection<Object> collection = isInstantiable(collectionType)
+                ? newConcreteCollection(collectionType, capacity)
+                : newDefaultCollection(collectionType, capacity);
+
+        if (!collectionType.isInstance(collection)) {
+            throw new IllegalArgumentException(collectionType.getCanonicalName() + " is not supported");
+        }
+
+        return collection;
+    }
+
+    /**
+     * Checks if a collection of a given type can be created, without creating it.
+     *
+     * @param collectionType requested collection type
+     */
+    static void checkSupported(Class<?> collectionType) {
+        boolean iterable = Iterable.class.isAssignableFrom(collectionType);
+        boolean collection = Collection.class.isAssignableFrom(collectionType);
+
+        if (!iterable || (isInstantiable(collectionType) && !collection)) {
+            throw new IllegalArgumentException(collectionType.getCanonicalName() + " is not supported");
+        }
+    }
+
+    /**
+     * Checks if elements can be collected into a single shared collection of a given type concurrently,
+     * that is if a thread-safe collection is requested explicitly and it does not depend on the encounter order.
+     * Other types are never replaced with a concurrent one, as such collections reject {@code null} elements.
+     *
+     * @param collectionType requested collection type
+     * @return {@code true} if the collection can be filled concurrently
+     */
+    static boolean isConcurrentUnordered(Class<?> collectionType) {
+        return collectionType == ConcurrentSkipListSet.class || collectionType == ConcurrentHashMap.KeySetView.class;
+    }
+
+    /**
+     * Checks if a given type is collected into a {@link HashSet}, so partial results can be merged in any order.
+     *
+     * @param collectionType requested collection type
+     * @return {@code true} if the collection is a hash set
+     */
+    static boolean isUnorderedHashSet(Class<?> collectionType) {
+        if (isInstantiable(collectionType)) {
+            return collectionType == HashSet.class;
+        }
+
+        return Set.class.isAssignableFrom(collectionType)
+                && !SortedSet.class.isAssignableFrom(collectionType)
+                && collectionType.isAssignableFrom(HashSet.class);
+    }
+
+    /**
+     * Creates a thread-safe collection of a given type, see {@link #isConcurrentUnordered(Class)}.
+     *
+     * @param collectionType requested collection type
+     * @return new empty collection
+     */
+    static Collection<Object> newConcurrentCollection(Class<?> collectionType) {
+        if (collectionType == ConcurrentSkipListSet.class) {
+            return new ConcurrentSkipListSet<>();
+        }
+
+        return ConcurrentHashMap.newKeySet();
+    }
+
+    static boolean isInstantiable(Class<?> collectionType) {
+        return !collectionType.isInterface() && !Modifier.isAbstract(collectionType.getModifiers());
+    }
+
+    static int hashCapacity(int expectedSize) {
+        return (int) Math.min(expectedSize / 0.75f + 1, MAX_CAPACITY);
+    }
+
+    private static Collection<Object> newConcreteCollection(Class<?> collectionType, int capacity) {
+        if (!Collection.class.isAssignableFrom(collectionType)) {
+            throw new IllegalArgumentException(collectionType.getCanonicalName() + " is not supported");
+        }
+
+        if (collectionType == ConcurrentHashMap.KeySetView.class) {
+            return capacity >= 0 ? ConcurrentHashMap.newKeySet(capacity) : ConcurrentHashMap.newKeySet();
+        }
+
+        // only well-known types are presized, for other types meaning of an int constructor is not defined
+        if (capacity >= 0) {
+            if (collectionType == ArrayList.class) {
+                return new ArrayList<>(capacity);
+            }
+
+            if (collectionType == ArrayDeque.class) {
+                return new ArrayDeque<>(capacity);
+            }
+
+            if (collectionType == HashSet.class) {
+                return new HashSet<>(hashCapacity(capacity));
+            }
+
+            if (collectionType == LinkedHashSet.class) {
+                return new LinkedHashSet<>(hashCapacity(capacity));
+            }
+
+            if (collectionType == Vector.class) {
+                return new Vector<>(capacity);
+            }
+
+            if (collectionType == PriorityQueue.class) {
+                return new PriorityQueue<>(Math.max(capacity, 1));
+            }
+        }
+
+        return ReflectionUtils.generateNewInstance(collectionType);
+    }
+
+    private static Collection<Object> newDefaultCollection(Class<?> collectionType, int capacity) {
+        if (List.class.isAssignableFrom(collectionType)) {
+            return capacity >= 0 ? new ArrayList<>(capacity) : new ArrayList<>();
+        }
+
+        if (SortedSet.class.isAssignableFrom(collectionType)) {
+            return new TreeSet<>();
+        }
+
+        if (Set.class.isAssignableFrom(collectionType)) {
+            return capacity >= 0 ? new HashSet<>(hashCapacity(capacity)) : new HashSet<>();
+        }
+
+        if (BlockingDeque.class.isAssignableFrom(collectionType)) {
+            return new LinkedBlockingDeque<>();
+        }
+
+        if (TransferQueue.class.isAssignableFrom(collectionType)) {
+            return new LinkedTransferQueue<>();
+        }
+
+        if (BlockingQueue.class.isAssignableFrom(collectionType)) {
+            return new LinkedBlockingQueue<>();
+        }
+
+        if (Queue.class.isAssignableFrom(collectionType)) {
+            return capacity >= 0 ? new ArrayDeque<>(capacity) : new ArrayDeque<>();
+        }
+
+        if (Iterable.class.isAssignableFrom(collectionType)) {
+            return capacity >= 0 ? new ArrayList<>(capacity) : new ArrayList<>();
+        }
+
+        throw new IllegalArgumentException(collectionType.getCanonicalName() + " is not supported");
+    }
+
+}
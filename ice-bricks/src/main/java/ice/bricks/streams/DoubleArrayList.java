@@ -0,0 +1,223 @@
+package ice.bricks.streams;
+
+import java.util.AbstractList;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.stream.DoubleStream;
+
+/**
+ * Growable list of {@code double} values backed by a primitive array.
+ * Values are boxed only when accessed through the {@link java.util.List} interface.
+ *
+ * A {@link DoubleStream} can be collected without boxing, also in parallel:
+ * <pre>
+ *     DoubleArrayList values = doubleStream.collect(
+ *             DoubleArrayList::new, DoubleArrayList::add, DoubleArrayList::addAll);
+ * </pre>
+ */
+public final class DoubleArrayList extends AbstractList<Double> implements RandomAccess {
+
+    private static final int DEFAULT_CAPACITY = 10;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private double[] values;
+    private int size;
+
+    public DoubleArrayList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public DoubleArrayList(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity is negative");
+        }
+
+        this.values = new double[capacity];
+    }
+
+    /**
+     * Appends a value to the end of the list.
+     *
+     * @param value value to be added
+     */
+    public void add(double value) {
+        ensureCapacity(this.size + 1);
+        this.values[this.size++] = value;
+        this.modCount++;
+    }
+
+    /**
+     * Appends all the values of another list to the end of this list.
+     *
+     * @param other list to take values from
+     */
+    public void addAll(DoubleArrayList other) {
+        ensureCapacity(this.size + other.size);
+        System.arraycopy(other.values, 0, this.values, this.size, other.size);
+        this.size += other.size;
+        this.modCount++;
+    }
+
+    /**
+     * Returns a value at a given position without boxing.
+     *
+     * @param index position of the value
+     * @return value at the position
+     */
+    public double getDouble(int index) {
+        checkIndex(index);
+        return this.values[index];
+    }
+
+    /**
+     * Copies the values into a new array.
+     *
+     * @return array with all the values
+     */
+    public double[] toDoubleArray() {
+        return Arrays.copyOf(this.values, this.size);
+    }
+
+    /**
+     * Returns a stream of the values without boxing.
+     *
+     * @return stream of the values
+     */
+    public DoubleStream doubleStream() {
+        return Arrays.stream(this.values, 0, this.size);
+    }
+
+    /**
+     * Creates an unmodifiable set of distinct values of this list, ordered by value
+     * and backed by a primitive array.
+     *
+     * @return set of distinct values
+     */
+    public Set<Double> toSet() {
+        double[] sorted = toDoubleArray();
+        Arrays.sort(sorted);
+
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (distinct == 0 || Double.compare(sorted[distinct - 1], sorted[i]) != 0) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+
+        return new DoubleArraySet(Arrays.copyOf(sorted, distinct));
+    }
+
+    @Override
+    public Double get(int index) {
+        return getDouble(index);
+    }
+
+    @Override
+    public Double set(int index, Double element) {
+        checkIndex(index);
+
+        double previous = this.values[index];
+        this.values[index] = element;
+        return previous;
+    }
+
+    @Override
+    public void add(int index, Double element) {
+        if (index < 0 || index > this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + this.size);
+        }
+
+        ensureCapacity(this.size + 1);
+        System.arraycopy(this.values, index, this.values, index + 1, this.size - index);
+        this.values[index] = element;
+        this.size++;
+        this.modCount++;
+    }
+
+    @Override
+    public Double remove(int index) {
+        checkIndex(index);
+
+        double previous = this.values[index];
+        System.arraycopy(this.values, index + 1, this.values, index, this.size - index - 1);
+        this.size--;
+        this.modCount++;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        this.size = 0;
+        this.modCount++;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > this.values.length) {
+            if (capacity > MAX_CAPACITY) {
+                throw new OutOfMemoryError("Required array size is too large");
+            }
+
+            int newCapacity = (int) Math.min(Math.max((long) this.values.length * 2, capacity), MAX_CAPACITY);
+            this.values = Arrays.copyOf(this.values, newCapacity);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + this.size);
+        }
+    }
+
+    private static final class DoubleArraySet extends AbstractSet<Double> {
+
+        private final double[] values;
+
+        private DoubleArraySet(double[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            return object instanceof Double && Arrays.binarySearch(this.values, (Double) object) >= 0;
+        }
+
+        @Override
+        public Iterator<Double> iterator() {
+            return new Iterator<>() {
+
+                private int index = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return this.index < DoubleArraySet.this.values.length;
+                }
+
+                @Override
+                public Double next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+
+                    return DoubleArraySet.this.values[this.index++];
+                }
+
+            };
+        }
+
+        @Override
+        public int size() {
+            return this.values.length;
+        }
+
+    }
+
+}
@@ -0,0 +1,409 @@
+package ice.bricks.streams;
+
+import ice.bricks.exceptions.ExceptionUtils;
+import ice.bricks.io.IoUtils;
+import lombok.Builder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Sorts streams that do not fit into memory. Elements are collected into runs within a memory budget,
+ * every run is sorted and spilled to a temporary file, and the files are lazily merged
+ * with {@link StreamUtils#mergeSorted(Comparator, java.util.Collection, boolean)}.
+ *
+ * Instead of:
+ * <pre>
+ *     records.sorted(comparator).forEach(this::export);
+ * </pre>
+ *
+ * the code may look like this:
+ * <pre>
+ *     ExternalSorter&lt;Record&gt; sorter = ExternalSorter.&lt;Record&gt;builder()
+ *             .comparator(comparator)
+ *             .serializer(new RecordCodec())
+ *             .memoryBudget(512L * 1024 * 1024)
+ *             .recordSizeEstimator(Record::estimateSize)
+ *             .parallelism(4)
+ *             .build();
+ *
+ *     try (Stream&lt;Record&gt; sorted = sorter.sort(records)) {
+ *         sorted.forEach(this::export);
+ *     }
+ * </pre>
+ *
+ * The input stream is consumed by {@link #sort(Stream)}, the resulting stream reads the runs back on demand.
+ * At most {@code mergeFanIn} runs are read at once; when there are more of them, they are first merged
+ * into fewer, longer runs in several passes.
+ * Temporary files are deleted when the resulting stream is closed.
+ * The sort is stable: equal elements keep their order from the input stream.
+ */
+public final class ExternalSorter<T> {
+
+    private static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024;
+    private static final long DEFAULT_RECORD_SIZE = 256;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int DEFAULT_MERGE_FAN_IN = 64;
+
+    private final Comparator<? super T> comparator;
+    private final RecordSerializer<T> serializer;
+    private final long runBudget;
+    private final ToLongFunction<? super T> recordSizeEstimator;
+    private final Path tempDirectory;
+    private final int parallelism;
+    private final Executor executor;
+    private final int mergeFanIn;
+
+    /**
+     * Creates a sorter.
+     *
+     * @param comparator comparator to sort elements by
+     * @param serializer serializer to write elements to temporary files and read them back
+     * @param memoryBudget approximate number of bytes taken by elements held in memory, {@code 64MB} by default
+     * @param recordSizeEstimator estimates the number of bytes taken by an element in memory,
+     *                            {@code 256} bytes for every element by default
+     * @param tempDirectory directory for temporary files, {@code java.io.tmpdir} by default
+     * @param parallelism number of runs that are sorted and spilled concurrently, {@code 1} by default;
+     *                    the memory budget is shared between the runs
+     * @param executor executor to sort and spill runs with, the common {@link ForkJoinPool} by default,
+     *                 runs are sorted in the calling thread if the parallelism is {@code 1}
+     * @param mergeFanIn maximum number of runs that are merged at once, {@code 64} by default;
+     *                   every merged run holds an open file and a read buffer
+     */
+    @Builder
+    private ExternalSorter(Comparator<? super T> comparator, RecordSerializer<T> serializer, Long memoryBudget,
+                           ToLongFunction<? super T> recordSizeEstimator, Path tempDirectory,
+                           Integer parallelism, Executor executor, Integer mergeFanIn) {
+
+        this.comparator = Objects.requireNonNull(comparator, "comparator");
+        this.serializer = Objects.requireNonNull(serializer, "serializer");
+        this.recordSizeEstimator = Objects.requireNonNullElse(recordSizeEstimator, record -> DEFAULT_RECORD_SIZE);
+        this.tempDirectory = Objects.requireNonNullElse(tempDirectory, Paths.get(System.getProperty("java.io.tmpdir")));
+        this.parallelism = Objects.requireNonNullElse(parallelism, 1);
+
+        if (this.parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+
+        this.mergeFanIn = Objects.requireNonNullElse(mergeFanIn, DEFAULT_MERGE_FAN_IN);
+        if (this.mergeFanIn < 2) {
+            throw new IllegalArgumentException("mergeFanIn must be at least 2");
+        }
+
+        long budget = Objects.requireNonNullElse(memoryBudget, DEFAULT_MEMORY_BUDGET);
+        if (budget <= 0) {
+            throw new IllegalArgumentException("memoryBudget must be positive");
+        }
+
+        this.runBudget = Math.max(1, budget / this.parallelism);
+        this.executor = this.parallelism == 1
+                ? Runnable::run
+                : Objects.requireNonNullElseGet(executor, ForkJoinPool::commonPool);
+    }
+
+    /**
+     * Sorts elements of a stream. The stream is consumed before the method returns,
+     * and it is closed when the resulting stream is closed.
+     *
+     * @param elements stream of elements
+     * @return sorted stream of elements
+     */
+    public Stream<T> sort(Stream<T> elements) {
+        RunGenerator generator = new RunGenerator();
+
+        try {
+            elements.spliterator().forEachRemaining(generator);
+            return generator.finish().onClose(elements::close);
+        }
+        catch (RuntimeException | Error e) {
+            generator.abort();
+            throw e;
+        }
+    }
+
+    private Run writeRun(List<T> records) {
+        records.sort(this.comparator);
+        return writeRun(records, records.size());
+    }
+
+    private Run writeRun(Iterable<? extends T> records, long size) {
+        Path file = IoUtils.runSafe(() -> Files.createTempFile(this.tempDirectory, "ice-bricks-sort-", ".run"));
+
+        try {
+            IoUtils.runSafe(() -> {
+                try (DataOutputStream output = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE))) {
+
+                    for (T record : records) {
+                        this.serializer.write(record, output);
+                    }
+                }
+            });
+        }
+        catch (RuntimeException e) {
+            deleteRuns(List.of(new Run(file, 0)));
+            throw e;
+        }
+
+        return new Run(file, size);
+    }
+
+    /**
+     * Merges runs into fewer ones until they can be merged at once together with the run kept in memory.
+     * Consecutive runs are merged, so equal elements keep their order. Merged runs are deleted.
+     */
+    private List<Run> reduceRuns(List<Run> runs) {
+        List<Run> remaining = runs;
+
+        while (remaining.size() >= this.mergeFanIn) {
+            List<Run> merged = new ArrayList<>(remaining.size() / this.mergeFanIn + 1);
+
+            try {
+                for (int from = 0; from < remaining.size(); from += this.mergeFanIn) {
+                    List<Run> group = remaining.subList(from, Math.min(from + this.mergeFanIn, remaining.size()));
+                    if (group.size() == 1) {
+                        merged.add(group.get(0));
+                    }
+                    else {
+                        merged.add(mergeRuns(group));
+                        deleteRuns(group);
+                    }
+                }
+            }
+            catch (RuntimeException e) {
+                deleteRuns(merged);
+                deleteRuns(remaining);
+                throw e;
+            }
+
+            remaining = merged;
+        }
+
+        return remaining;
+    }
+
+    private Run mergeRuns(List<Run> runs) {
+        long size = 0;
+        for (Run run : runs) {
+            size += run.size;
+        }
+
+        try (Stream<T> merged = StreamUtils.mergeSorted(this.comparator, readRuns(runs), false)) {
+            return writeRun(merged::iterator, size);
+        }
+    }
+
+    private List<Stream<T>> readRuns(List<Run> runs) {
+        List<Stream<T>> streams = new ArrayList<>(runs.size() + 1);
+
+        try {
+            for (Run run : runs) {
+                streams.add(readRun(run));
+            }
+        }
+        catch (RuntimeException e) {
+            streams.forEach(Stream::close);
+            throw e;
+        }
+
+        return streams;
+    }
+
+    private Stream<T> readRun(Run run) {
+        DataInputStream input = IoUtils.runSafe(() -> new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(run.file), BUFFER_SIZE)));
+
+        return StreamSupport.stream(new RunSpliterator(input, run.size), false)
+                .onClose(() -> IoUtils.runSafe(input::close));
+    }
+
+    private static void deleteRuns(List<Run> runs) {
+        Throwable failure = null;
+        for (Run run : runs) {
+            try {
+                IoUtils.runSafe(() -> Files.deleteIfExists(run.file));
+            }
+            catch (RuntimeException e) {
+                failure = ExceptionUtils.chainExceptions(failure, e);
+            }
+        }
+
+        if (failure != null) {
+            throw (RuntimeException) failure;
+        }
+    }
+
+    /**
+     * Sorted run spilled to a temporary file.
+     */
+    private static final class Run {
+
+        private final Path file;
+        private final long size;
+
+        private Run(Path file, long size) {
+            this.file = file;
+            this.size = size;
+        }
+
+    }
+
+    /**
+     * Collects elements into runs and spills full runs, limiting the number of runs held in memory.
+     */
+    private final class RunGenerator implements Consumer<T> {
+
+        private final Semaphore buffers = new Semaphore(ExternalSorter.this.parallelism);
+        private final List<CompletableFuture<Run>> runs = new ArrayList<>();
+
+        private List<T> buffer;
+        private long bufferBytes;
+
+        @Override
+        public void accept(T record) {
+            if (this.buffer == null) {
+                acquireBuffer();
+                this.buffer = new ArrayList<>();
+                this.bufferBytes = 0;
+            }
+
+            this.buffer.add(record);
+            this.bufferBytes += ExternalSorter.this.recordSizeEstimator.applyAsLong(record);
+
+            if (this.bufferBytes >= ExternalSorter.this.runBudget) {
+                spill();
+            }
+        }
+
+        private Stream<T> finish() {
+            // the last run is kept in memory and merged with the spilled ones
+            List<T> last = this.buffer == null ? new ArrayList<>() : this.buffer;
+            this.buffer = null;
+            last.sort(ExternalSorter.this.comparator);
+
+            if (this.runs.isEmpty()) {
+                return last.stream();
+            }
+
+            List<Run> spilled = reduceRuns(awaitRuns());
+            List<Stream<T>> streams;
+
+            try {
+                streams = readRuns(spilled);
+            }
+            catch (RuntimeException e) {
+                deleteRuns(spilled);
+                throw e;
+            }
+
+            streams.add(last.stream());
+
+            return StreamUtils.mergeSorted(ExternalSorter.this.comparator, streams, false)
+                    .onClose(() -> deleteRuns(spilled));
+        }
+
+        private void abort() {
+            this.buffer = null;
+
+            List<Run> spilled = new ArrayList<>();
+            for (CompletableFuture<Run> run : this.runs) {
+                Run completed = ExceptionUtils.defaultIfException(run::join, null);
+                if (completed != null) {
+                    spilled.add(completed);
+                }
+            }
+
+            deleteRuns(spilled);
+        }
+
+        private void spill() {
+            List<T> records = this.buffer;
+            this.buffer = null;
+
+            this.runs.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return writeRun(records);
+                }
+                finally {
+                    this.buffers.release();
+                }
+            }, ExternalSorter.this.executor));
+        }
+
+        private List<Run> awaitRuns() {
+            List<Run> spilled = new ArrayList<>(this.runs.size());
+            for (CompletableFuture<Run> run : this.runs) {
+                try {
+                    spilled.add(run.join());
+                }
+                catch (CompletionException e) {
+                    Throwable cause = e.getCause();
+                    throw cause instanceof RuntimeException ? (RuntimeException) cause : e;
+                }
+            }
+
+            return spilled;
+        }
+
+        private void acquireBuffer() {
+            try {
+                this.buffers.acquire();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a run to be spilled", e);
+            }
+        }
+
+    }
+
+    /**
+     * Reads records of a run file.
+     */
+    private final class RunSpliterator extends Spliterators.AbstractSpliterator<T> {
+
+        private final DataInputStream input;
+        private long remaining;
+
+        private RunSpliterator(DataInputStream input, long size) {
+            super(size, Spliterator.ORDERED | Spliterator.SIZED);
+
+            this.input = input;
+            this.remaining = size;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (this.remaining == 0) {
+                return false;
+            }
+
+            T record = IoUtils.runSafe(() -> ExternalSorter.this.serializer.read(this.input));
+            this.remaining--;
+            action.accept(record);
+            return true;
+        }
+
+    }
+
+}
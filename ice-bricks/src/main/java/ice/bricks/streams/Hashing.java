@@ -0,0 +1,50 @@
+package ice.bricks.streams;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Derives well-distributed 64-bit hashes for probabilistic structures.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class Hashing {
+
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Spreads {@link Object#hashCode()} of an element over 64 bits.
+     * Elements with equal hash codes get equal hashes, so the quality depends on {@code hashCode()}.
+     *
+     * @param element element to be hashed, may be {@code null}
+     * @return 64-bit hash
+     */
+    static long hash(Object element) {
+        return mix(element == null ? 0 : element.hashCode() * GOLDEN_RATIO);
+    }
+
+    /**
+     * Finalization step of MurmurHash3, every bit of the input affects every bit of the result.
+     *
+     * @param value value to be mixed
+     * @return mixed value
+     */
+    static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    /**
+     * Derives a second hash, independent enough to combine with the first one for double hashing.
+     *
+     * @param hash first hash
+     * @return second hash
+     */
+    static long rehash(long hash) {
+        return mix(hash + GOLDEN_RATIO);
+    }
+
+}
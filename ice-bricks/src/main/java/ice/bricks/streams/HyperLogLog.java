@@ -0,0 +1,134 @@
+package ice.bricks.streams;
+
+/**
+ * HyperLogLog cardinality estimator: counts distinct elements approximately in a fixed amount of memory.
+ * With precision {@code p} it takes {@code 2^p} bytes and has a standard error of about {@code 1.04 / sqrt(2^p)},
+ * e.g. {@code 0.8%} for the default precision of {@code 14}.
+ *
+ * Instances are not thread-safe, estimators built for parts of a stream are combined with
+ * {@link #merge(HyperLogLog)}, see {@link StreamUtils#toHyperLogLog(int)}.
+ */
+public final class HyperLogLog {
+
+    /**
+     * Precision used if not specified explicitly.
+     */
+    public static final int DEFAULT_PRECISION = 14;
+
+    private static final int MIN_PRECISION = 4;
+    private static final int MAX_PRECISION = 18;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException(
+                    "precision must be between " + MIN_PRECISION + " and " + MAX_PRECISION);
+        }
+
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Adds an element hashed by its {@link Object#hashCode()}.
+     *
+     * @param element element to be added
+     */
+    public void add(Object element) {
+        addHash(Hashing.hash(element));
+    }
+
+    /**
+     * Adds an element by its well-distributed 64-bit hash.
+     *
+     * @param hash hash of an element
+     */
+    public void addHash(long hash) {
+        int index = (int) (hash >>> (Long.SIZE - this.precision));
+
+        // the sentinel bit limits the rank if all the remaining bits are zero
+        long remaining = (hash << this.precision) | (1L << (this.precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+
+        if (rank > this.registers[index]) {
+            this.registers[index] = rank;
+        }
+    }
+
+    /**
+     * Adds all the elements of another estimator of the same precision to this estimator.
+     *
+     * @param other estimator to be merged
+     * @return this estimator
+     */
+    public HyperLogLog merge(HyperLogLog other) {
+        if (other.precision != this.precision) {
+            throw new IllegalArgumentException("Estimators of different precision cannot be merged");
+        }
+
+        for (int i = 0; i < this.registers.length; i++) {
+            if (other.registers[i] > this.registers[i]) {
+                this.registers[i] = other.registers[i];
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * Estimates the number of distinct elements added.
+     *
+     * @return estimated number of distinct elements
+     */
+    public long cardinality() {
+        int registerCount = this.registers.length;
+
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : this.registers) {
+            sum += 1.0 / (1L << register);
+
+            if (register == 0) {
+                zeros++;
+            }
+        }
+
+        double estimate = alpha(registerCount) * registerCount * registerCount / sum;
+
+        // linear counting is more accurate for small cardinalities
+        if (estimate <= 2.5 * registerCount && zeros > 0) {
+            estimate = registerCount * Math.log((double) registerCount / zeros);
+        }
+
+        return Math.round(estimate);
+    }
+
+    /**
+     * Returns the precision of the estimator.
+     *
+     * @return precision
+     */
+    public int getPrecision() {
+        return this.precision;
+    }
+
+    private static double alpha(int registerCount) {
+        switch (registerCount) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / registerCount);
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+package ice.bricks.streams;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator that lazily merges sorted spliterators into a single sorted sequence.
+ * Only the current head of every source is kept in a heap, so memory usage depends
+ * on the number of sources rather than on their sizes.
+ * Equal elements of different sources are produced in the order of the sources.
+ */
+final class MergeSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+    private final List<? extends Spliterator<? extends T>> sources;
+    private final Comparator<? super T> comparator;
+    private final boolean distinct;
+
+    private PriorityQueue<Head<T>> heads;
+
+    private boolean hasLast = false;
+    private T last;
+
+    MergeSpliterator(List<? extends Spliterator<? extends T>> sources, Comparator<? super T> comparator,
+                     boolean distinct) {
+
+        super(estimateSize(sources), Spliterator.ORDERED | Spliterator.SORTED);
+
+        this.sources = sources;
+        this.comparator = comparator;
+        this.distinct = distinct;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (this.heads == null) {
+            initHeads();
+        }
+
+        Head<T> head;
+        while ((head = this.heads.poll()) != null) {
+            T value = head.value;
+
+            if (head.advance()) {
+                this.heads.add(head);
+            }
+
+            if (this.distinct && this.hasLast && this.comparator.compare(this.last, value) == 0) {
+                continue;
+            }
+
+            this.hasLast = true;
+            this.last = value;
+
+            action.accept(value);
+            return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public Comparator<? super T> getComparator() {
+        return this.comparator;
+    }
+
+    private void initHeads() {
+        Comparator<Head<T>> byValue = (left, right) -> this.comparator.compare(left.value, right.value);
+        this.heads = new PriorityQueue<>(Math.max(1, this.sources.size()),
+                byValue.thenComparingInt(head -> head.index));
+
+        for (int i = 0; i < this.sources.size(); i++) {
+            Head<T> head = new Head<>(this.sources.get(i), i);
+            if (head.advance()) {
+                this.heads.add(head);
+            }
+        }
+    }
+
+    private static long estimateSize(List<? extends Spliterator<?>> sources) {
+        long size = 0;
+        for (Spliterator<?> source : sources) {
+            size += source.estimateSize();
+
+            if (size < 0) {
+                return Long.MAX_VALUE;
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Current element of a source.
+     */
+    private static final class Head<T> implements Consumer<T> {
+
+        private final Spliterator<? extends T> source;
+        private final int index;
+
+        private T value;
+
+        private Head(Spliterator<? extends T> source, int index) {
+            this.source = source;
+            this.index = index;
+        }
+
+        private boolean advance() {
+            return this.source.tryAdvance(this);
+        }
+
+        @Override
+        public void accept(T value) {
+            this.value = value;
+        }
+
+    }
+
+}
@@ -0,0 +1,30 @@
+package ice.bricks.streams;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes and reads records of a certain type, used by {@link ExternalSorter} to spill sorted runs to files.
+ */
+public interface RecordSerializer<T> {
+
+    /**
+     * Writes a record.
+     *
+     * @param record record to be written
+     * @param output output to write the record to
+     * @throws IOException if writing fails
+     */
+    void write(T record, DataOutput output) throws IOException;
+
+    /**
+     * Reads a record written by {@link #write(Object, DataOutput)}.
+     *
+     * @param input input to read the record from
+     * @return record
+     * @throws IOException if reading fails
+     */
+    T read(DataInput input) throws IOException;
+
+}
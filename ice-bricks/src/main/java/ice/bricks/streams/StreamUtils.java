@@ -1,15 +1,34 @@
 package ice.bricks.streams;
 
+import ice.bricks.exceptions.ExceptionUtils;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.PriorityQueue;
-import java.util.Queue;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Contains streams related utility methods.
@@ -34,28 +53,543 @@ public final class StreamUtils {
      * Collects the stream of elements into a collection of a specified type.
      * Input/output types are not checked.
      *
+     * Concrete collection types are instantiated as is, while interfaces and abstract types are replaced
+     * with a default implementation of their family: {@code ArrayList} for lists and other iterables,
+     * {@code HashSet} for sets, {@code TreeSet} for sorted sets and {@code ArrayDeque} for queues.
+     * If the size of the stream is known in advance the collection is presized to avoid resizing.
+     *
+     * Parallel streams are collected according to the target type, so the result is of the same type
+     * as for a sequential stream: a {@link ConcurrentSkipListSet} or a
+     * {@link ConcurrentHashMap#newKeySet() concurrent key set} requested explicitly is filled concurrently,
+     * hash sets are de-duplicated per thread and merged, the smaller set into the larger one,
+     * and other collections are filled from an array where elements are placed by their position in the stream.
+     *
      * @param elements stream of elements
      * @param collectionType target collection type
      * @return collection of a specified type with elements from the stream
      */
     public static Collection<?> collectStreamUnsafe(Stream<?> elements, Class<?> collectionType) {
-        if (List.class.isAssignableFrom(collectionType)) {
-            return elements.collect(Collectors.toList());
+        if (elements.isParallel()) {
+            return collectParallelStream(elements, collectionType);
+        }
+
+        Spliterator<?> spliterator = elements.spliterator();
+        Collection<Object> collection = CollectionFactory.newCollection(
+                collectionType, spliterator.getExactSizeIfKnown());
+
+        spliterator.forEachRemaining(collection::add);
+        return collection;
+    }
+
+    /**
+     * Collects the stream of {@code int} values into a collection of a specified type.
+     * Lists, sets and other iterables requested by an interface are backed by a primitive array
+     * ({@link IntArrayList} and its {@link IntArrayList#toSet()} view), so values are not boxed while collecting.
+     * A {@link Set} requested by the interface itself is unmodifiable and iterates distinct values in ascending order.
+     * Other collection types are collected as {@link #collectStream(Stream, Class)} does.
+     *
+     * @param elements stream of values
+     * @param collectionType target collection type
+     * @return collection of a specified type with values from the stream
+     */
+    public static Collection<Integer> collectIntStream(IntStream elements, Class<?> collectionType) {
+        if (!isPrimitiveBackedTarget(collectionType, IntArrayList.class)) {
+            return collectStream(elements.boxed(), collectionType);
+        }
+
+        IntArrayList values;
+        if (elements.isParallel()) {
+            values = elements.collect(IntArrayList::new, IntArrayList::add, IntArrayList::addAll);
+        }
+        else {
+            Spliterator.OfInt spliterator = elements.spliterator();
+            values = new IntArrayList(initialCapacity(spliterator));
+            spliterator.forEachRemaining((IntConsumer) values::add);
+        }
+
+        return collectionType == Set.class ? values.toSet() : values;
+    }
+
+    /**
+     * Collects the stream of {@code long} values into a collection of a specified type.
+     * Lists, sets and other iterables requested by an interface are backed by a primitive array
+     * ({@link LongArrayList} and its {@link LongArrayList#toSet()} view), so values are not boxed while collecting.
+     * A {@link Set} requested by the interface itself is unmodifiable and iterates distinct values in ascending order.
+     * Other collection types are collected as {@link #collectStream(Stream, Class)} does.
+     *
+     * @param elements stream of values
+     * @param collectionType target collection type
+     * @return collection of a specified type with values from the stream
+     */
+    public static Collection<Long> collectLongStream(LongStream elements, Class<?> collectionType) {
+        if (!isPrimitiveBackedTarget(collectionType, LongArrayList.class)) {
+            return collectStream(elements.boxed(), collectionType);
+        }
+
+        LongArrayList values;
+        if (elements.isParallel()) {
+            values = elements.collect(LongArrayList::new, LongArrayList::add, LongArrayList::addAll);
+        }
+        else {
+            Spliterator.OfLong spliterator = elements.spliterator();
+            values = new LongArrayList(initialCapacity(spliterator));
+            spliterator.forEachRemaining((LongConsumer) values::add);
+        }
+
+        return collectionType == Set.class ? values.toSet() : values;
+    }
+
+    /**
+     * Collects the stream of {@code double} values into a collection of a specified type.
+     * Lists, sets and other iterables requested by an interface are backed by a primitive array
+     * ({@link DoubleArrayList} and its {@link DoubleArrayList#toSet()} view), so values are not boxed while collecting.
+     * A {@link Set} requested by the interface itself is unmodifiable and iterates distinct values in ascending order.
+     * Other collection types are collected as {@link #collectStream(Stream, Class)} does.
+     *
+     * @param elements stream of values
+     * @param collectionType target collection type
+     * @return collection of a specified type with values from the stream
+     */
+    public static Collection<Double> collectDoubleStream(DoubleStream elements, Class<?> collectionType) {
+        if (!isPrimitiveBackedTarget(collectionType, DoubleArrayList.class)) {
+            return collectStream(elements.boxed(), collectionType);
+        }
+
+        DoubleArrayList values;
+        if (elements.isParallel()) {
+            values = elements.collect(DoubleArrayList::new, DoubleArrayList::add, DoubleArrayList::addAll);
+        }
+        else {
+            Spliterator.OfDouble spliterator = elements.spliterator();
+            values = new DoubleArrayList(initialCapacity(spliterator));
+            spliterator.forEachRemaining((DoubleConsumer) values::add);
+        }
+
+        return collectionType == Set.class ? values.toSet() : values;
+    }
+
+    /**
+     * Groups elements of the stream into lists of a given size, the last batch may be smaller.
+     * The result is lazy and keeps the parallelism of the source stream.
+     *
+     * Instead of:
+     * <pre>
+     *     List&lt;Record&gt; batch = new ArrayList&lt;&gt;();
+     *     records.forEach(record -&gt; {
+     *         batch.add(record);
+     *         if (batch.size() == 100) {
+     *             repository.saveAll(batch);
+     *             batch.clear();
+     *         }
+     *     });
+     *     ...
+     * </pre>
+     *
+     * the code may look like this:
+     * <pre>
+     *     StreamUtils.batch(records, 100).forEach(repository::saveAll);
+     * </pre>
+     *
+     * Sized sources (like lists and arrays) are split in batch-aligned ranges, so all the batches
+     * except the very last one are full also for parallel streams.
+     *
+     * @param elements stream of elements
+     * @param batchSize maximum number of elements in a batch
+     * @param <T> type of element
+     * @return stream of batches
+     */
+    public static <T> Stream<List<T>> batch(Stream<T> elements, int batchSize) {
+        return batch(elements, batchSize, false);
+    }
+
+    /**
+     * Groups elements of the stream into lists of a given size, see {@link #batch(Stream, int)}.
+     *
+     * If {@code reuseBuffer} is {@code true}, a single list is reused for all the batches
+     * of a sequentially traversed part of the stream, so it is valid only until the next batch is requested.
+     * This is applicable when every batch is consumed immediately, like in {@code forEach}.
+     *
+     * @param elements stream of elements
+     * @param batchSize maximum number of elements in a batch
+     * @param reuseBuffer if the list of a batch may be reused for the next batch
+     * @param <T> type of element
+     * @return stream of batches
+     */
+    public static <T> Stream<List<T>> batch(Stream<T> elements, int batchSize, boolean reuseBuffer) {
+        BatchSpliterator<T> spliterator = new BatchSpliterator<>(elements.spliterator(), batchSize, reuseBuffer);
+        return StreamSupport.stream(spliterator, elements.isParallel()).onClose(elements::close);
+    }
+
+    /**
+     * Produces sliding windows of a given size over elements of the stream.
+     * Every next window starts {@code step} elements after the previous one,
+     * trailing windows smaller than {@code windowSize} are not produced.
+     *
+     * <pre>
+     *     StreamUtils.window(Stream.of(1, 2, 3, 4), 2, 1); // [1, 2], [2, 3], [3, 4]
+     * </pre>
+     *
+     * @param elements stream of elements
+     * @param windowSize number of elements in a window
+     * @param step distance between first elements of adjacent windows
+     * @param <T> type of element
+     * @return stream of windows
+     */
+    public static <T> Stream<List<T>> window(Stream<T> elements, int windowSize, int step) {
+        WindowSpliterator<T> spliterator = new WindowSpliterator<>(elements.spliterator(), windowSize, step);
+        return StreamSupport.stream(spliterator, elements.isParallel()).onClose(elements::close);
+    }
+
+    /**
+     * Creates a parallel stream over elements of an iterator that is split in batches sized by a given policy,
+     * see {@link AdaptiveSpliterator}.
+     *
+     * @param iterator source of elements
+     * @param estimatedSize estimated number of elements, or a negative value if unknown
+     * @param policy batch size policy
+     * @param <T> type of element
+     * @return parallel stream of elements
+     */
+    public static <T> Stream<T> parallelStream(Iterator<T> iterator, long estimatedSize, BatchSizePolicy policy) {
+        return StreamSupport.stream(AdaptiveSpliterator.of(iterator, estimatedSize, policy), true);
+    }
+
+    /**
+     * Makes a stream over a poorly splittable source (like {@link java.io.BufferedReader#lines()})
+     * to be split in batches sized by a given policy, see {@link AdaptiveSpliterator}.
+     * Streams of sources that split well on their own are returned as is.
+     *
+     * @param elements stream of elements
+     * @param policy batch size policy
+     * @param <T> type of element
+     * @return stream of elements
+     */
+    public static <T> Stream<T> rebalance(Stream<T> elements, BatchSizePolicy policy) {
+        Spliterator<T> spliterator = elements.spliterator();
+        if (spliterator.hasCharacteristics(Spliterator.SUBSIZED)) {
+            return StreamSupport.stream(spliterator, elements.isParallel()).onClose(elements::close);
+        }
+
+        return StreamSupport.stream(AdaptiveSpliterator.of(spliterator, -1, policy), elements.isParallel())
+                .onClose(elements::close);
+    }
+
+    /**
+     * Runs a stream pipeline in a given pool, so parallel streams of the pipeline are processed
+     * by workers of the pool instead of the common {@link ForkJoinPool}, and their parallelism
+     * is bounded by the parallelism of the pool.
+     *
+     * <pre>
+     *     ForkJoinPool pool = new ForkJoinPool(4);
+     *     long count = StreamUtils.executeIn(pool, () -&gt; records.parallelStream().filter(this::isValid).count());
+     * </pre>
+     *
+     * Runtime exceptions of the pipeline are propagated to the caller.
+     *
+     * @param pool pool to run the pipeline in
+     * @param pipeline pipeline to be run
+     * @param <R> type of the result
+     * @return result of the pipeline
+     */
+    public static <R> R executeIn(ForkJoinPool pool, Supplier<R> pipeline) {
+        if (ForkJoinTask.getPool() == pool) {
+            return pipeline.get();
+        }
+
+        return pool.submit(pipeline::get).join();
+    }
+
+    /**
+     * Runs a stream pipeline in a new pool of a given parallelism, see {@link #executeIn(ForkJoinPool, Supplier)}.
+     * The pool is shut down once the pipeline is completed.
+     *
+     * @param parallelism maximum number of workers to process parallel streams of the pipeline
+     * @param pipeline pipeline to be run
+     * @param <R> type of the result
+     * @return result of the pipeline
+     */
+    public static <R> R executeWithParallelism(int parallelism, Supplier<R> pipeline) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+        try {
+            return executeIn(pool, pipeline);
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Maps elements of the stream asynchronously with a given executor, keeping the encounter order.
+     * Useful to overlap blocking calls (like remote requests) per element.
+     *
+     * Instead of:
+     * <pre>
+     *     List&lt;CompletableFuture&lt;User&gt;&gt; futures = ids
+     *             .map(id -&gt; CompletableFuture.supplyAsync(() -&gt; client.getUser(id), executor))
+     *             .collect(Collectors.toList());
+     *     List&lt;User&gt; users = futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+     * </pre>
+     *
+     * the code may look like this:
+     * <pre>
+     *     List&lt;User&gt; users = StreamUtils.mapAsync(ids, client::getUser, executor, 16)
+     *             .collect(Collectors.toList());
+     * </pre>
+     *
+     * At most {@code maxInFlight} elements are being mapped at a time, and the next element is taken
+     * from the source only when a mapped one is consumed, so the stream is never loaded into memory at once.
+     * Exceptions of the mapping are propagated when the failed element is consumed.
+     * Closing the resulting stream cancels elements that are still being mapped and closes the source stream.
+     *
+     * @param elements stream of elements
+     * @param mapper mapping function
+     * @param executor executor to run the mapping function in
+     * @param maxInFlight maximum number of elements being mapped at a time
+     * @param <T> type of element
+     * @param <R> type of mapped element
+     * @return sequential stream of mapped elements
+     */
+    public static <T, R> Stream<R> mapAsync(Stream<T> elements, Function<? super T, ? extends R> mapper,
+                                            Executor executor, int maxInFlight) {
+
+        AsyncMapSpliterator<T, R> spliterator =
+                new AsyncMapSpliterator<>(elements.spliterator(), mapper, executor, maxInFlight);
+
+        return StreamSupport.stream(spliterator, false)
+                .onClose(spliterator::cancel)
+                .onClose(elements::close);
+    }
+
+    /**
+     * Lazily merges sorted streams into a single sorted stream, without collecting and re-sorting them.
+     * Equal elements of different streams are produced in the order of the streams.
+     *
+     * Instead of:
+     * <pre>
+     *     Stream.of(first, second, third).flatMap(Function.identity()).sorted(comparator)
+     * </pre>
+     *
+     * the code may look like this:
+     * <pre>
+     *     StreamUtils.mergeSorted(comparator, first, second, third)
+     * </pre>
+     *
+     * @param comparator comparator the streams are sorted by
+     * @param streams sorted streams
+     * @param <T> type of element
+     * @return sorted stream of elements of all the streams
+     */
+    @SafeVarargs
+    public static <T> Stream<T> mergeSorted(Comparator<? super T> comparator, Stream<? extends T>... streams) {
+        // copied element by element so that the generic varargs array does not escape the method
+        List<Stream<? extends T>> sources = new ArrayList<>(streams.length);
+        for (Stream<? extends T> stream : streams) {
+            sources.add(stream);
+        }
+
+        return mergeSorted(comparator, sources, false);
+    }
+
+    /**
+     * Lazily merges sorted streams into a single sorted stream, see {@link #mergeSorted(Comparator, Stream[])}.
+     * Only the current head of every stream is kept in memory.
+     * Closing the merged stream closes all the source streams.
+     *
+     * @param comparator comparator the streams are sorted by
+     * @param streams sorted streams
+     * @param distinct if only the first one of elements equal by the comparator has to be kept
+     * @param <T> type of element
+     * @return sorted stream of elements of all the streams
+     */
+    public static <T> Stream<T> mergeSorted(Comparator<? super T> comparator,
+                                            Collection<? extends Stream<? extends T>> streams, boolean distinct) {
+
+        List<Stream<? extends T>> sources = new ArrayList<>(streams);
+        List<Spliterator<? extends T>> spliterators = new ArrayList<>(sources.size());
+        for (Stream<? extends T> source : sources) {
+            spliterators.add(source.spliterator());
+        }
+
+        return StreamSupport.stream(new MergeSpliterator<T>(spliterators, comparator, distinct), false)
+                .onClose(() -> closeAll(sources));
+    }
+
+    /**
+     * Creates a collector of {@code k} greatest elements by a given comparator, in descending order.
+     * Only {@code k} elements are kept in memory (per thread for parallel streams).
+     *
+     * Instead of:
+     * <pre>
+     *     orders.sorted(comparator.reversed()).limit(10).collect(Collectors.toList())
+     * </pre>
+     *
+     * the code may look like this:
+     * <pre>
+     *     orders.collect(StreamUtils.topK(10, comparator))
+     * </pre>
+     *
+     * @param k maximum number of elements to be collected
+     * @param comparator comparator to compare elements by
+     * @param <T> type of element
+     * @return collector of greatest elements
+     */
+    public static <T> Collector<T, ?, List<T>> topK(int k, Comparator<? super T> comparator) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+
+        return Collector.of(
+                () -> new PriorityQueue<T>(k, comparator),
+                (heap, element) -> offerBounded(heap, element, k, comparator),
+                (left, right) -> {
+                    right.forEach(element -> offerBounded(left, element, k, comparator));
+                    return left;
+                },
+                heap -> {
+                    List<T> top = new ArrayList<>(heap);
+                    top.sort(comparator.reversed());
+                    return top;
+                });
+    }
+
+    /**
+     * Creates a collector of elements into a {@link BloomFilter}, parts of parallel streams are merged.
+     *
+     * @param expectedInsertions expected number of distinct elements
+     * @param falsePositiveRate desired rate of false positives
+     * @param <T> type of element
+     * @return collector of elements into a Bloom filter
+     */
+    public static <T> Collector<T, ?, BloomFilter<T>> toBloomFilter(long expectedInsertions,
+                                                                    double falsePositiveRate) {
+
+        return Collector.of(
+                () -> BloomFilter.<T>create(expectedInsertions, falsePositiveRate),
+                BloomFilter::put,
+                BloomFilter::merge,
+                Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * Drops repeated elements of a stream in constant memory using a {@link BloomFilter}.
+     * Unlike {@link Stream#distinct()} it may also drop unique elements at a given false positive rate.
+     * Parallel streams share a single thread-safe filter, so an element that is added by several threads
+     * at the same moment may pass more than once.
+     *
+     * @param elements stream of elements
+     * @param expectedInsertions expected number of distinct elements
+     * @param falsePositiveRate desired rate of unique elements that are dropped
+     * @param <T> type of element
+     * @return stream of elements that are seen for the first time
+     */
+    public static <T> Stream<T> distinctApproximately(Stream<T> elements, long expectedInsertions,
+                                                      double falsePositiveRate) {
+
+        BloomFilter<T> seen = BloomFilter.create(expectedInsertions, falsePositiveRate);
+        return elements.filter(seen::put);
+    }
+
+    /**
+     * Creates a collector of elements into a {@link HyperLogLog} estimator of the number of distinct elements,
+     * parts of parallel streams are merged.
+     *
+     * <pre>
+     *     long visitors = visits.map(Visit::getUserId).collect(StreamUtils.toHyperLogLog(14)).cardinality();
+     * </pre>
+     *
+     * @param precision precision of the estimator, see {@link HyperLogLog}
+     * @param <T> type of element
+     * @return collector of elements into a cardinality estimator
+     */
+    public static <T> Collector<T, ?, HyperLogLog> toHyperLogLog(int precision) {
+        return Collector.of(
+                () -> new HyperLogLog(precision),
+                HyperLogLog::add,
+                HyperLogLog::merge,
+                Collector.Characteristics.UNORDERED);
+    }
+
+    private static <T> void offerBounded(PriorityQueue<T> heap, T element, int k, Comparator<? super T> comparator) {
+        if (heap.size() < k) {
+            heap.add(element);
+        }
+        else if (comparator.compare(element, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(element);
+        }
+    }
+
+    private static void closeAll(List<? extends Stream<?>> streams) {
+        Throwable failure = null;
+        for (Stream<?> stream : streams) {
+            try {
+                stream.close();
+            }
+            catch (RuntimeException e) {
+                failure = ExceptionUtils.chainExceptions(failure, e);
+            }
         }
 
-        if (Set.class.isAssignableFrom(collectionType)) {
-            return elements.collect(Collectors.toSet());
+        if (failure != null) {
+            throw (RuntimeException) failure;
         }
+    }
 
-        if (Queue.class.isAssignableFrom(collectionType)) {
-            return elements.collect(Collectors.toCollection(PriorityQueue::new));
+    private static boolean isPrimitiveBackedTarget(Class<?> collectionType, Class<?> listType) {
+        if (collectionType == listType || collectionType == Set.class) {
+            return true;
         }
 
-        if (Iterable.class.isAssignableFrom(collectionType)) {
-            return elements.collect(Collectors.toList());
+        return !CollectionFactory.isInstantiable(collectionType)
+                && Iterable.class.isAssignableFrom(collectionType)
+                && collectionType.isAssignableFrom(listType);
+    }
+
+    private static int initialCapacity(Spliterator<?> spliterator) {
+        long size = spliterator.getExactSizeIfKnown();
+        return size < 0 ? 10 : (int) Math.min(size, Integer.MAX_VALUE - 8);
+    }
+
+    private static Collection<?> collectParallelStream(Stream<?> elements, Class<?> collectionType) {
+        CollectionFactory.checkSupported(collectionType);
+
+        if (CollectionFactory.isConcurrentUnordered(collectionType)) {
+            Collection<Object> collection = CollectionFactory.newConcurrentCollection(collectionType);
+
+            return elements.collect(Collector.of(
+                    () -> collection,
+                    Collection::add,
+                    (left, right) -> left,
+                    Collector.Characteristics.CONCURRENT,
+                    Collector.Characteristics.UNORDERED,
+                    Collector.Characteristics.IDENTITY_FINISH));
         }
 
-        throw new IllegalArgumentException(collectionType.getCanonicalName() + " is not supported");
+        if (CollectionFactory.isUnorderedHashSet(collectionType)) {
+            // duplicates are dropped by every thread, so only distinct elements are buffered and merged
+            return elements.collect(Collector.<Object, Collection<Object>>of(
+                    () -> CollectionFactory.newCollection(collectionType, CollectionFactory.UNKNOWN_SIZE),
+                    Collection::add,
+                    (left, right) -> {
+                        if (left.size() < right.size()) {
+                            right.addAll(left);
+                            return right;
+                        }
+
+                        left.addAll(right);
+                        return left;
+                    },
+                    Collector.Characteristics.UNORDERED,
+                    Collector.Characteristics.IDENTITY_FINISH));
+        }
+
+        // toArray() of a sized parallel stream fills a presized array by position of elements
+        Object[] array = elements.toArray();
+
+        Collection<Object> collection = CollectionFactory.newCollection(collectionType, array.length);
+        collection.addAll(Arrays.asList(array));
+        return collection;
     }
 
 }
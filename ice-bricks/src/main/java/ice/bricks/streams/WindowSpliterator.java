@@ -0,0 +1,77 @@
+package ice.bricks.streams;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator that produces sliding windows of a fixed size over elements of a source spliterator.
+ * Every next window starts {@code step} elements after the previous one, trailing incomplete windows are dropped.
+ *
+ * Windows overlap, so the source cannot be split independently: the windows are produced lazily
+ * and split by buffering a growing number of them.
+ */
+final class WindowSpliterator<T> extends Spliterators.AbstractSpliterator<List<T>> {
+
+    private final Spliterator<T> source;
+    private final int windowSize;
+    private final int step;
+
+    private final Deque<T> window;
+    private final Consumer<T> windowAppender;
+
+    private boolean started = false;
+
+    WindowSpliterator(Spliterator<T> source, int windowSize, int step) {
+        super(estimateSize(source.estimateSize(), windowSize, step),
+                Spliterator.NONNULL | (source.characteristics() & Spliterator.ORDERED));
+
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must be positive");
+        }
+
+        if (step <= 0) {
+            throw new IllegalArgumentException("step must be positive");
+        }
+
+        this.source = source;
+        this.windowSize = windowSize;
+        this.step = step;
+
+        this.window = new ArrayDeque<>(windowSize);
+        this.windowAppender = this.window::addLast;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super List<T>> action) {
+        int required = this.started ? this.step : this.windowSize;
+
+        // elements between windows are skipped if the step is larger than the window
+        for (int i = 0; i < required; i++) {
+            if (!this.source.tryAdvance(this.windowAppender)) {
+                return false;
+            }
+
+            if (this.window.size() > this.windowSize) {
+                this.window.removeFirst();
+            }
+        }
+
+        this.started = true;
+        action.accept(new ArrayList<>(this.window));
+        return true;
+    }
+
+    private static long estimateSize(long sourceSize, int windowSize, int step) {
+        if (sourceSize == Long.MAX_VALUE || windowSize <= 0 || step <= 0) {
+            return Long.MAX_VALUE;
+        }
+
+        return sourceSize < windowSize ? 0 : (sourceSize - windowSize) / step + 1;
+    }
+
+}
@@ -1,4 +1,5 @@
 module ice.bricks {
+    requires java.management;
     requires jdk.compiler;
     requires lombok;
     requires org.jetbrains.annotations;